@@ -33,6 +33,10 @@ android {
     kotlinOptions {
         jvmTarget = "1.8"
     }
+    buildFeatures {
+        // BuildConfig.DEBUG dipakai AppLog untuk level default
+        buildConfig = true
+    }
 }
 
 dependencies {
@@ -42,6 +46,9 @@ dependencies {
     implementation("androidx.constraintlayout:constraintlayout:2.1.4")
     implementation("androidx.cardview:cardview:1.0.0")
     
+    // Event dan payload protokol device-server (dipakai juga oleh simulator)
+    implementation(project(":protocol"))
+    
     // Socket.IO Client
     implementation("io.socket:socket.io-client:2.0.1")
     
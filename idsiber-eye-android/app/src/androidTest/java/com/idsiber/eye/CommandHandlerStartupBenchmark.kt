@@ -0,0 +1,54 @@
+package com.idsiber.eye
+
+import android.util.Log
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Startup check for the lazy CommandHandler: the constructor builds no
+ * handler, and a command only builds the handler it dispatches to. Uses the
+ * handler init entries recorded in StartupMetrics instead of wall-clock time.
+ *
+ * Run with `./gradlew connectedAndroidTest`; the first-command timing is
+ * logged under tag "StartupBenchmark" for reference.
+ */
+@RunWith(AndroidJUnit4::class)
+class CommandHandlerStartupBenchmark {
+    private val context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    @Before
+    fun resetMetrics() {
+        StartupMetrics.reset()
+    }
+
+    @Test
+    fun constructorInitializesNoHandlers() {
+        CommandHandler(context)
+
+        assertEquals(emptyList<String>(), handlerInits())
+    }
+
+    @Test
+    fun firstCommandInitializesOnlyItsOwnHandler() {
+        val handler = CommandHandler(context)
+
+        val start = System.nanoTime()
+        handler.executeCommand("get_device_info", null)
+        Log.i(TAG, "first get_device_info: ${(System.nanoTime() - start) / 1000} us")
+
+        assertEquals(listOf("handler_device_control"), handlerInits())
+    }
+
+    private fun handlerInits(): List<String> {
+        val durations = StartupMetrics.toJson().getJSONObject("init_durations_ms")
+        return durations.keys().asSequence().filter { it.startsWith("handler_") }.toList()
+    }
+
+    companion object {
+        private const val TAG = "StartupBenchmark"
+    }
+}
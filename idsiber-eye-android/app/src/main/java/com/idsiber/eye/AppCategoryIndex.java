@@ -0,0 +1,238 @@
+package com.idsiber.eye;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.ChangedPackages;
+import android.content.pm.PackageManager;
+import android.os.Build;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Indeks kategori aplikasi terpasang (game, social, video, ...) dari
+ * ApplicationInfo.category, untuk selector bulk block/unblock.
+ *
+ * Indeks dibangun sekali lalu diperbarui secara inkremental lewat
+ * PackageManager.getChangedPackages() (Android 8.0+), sehingga resolve
+ * kategori tidak perlu memindai semua paket setiap kali. Di bawah 8.0
+ * indeks dibangun ulang jika sudah lebih tua dari LEGACY_MAX_AGE_MS.
+ */
+public class AppCategoryIndex {
+    private static final String TAG = "AppCategoryIndex";
+    private static final long LEGACY_MAX_AGE_MS = 10 * 60 * 1000L;
+    // Aplikasi yang di-hide (diblokir) hanya terlihat dengan flag ini
+    private static final int QUERY_FLAGS = PackageManager.MATCH_UNINSTALLED_PACKAGES;
+
+    // Index = nilai ApplicationInfo.CATEGORY_*; CATEGORY_UNDEFINED menjadi "other"
+    private static final String[] CATEGORY_NAMES = {
+        "game", "audio", "video", "image", "social", "news", "maps", "productivity", "accessibility"
+    };
+    public static final String CATEGORY_OTHER = "other";
+    private static final byte OTHER = (byte) CATEGORY_NAMES.length;
+
+    private static AppCategoryIndex instance;
+
+    private final PackageManager packageManager;
+
+    // Array paralel, terurut berdasarkan nama paket
+    private String[] packages = new String[0];
+    private byte[] categories = new byte[0];
+    private boolean[] system = new boolean[0];
+    private int size = 0;
+    private boolean built = false;
+    private long builtAt;
+    private int sequenceNumber;
+
+    private AppCategoryIndex(Context context) {
+        this.packageManager = context.getPackageManager();
+    }
+
+    public static synchronized AppCategoryIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new AppCategoryIndex(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Nama kategori yang dikenali selector (termasuk "other")
+     */
+    public static boolean isKnownCategory(String name) {
+        return CATEGORY_OTHER.equals(name) || categoryIndex(name) >= 0;
+    }
+
+    /**
+     * Paket pada kategori tersebut. Aplikasi sistem hanya ikut jika includeSystem.
+     */
+    public synchronized List<String> resolve(String category, boolean includeSystem) {
+        refresh();
+        byte wanted = CATEGORY_OTHER.equals(category) ? OTHER : (byte) categoryIndex(category);
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (categories[i] == wanted && (includeSystem || !system[i])) {
+                result.add(packages[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Kategori satu paket, atau null jika tidak terpasang
+     */
+    public synchronized String getCategory(String packageName) {
+        refresh();
+        int index = Arrays.binarySearch(packages, 0, size, packageName);
+        return index >= 0 ? categoryName(categories[index]) : null;
+    }
+
+    /**
+     * Jumlah aplikasi non-sistem per kategori
+     */
+    public synchronized JSONObject getSummaryJson(boolean includePackages) throws JSONException {
+        refresh();
+        JSONObject result = new JSONObject();
+        for (byte category = 0; category <= OTHER; category++) {
+            JSONArray list = new JSONArray();
+            for (int i = 0; i < size; i++) {
+                if (categories[i] == category && !system[i]) {
+                    list.put(packages[i]);
+                }
+            }
+            JSONObject entry = new JSONObject();
+            entry.put("count", list.length());
+            if (includePackages) {
+                entry.put("packages", list);
+            }
+            result.put(categoryName(category), entry);
+        }
+        return result;
+    }
+
+    private void refresh() {
+        long now = System.currentTimeMillis();
+        if (!built) {
+            rebuild();
+            return;
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            if (now - builtAt > LEGACY_MAX_AGE_MS) {
+                rebuild();
+            }
+            return;
+        }
+
+        ChangedPackages changed = packageManager.getChangedPackages(sequenceNumber);
+        if (changed == null) {
+            return;
+        }
+        sequenceNumber = changed.getSequenceNumber();
+        for (String packageName : changed.getPackageNames()) {
+            try {
+                put(packageManager.getApplicationInfo(packageName, QUERY_FLAGS));
+            } catch (PackageManager.NameNotFoundException e) {
+                remove(packageName);
+            }
+        }
+        AppLog.d(TAG, "Applied {} package changes", changed.getPackageNames().size());
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            // Ambil nomor urut sebelum memindai supaya perubahan selama scan tidak terlewat
+            ChangedPackages changed = packageManager.getChangedPackages(0);
+            sequenceNumber = changed != null ? changed.getSequenceNumber() : 0;
+        }
+
+        List<ApplicationInfo> apps = packageManager.getInstalledApplications(QUERY_FLAGS);
+        int count = apps.size();
+        String[] newPackages = new String[count];
+        for (int i = 0; i < count; i++) {
+            newPackages[i] = apps.get(i).packageName;
+        }
+        Arrays.sort(newPackages);
+
+        packages = newPackages;
+        categories = new byte[count];
+        system = new boolean[count];
+        size = count;
+        for (ApplicationInfo app : apps) {
+            int index = Arrays.binarySearch(packages, 0, size, app.packageName);
+            categories[index] = categoryOf(app);
+            system[index] = isSystem(app);
+        }
+
+        built = true;
+        builtAt = System.currentTimeMillis();
+        AppLog.d(TAG, "Indexed {} apps in {}ms", size, (System.nanoTime() - start) / 1000000);
+    }
+
+    private void put(ApplicationInfo app) {
+        int index = Arrays.binarySearch(packages, 0, size, app.packageName);
+        if (index < 0) {
+            index = -index - 1;
+            if (size == packages.length) {
+                int capacity = Math.max(16, size * 2);
+                packages = Arrays.copyOf(packages, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+                system = Arrays.copyOf(system, capacity);
+            }
+            System.arraycopy(packages, index, packages, index + 1, size - index);
+            System.arraycopy(categories, index, categories, index + 1, size - index);
+            System.arraycopy(system, index, system, index + 1, size - index);
+            packages[index] = app.packageName;
+            size++;
+        }
+        categories[index] = categoryOf(app);
+        system[index] = isSystem(app);
+    }
+
+    private void remove(String packageName) {
+        int index = Arrays.binarySearch(packages, 0, size, packageName);
+        if (index < 0) {
+            return;
+        }
+        int tail = size - index - 1;
+        System.arraycopy(packages, index + 1, packages, index, tail);
+        System.arraycopy(categories, index + 1, categories, index, tail);
+        System.arraycopy(system, index + 1, system, index, tail);
+        size--;
+        packages[size] = null;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static byte categoryOf(ApplicationInfo app) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                && app.category >= 0 && app.category < CATEGORY_NAMES.length) {
+            return (byte) app.category;
+        }
+        // Aplikasi lama hanya menandai game lewat flag
+        if ((app.flags & ApplicationInfo.FLAG_IS_GAME) != 0) {
+            return 0;
+        }
+        return OTHER;
+    }
+
+    private static boolean isSystem(ApplicationInfo app) {
+        return (app.flags & ApplicationInfo.FLAG_SYSTEM) != 0;
+    }
+
+    private static int categoryIndex(String name) {
+        for (int i = 0; i < CATEGORY_NAMES.length; i++) {
+            if (CATEGORY_NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String categoryName(byte category) {
+        return category >= 0 && category < CATEGORY_NAMES.length ? CATEGORY_NAMES[category] : CATEGORY_OTHER;
+    }
+}
@@ -0,0 +1,214 @@
+package com.idsiber.eye;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Facade logging untuk hot path (command, heartbeat, status).
+ *
+ * - Level-gated: pesan di bawah level minimum tidak diformat sama sekali,
+ *   sehingga tidak ada alokasi string. Default DEBUG di debug build dan
+ *   INFO di release build. v()/d() sengaja tidak dibuang saat build supaya
+ *   set_log_level tetap bisa menyalakannya di device release; pemanggil
+ *   tidak menyusun string sendiri, jadi biayanya hanya cek level.
+ * - Lazy formatting: placeholder "{}" baru diisi jika level aktif.
+ * - Ring buffer tetap di memori untuk diambil server lewat get_recent_logs.
+ */
+public final class AppLog {
+    private static final int RING_CAPACITY = 256;
+
+    private static volatile int minLevel = BuildConfig.DEBUG ? Log.DEBUG : Log.INFO;
+
+    // Ring buffer dengan array tetap, tidak ada objek entry per log
+    private static final long[] ringTimes = new long[RING_CAPACITY];
+    private static final byte[] ringLevels = new byte[RING_CAPACITY];
+    private static final String[] ringTags = new String[RING_CAPACITY];
+    private static final String[] ringMessages = new String[RING_CAPACITY];
+    private static int ringNext = 0;
+    private static int ringSize = 0;
+
+    private static final ThreadLocal<StringBuilder> formatBuffer = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    private AppLog() {
+    }
+
+    public static boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    public static void setMinLevel(int level) {
+        minLevel = level;
+    }
+
+    public static int getMinLevel() {
+        return minLevel;
+    }
+
+    public static void v(String tag, String msg) {
+        if (Log.VERBOSE >= minLevel) {
+            write(Log.VERBOSE, tag, msg, null);
+        }
+    }
+
+    public static void d(String tag, String msg) {
+        if (Log.DEBUG >= minLevel) {
+            write(Log.DEBUG, tag, msg, null);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg) {
+        if (Log.DEBUG >= minLevel) {
+            write(Log.DEBUG, tag, format(format, arg, null, 1), null);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2) {
+        if (Log.DEBUG >= minLevel) {
+            write(Log.DEBUG, tag, format(format, arg1, arg2, 2), null);
+        }
+    }
+
+    public static void i(String tag, String msg) {
+        if (Log.INFO >= minLevel) {
+            write(Log.INFO, tag, msg, null);
+        }
+    }
+
+    public static void i(String tag, String format, Object arg) {
+        if (Log.INFO >= minLevel) {
+            write(Log.INFO, tag, format(format, arg, null, 1), null);
+        }
+    }
+
+    public static void w(String tag, String msg) {
+        if (Log.WARN >= minLevel) {
+            write(Log.WARN, tag, msg, null);
+        }
+    }
+
+    public static void w(String tag, String format, Object arg) {
+        if (Log.WARN >= minLevel) {
+            write(Log.WARN, tag, format(format, arg, null, 1), null);
+        }
+    }
+
+    public static void e(String tag, String msg) {
+        write(Log.ERROR, tag, msg, null);
+    }
+
+    public static void e(String tag, String msg, Throwable tr) {
+        write(Log.ERROR, tag, msg, tr);
+    }
+
+    public static void e(String tag, String format, Object arg) {
+        write(Log.ERROR, tag, format(format, arg, null, 1), null);
+    }
+
+    private static String format(String format, Object arg1, Object arg2, int argCount) {
+        StringBuilder sb = formatBuffer.get();
+        sb.setLength(0);
+
+        int argIndex = 0;
+        int start = 0;
+        int placeholder;
+        while (argIndex < argCount && (placeholder = format.indexOf("{}", start)) >= 0) {
+            sb.append(format, start, placeholder);
+            sb.append(argIndex == 0 ? arg1 : arg2);
+            argIndex++;
+            start = placeholder + 2;
+        }
+        sb.append(format, start, format.length());
+        return sb.toString();
+    }
+
+    private static void write(int level, String tag, String msg, Throwable tr) {
+        if (tr != null) {
+            Log.println(level, tag, msg + '\n' + Log.getStackTraceString(tr));
+            msg = msg + ": " + tr;
+        } else {
+            Log.println(level, tag, msg);
+        }
+
+        synchronized (ringTimes) {
+            ringTimes[ringNext] = System.currentTimeMillis();
+            ringLevels[ringNext] = (byte) level;
+            ringTags[ringNext] = tag;
+            ringMessages[ringNext] = msg;
+            ringNext = (ringNext + 1) % RING_CAPACITY;
+            if (ringSize < RING_CAPACITY) {
+                ringSize++;
+            }
+        }
+    }
+
+    /**
+     * Ambil entry terbaru dari ring buffer (paling baru di akhir array)
+     */
+    public static JSONArray getRecentEntries(int limit, int minEntryLevel) throws JSONException {
+        JSONArray entries = new JSONArray();
+        synchronized (ringTimes) {
+            int count = Math.min(Math.max(limit, 0), ringSize);
+            int matched = 0;
+            int first = (ringNext - ringSize + RING_CAPACITY) % RING_CAPACITY;
+
+            // Hitung mundur dulu agar yang diambil adalah entry paling baru
+            int startOffset = ringSize;
+            for (int i = ringSize - 1; i >= 0 && matched < count; i--) {
+                if (ringLevels[(first + i) % RING_CAPACITY] >= minEntryLevel) {
+                    matched++;
+                    startOffset = i;
+                }
+            }
+
+            for (int i = startOffset; i < ringSize; i++) {
+                int index = (first + i) % RING_CAPACITY;
+                if (ringLevels[index] < minEntryLevel) {
+                    continue;
+                }
+                JSONObject entry = new JSONObject();
+                entry.put("time", ringTimes[index]);
+                entry.put("level", levelName(ringLevels[index]));
+                entry.put("tag", ringTags[index]);
+                entry.put("message", ringMessages[index]);
+                entries.put(entry);
+            }
+        }
+        return entries;
+    }
+
+    public static String levelName(int level) {
+        switch (level) {
+            case Log.VERBOSE: return "verbose";
+            case Log.DEBUG: return "debug";
+            case Log.INFO: return "info";
+            case Log.WARN: return "warn";
+            case Log.ERROR: return "error";
+            default: return "unknown";
+        }
+    }
+
+    /**
+     * Parse nama level dari parameter command, default jika tidak dikenal
+     */
+    public static int parseLevel(String name, int defaultLevel) {
+        if (name == null) {
+            return defaultLevel;
+        }
+        switch (name.toLowerCase()) {
+            case "verbose": return Log.VERBOSE;
+            case "debug": return Log.DEBUG;
+            case "info": return Log.INFO;
+            case "warn": return Log.WARN;
+            case "error": return Log.ERROR;
+            default: return defaultLevel;
+        }
+    }
+}
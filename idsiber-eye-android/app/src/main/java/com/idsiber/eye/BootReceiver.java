@@ -3,16 +3,26 @@ package com.idsiber.eye;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.os.SystemClock;
 import android.util.Log;
 
 public class BootReceiver extends BroadcastReceiver {
     private static final String TAG = "BootReceiver";
+    public static final String EXTRA_BOOT_RECEIVED_AT = "boot_received_at";
     
     @Override
     public void onReceive(Context context, Intent intent) {
         String action = intent.getAction();
         Log.d(TAG, "Received broadcast: " + action);
         
+        // Alarm hilang setelah reboot dan jadwal bergeser saat jam/zona waktu berubah
+        if (Intent.ACTION_BOOT_COMPLETED.equals(action) ||
+            Intent.ACTION_MY_PACKAGE_REPLACED.equals(action) ||
+            Intent.ACTION_TIME_CHANGED.equals(action) ||
+            Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            CommandScheduler.getInstance(context).rearm();
+        }
+        
         if (Intent.ACTION_BOOT_COMPLETED.equals(action) || 
             Intent.ACTION_MY_PACKAGE_REPLACED.equals(action) ||
             Intent.ACTION_PACKAGE_REPLACED.equals(action)) {
@@ -21,6 +31,9 @@ public class BootReceiver extends BroadcastReceiver {
             
             // Start the WebSocket service
             Intent serviceIntent = new Intent(context, WebSocketService.class);
+            if (Intent.ACTION_BOOT_COMPLETED.equals(action)) {
+                serviceIntent.putExtra(EXTRA_BOOT_RECEIVED_AT, SystemClock.elapsedRealtime());
+            }
             context.startForegroundService(serviceIntent);
         }
     }
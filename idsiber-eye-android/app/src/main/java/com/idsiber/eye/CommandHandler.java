@@ -3,6 +3,7 @@ package com.idsiber.eye;
 import android.content.Context;
 import android.util.Log;
 
+import com.idsiber.eye.core.CoreCommandHandler;
 import com.idsiber.eye.handlers.AppManagementHandler;
 import com.idsiber.eye.handlers.DeviceControlHandler;
 import com.idsiber.eye.handlers.FileManagementHandler;
@@ -12,170 +13,379 @@ import com.idsiber.eye.handlers.NetworkHandler;
 import com.idsiber.eye.handlers.NotificationHandler;
 import com.idsiber.eye.handlers.PersonalDataHandler;
 import com.idsiber.eye.handlers.SystemInfoHandler;
+import com.idsiber.eye.platform.AndroidBatteryProvider;
+import com.idsiber.eye.platform.AndroidNetworkProvider;
+import com.idsiber.eye.platform.AndroidPackageProvider;
+import com.idsiber.eye.platform.AndroidPolicyProvider;
+import com.idsiber.eye.platform.AndroidUsageProvider;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Enhanced CommandHandler untuk menjalankan command yang diterima dari server
  * Aplikasi Kontrol HP Android Anak - IdSiber Eye
  * 
  * Refactored dengan modular handlers untuk kemudahan maintenance
  */
-public class CommandHandler {
+public class CommandHandler implements CommandExecutor {
     private static final String TAG = "CommandHandler";
     
-    // Handler instances
-    private DeviceControlHandler deviceControlHandler;
-    private NetworkHandler networkHandler;
-    private LocationHandler locationHandler;
-    private MediaHandler mediaHandler;
-    private SystemInfoHandler systemInfoHandler;
-    private AppManagementHandler appManagementHandler;
-    private PersonalDataHandler personalDataHandler;
-    private NotificationHandler notificationHandler;
-    private FileManagementHandler fileManagementHandler;
+    // Handler instances, dibuat saat pertama kali dipakai (lihat Lazy)
+    private final Lazy<DeviceControlHandler> deviceControlHandler;
+    private final Lazy<NetworkHandler> networkHandler;
+    private final Lazy<LocationHandler> locationHandler;
+    private final Lazy<MediaHandler> mediaHandler;
+    private final Lazy<SystemInfoHandler> systemInfoHandler;
+    private final Lazy<AppManagementHandler> appManagementHandler;
+    private final Lazy<PersonalDataHandler> personalDataHandler;
+    private final Lazy<NotificationHandler> notificationHandler;
+    private final Lazy<FileManagementHandler> fileManagementHandler;
+    // Command yang logikanya bisa jalan di JVM (lihat :protocol core/platform)
+    private final CoreCommandHandler core;
+    private final AtomicBoolean prewarmed = new AtomicBoolean(false);
+    private final CommandResultCache resultCache;
+    private final Context context;
+    private ExecutorService snapshotExecutor;
+    
+    // Section get_device_snapshot -> action sumbernya
+    private static final String[][] SNAPSHOT_SECTIONS = {
+        {"device_info", "get_device_info"},
+        {"battery", "get_battery_status"},
+        {"storage", "get_storage_info"},
+        {"memory", "get_memory_info"},
+        {"network", "get_network_info"}
+    };
+    private static final long DEFAULT_SNAPSHOT_TIMEOUT_MS = 3000;
     
-    public CommandHandler(Context context) {
-        // Initialize all handlers
-        deviceControlHandler = new DeviceControlHandler(context);
-        networkHandler = new NetworkHandler(context);
-        locationHandler = new LocationHandler(context);
-        mediaHandler = new MediaHandler(context);
-        systemInfoHandler = new SystemInfoHandler(context);
-        appManagementHandler = new AppManagementHandler(context);
-        personalDataHandler = new PersonalDataHandler(context);
-        notificationHandler = new NotificationHandler(context);
-        fileManagementHandler = new FileManagementHandler(context);
+    public CommandHandler(final Context context) {
+        long start = System.nanoTime();
+        resultCache = CommandResultCache.getInstance(context);
+        this.context = context.getApplicationContext();
+        // Provider hanya menyimpan Context; system service diambil saat dipakai
+        core = new CoreCommandHandler(
+            new AndroidPackageProvider(this.context),
+            new AndroidUsageProvider(this.context),
+            new AndroidBatteryProvider(this.context),
+            new AndroidNetworkProvider(this.context),
+            new AndroidPolicyProvider(this.context));
+        
+        // Handler tidak dibuat di sini: beberapa mengambil system service
+        // (LocationManager, DevicePolicyManager, AudioManager) atau memuat
+        // class CameraX, yang memperlambat startup service setelah boot.
+        deviceControlHandler = new Lazy<DeviceControlHandler>("device_control") {
+            @Override
+            protected DeviceControlHandler create() {
+                return new DeviceControlHandler(context);
+            }
+        };
+        networkHandler = new Lazy<NetworkHandler>("network") {
+            @Override
+            protected NetworkHandler create() {
+                return new NetworkHandler(context);
+            }
+        };
+        locationHandler = new Lazy<LocationHandler>("location") {
+            @Override
+            protected LocationHandler create() {
+                return new LocationHandler(context);
+            }
+        };
+        mediaHandler = new Lazy<MediaHandler>("media") {
+            @Override
+            protected MediaHandler create() {
+                return new MediaHandler(context);
+            }
+        };
+        systemInfoHandler = new Lazy<SystemInfoHandler>("system_info") {
+            @Override
+            protected SystemInfoHandler create() {
+                return new SystemInfoHandler(context);
+            }
+        };
+        appManagementHandler = new Lazy<AppManagementHandler>("app_management") {
+            @Override
+            protected AppManagementHandler create() {
+                return new AppManagementHandler(context);
+            }
+        };
+        personalDataHandler = new Lazy<PersonalDataHandler>("personal_data") {
+            @Override
+            protected PersonalDataHandler create() {
+                return new PersonalDataHandler(context);
+            }
+        };
+        notificationHandler = new Lazy<NotificationHandler>("notification") {
+            @Override
+            protected NotificationHandler create() {
+                return new NotificationHandler(context);
+            }
+        };
+        fileManagementHandler = new Lazy<FileManagementHandler>("file_management") {
+            @Override
+            protected FileManagementHandler create() {
+                return new FileManagementHandler(context);
+            }
+        };
+        
+        StartupMetrics.recordDuration("command_handler", System.nanoTime() - start);
     }
     
+    /**
+     * Siapkan handler yang sering dipakai, supaya command pertama tidak
+     * menanggung biaya inisialisasi. Dipanggil dari thread background
+     * (tahap deferred StartupPipeline). MediaHandler sengaja tidak ikut
+     * karena memuat CameraX dan jarang dipakai.
+     */
+    public void prewarm() {
+        if (!prewarmed.compareAndSet(false, true)) {
+            return;
+        }
+        deviceControlHandler.get();
+        systemInfoHandler.get();
+        networkHandler.get();
+        appManagementHandler.get();
+        notificationHandler.get();
+        AppLog.d(TAG, "Handlers prewarmed");
+    }
+    
+    @Override
     public CommandResult executeCommand(String action, JSONObject params) {
-        Log.d(TAG, "Executing command: " + action);
+        AppLog.d(TAG, "Executing command: {}", action);
+        
+        if (!resultCache.isCacheable(action)) {
+            CommandResult result = dispatch(action, params);
+            invalidateAffectedResults(action, result);
+            return result;
+        }
+        
+        // max_age (detik) dari server membatasi umur hasil cache yang boleh dipakai
+        long maxAgeMs = Long.MAX_VALUE;
+        if (params != null && params.has("max_age")) {
+            maxAgeMs = params.optLong("max_age", 0) * 1000L;
+        }
+        
+        CommandResult cached = resultCache.get(action, maxAgeMs);
+        if (cached != null) {
+            return cached;
+        }
         
+        CommandResult result = dispatch(action, params);
+        resultCache.put(action, result);
+        return result;
+    }
+    
+    /**
+     * Buang hasil cache yang menjadi basi karena command yang baru dijalankan
+     */
+    private void invalidateAffectedResults(String action, CommandResult result) {
+        if (result == null || !result.isSuccess()) {
+            return;
+        }
+        switch (action) {
+            case "delete_file":
+            case "start_audio_recording":
+            case "stop_audio_recording":
+            case "take_photo":
+                resultCache.invalidate(CommandResultCache.STORAGE_INFO);
+                break;
+        }
+    }
+    
+    private CommandResult dispatch(String action, JSONObject params) {
         try {
             switch (action) {
                 // ============= BASIC DEVICE CONTROL =============
                 case "lock_screen":
-                    return deviceControlHandler.lockScreen(params);
+                    return core.lockScreen(params);
                 case "unlock_screen":
-                    return deviceControlHandler.unlockScreen();
+                    return deviceControlHandler.get().unlockScreen();
                 case "reboot_device":
-                    return deviceControlHandler.rebootDevice();
+                    return deviceControlHandler.get().rebootDevice();
                 case "set_volume":
-                    return deviceControlHandler.setVolume(params);
+                    return deviceControlHandler.get().setVolume(params);
                 case "mute_device":
-                    return deviceControlHandler.muteDevice();
+                    return deviceControlHandler.get().muteDevice();
                 case "unmute_device":
-                    return deviceControlHandler.unmuteDevice();
+                    return deviceControlHandler.get().unmuteDevice();
                 case "set_brightness":
-                    return deviceControlHandler.setBrightness(params);
+                    return deviceControlHandler.get().setBrightness(params);
                 case "set_screen_timeout":
-                    return deviceControlHandler.setScreenTimeout(params);
+                    return deviceControlHandler.get().setScreenTimeout(params);
+                case "apply_profile":
+                    return deviceControlHandler.get().applyProfile(params);
+                case "restore_profile":
+                    return deviceControlHandler.get().restoreProfile();
+                case "save_profile":
+                    return deviceControlHandler.get().saveProfile(params);
+                case "delete_profile":
+                    return deviceControlHandler.get().deleteProfile(params);
+                case "list_profiles":
+                    return deviceControlHandler.get().listProfiles();
                 case "get_device_info":
-                    return deviceControlHandler.getDeviceInfo();
+                    return deviceControlHandler.get().getDeviceInfo();
                 case "get_battery_status":
-                    return deviceControlHandler.getBatteryStatus();
+                    return core.getBatteryStatus();
+                case "get_device_snapshot":
+                    return getDeviceSnapshot(params);
                 
                 // ============= NETWORK CONTROL =============
                 case "enable_wifi":
-                    return networkHandler.enableWifi();
+                    return networkHandler.get().enableWifi();
                 case "disable_wifi":
-                    return networkHandler.disableWifi();
+                    return networkHandler.get().disableWifi();
                 case "enable_airplane_mode":
-                    return networkHandler.enableAirplaneMode();
+                    return networkHandler.get().enableAirplaneMode();
                 case "disable_airplane_mode":
-                    return networkHandler.disableAirplaneMode();
+                    return networkHandler.get().disableAirplaneMode();
                 case "get_network_info":
-                    return networkHandler.getNetworkInfo();
+                    return core.getNetworkInfo();
+                case "get_data_usage":
+                    return networkHandler.get().getDataUsage(params);
                 
                 // ============= LOCATION SERVICES =============
                 case "get_location":
-                    return locationHandler.getLocation();
+                    return locationHandler.get().getLocation();
                 case "enable_location":
-                    return locationHandler.enableLocation();
+                    return locationHandler.get().enableLocation();
                 case "disable_location":
-                    return locationHandler.disableLocation();
+                    return locationHandler.get().disableLocation();
                 
                 // ============= MEDIA & RECORDING =============
                 case "start_audio_recording":
-                    return mediaHandler.startAudioRecording(params);
+                    return mediaHandler.get().startAudioRecording(params);
                 case "stop_audio_recording":
-                    return mediaHandler.stopAudioRecording();
+                    return mediaHandler.get().stopAudioRecording();
                 case "take_photo":
-                    return mediaHandler.takePhoto(params);
+                    return mediaHandler.get().takePhoto(params);
                 case "take_screenshot":
-                    return mediaHandler.takeScreenshot();
+                    return mediaHandler.get().takeScreenshot();
                 case "get_recording_status":
-                    return mediaHandler.getRecordingStatus();
+                    return mediaHandler.get().getRecordingStatus();
                 case "list_recordings":
-                    return mediaHandler.listRecordings();
+                    return mediaHandler.get().listRecordings();
                 
                 // ============= SYSTEM INFO =============
                 case "get_storage_info":
-                    return systemInfoHandler.getStorageInfo();
+                    return systemInfoHandler.get().getStorageInfo();
                 case "get_memory_info":
-                    return systemInfoHandler.getMemoryInfo();
+                    return systemInfoHandler.get().getMemoryInfo();
                 case "get_usage_stats":
-                    return systemInfoHandler.getUsageStats(params);
+                    return core.getUsageStats(params);
                 case "get_running_processes":
-                    return systemInfoHandler.getRunningProcesses();
+                    return systemInfoHandler.get().getRunningProcesses();
+                case "get_app_sessions":
+                    return systemInfoHandler.get().getAppSessions(params);
+                case "get_app_storage":
+                    return systemInfoHandler.get().getAppStorage(params);
+                case "get_resource_history":
+                    return systemInfoHandler.get().getResourceHistory(params);
                 
                 // ============= APP MANAGEMENT =============
                 case "get_installed_apps":
-                    return appManagementHandler.getInstalledApps();
+                    return core.getInstalledApps();
                 case "block_app":
-                    return appManagementHandler.blockApp(params);
+                    return core.blockApp(params);
                 case "unblock_app":
-                    return appManagementHandler.unblockApp(params);
+                    return core.unblockApp(params);
+                case "block_apps":
+                    return appManagementHandler.get().blockApps(params);
+                case "unblock_apps":
+                    return appManagementHandler.get().unblockApps(params);
+                case "get_app_categories":
+                    return appManagementHandler.get().getAppCategories(params);
                 case "kill_app":
-                    return appManagementHandler.killApp(params);
+                    return appManagementHandler.get().killApp(params);
                 case "force_stop_app":
-                    return appManagementHandler.forceStopApp(params);
+                    return appManagementHandler.get().forceStopApp(params);
                 case "disable_app":
-                    return appManagementHandler.disableApp(params);
+                    return appManagementHandler.get().disableApp(params);
                 case "enable_app":
-                    return appManagementHandler.enableApp(params);
+                    return appManagementHandler.get().enableApp(params);
                 case "clear_app_data":
-                    return appManagementHandler.clearAppData(params);
+                    return appManagementHandler.get().clearAppData(params);
                 case "wipe_device":
-                    return appManagementHandler.wipeDevice(params);
+                    return appManagementHandler.get().wipeDevice(params);
                 case "get_app_info":
-                    return appManagementHandler.getAppInfo(params);
+                    return appManagementHandler.get().getAppInfo(params);
                 
                 // ============= PERSONAL DATA =============
                 case "get_contacts":
-                    return personalDataHandler.getContacts();
+                    return personalDataHandler.get().getContacts();
                 case "get_call_logs":
-                    return personalDataHandler.getCallLogs();
+                    return personalDataHandler.get().getCallLogs();
                 case "get_sms_messages":
-                    return personalDataHandler.getSmsMessages();
+                    return personalDataHandler.get().getSmsMessages();
                 
                 // ============= NOTIFICATION MANAGEMENT =============
                 case "get_notifications":
-                    return notificationHandler.getNotifications();
+                    return notificationHandler.get().getNotifications();
                 case "clear_notifications":
-                    return notificationHandler.clearNotifications();
+                    return notificationHandler.get().clearNotifications();
                 case "open_notification_settings":
-                    return notificationHandler.openNotificationSettings();
+                    return notificationHandler.get().openNotificationSettings();
                 
                 // ============= FILE MANAGEMENT =============
                 case "list_files":
-                    return fileManagementHandler.listFiles(params);
+                    return fileManagementHandler.get().listFiles(params);
                 case "delete_file":
-                    return fileManagementHandler.deleteFile(params);
+                    return fileManagementHandler.get().deleteFile(params);
                 case "get_file_info":
-                    return fileManagementHandler.getFileInfo(params);
+                    return fileManagementHandler.get().getFileInfo(params);
                 
                 // ============= COMMAND INFO =============
                 case "get_available_commands":
                     return getAvailableCommands();
                 case "get_command_help":
                     return getCommandHelp(params);
+                case "set_schedule":
+                    return setSchedule(params);
+                case "get_schedule":
+                    return new CommandResult(true, "Schedule retrieved", CommandScheduler.getInstance(context).toJson().toString());
+                case "get_work_stats":
+                    return new CommandResult(true, "Work scheduler stats retrieved", WorkScheduler.getInstance(context).toJson().toString());
+                case "get_server_endpoints":
+                    return new CommandResult(true, "Server endpoints retrieved", EndpointSelector.getInstance(context).toJson().toString());
+                case "set_server_endpoints":
+                    return setServerEndpoints(params);
+                case "set_server_tls":
+                    return setServerTls(params);
+                case "benchmark_reconnect":
+                    return benchmarkReconnect(params);
+                case "get_startup_metrics":
+                    return new CommandResult(true, "Startup metrics retrieved", StartupMetrics.toJson().toString());
+                case "get_recent_logs":
+                    return getRecentLogs(params);
+                case "start_command_recording":
+                    return startCommandRecording(params);
+                case "stop_command_recording":
+                    CommandRecorder.getInstance(context).stop();
+                    return new CommandResult(true, "Command recording stopped",
+                        CommandRecorder.getInstance(context).toJson(false).toString());
+                case "get_command_recording":
+                    return new CommandResult(true, "Command recording retrieved",
+                        CommandRecorder.getInstance(context).toJson(params == null || params.optBoolean("include_log", true)).toString());
+                case "set_log_level":
+                    return setLogLevel(params);
                 
                 default:
                     return new CommandResult(false, "Unknown command: " + action, null);
             }
         } catch (Exception e) {
-            Log.e(TAG, "Command execution error", e);
+            AppLog.e(TAG, "Command execution error", e);
             return new CommandResult(false, "Command execution failed: " + e.getMessage(), null);
         }
     }
@@ -194,8 +404,14 @@ public class CommandHandler {
             deviceCommands.put("unmute_device", "Unmute device and restore normal volumes");
             deviceCommands.put("set_brightness", "Set screen brightness (0-100)");
             deviceCommands.put("set_screen_timeout", "Set screen timeout in minutes");
+            deviceCommands.put("apply_profile", "Apply a saved or inline volume/ringer/brightness/timeout profile in one pass");
+            deviceCommands.put("restore_profile", "Restore settings saved before the first applied profile");
+            deviceCommands.put("save_profile", "Save a named device profile");
+            deviceCommands.put("delete_profile", "Delete a named device profile");
+            deviceCommands.put("list_profiles", "List saved device profiles");
             deviceCommands.put("get_device_info", "Get comprehensive device information");
             deviceCommands.put("get_battery_status", "Get detailed battery status and health");
+            deviceCommands.put("get_device_snapshot", "Get device, battery, storage, memory and network info in one response (timeout_ms is the budget per section, section_timeouts overrides it by name)");
             commands.put("device_control", deviceCommands);
             
             // Network Commands
@@ -205,6 +421,7 @@ public class CommandHandler {
             networkCommands.put("enable_airplane_mode", "Enable airplane mode");
             networkCommands.put("disable_airplane_mode", "Disable airplane mode");
             networkCommands.put("get_network_info", "Get comprehensive network information");
+            networkCommands.put("get_data_usage", "Get top apps by mobile/WiFi data usage (requires usage access)");
             commands.put("network_control", networkCommands);
             
             // Location Commands
@@ -230,6 +447,9 @@ public class CommandHandler {
             systemCommands.put("get_memory_info", "Get system and app memory usage");
             systemCommands.put("get_usage_stats", "Get app usage statistics (requires permission)");
             systemCommands.put("get_running_processes", "Get list of running processes");
+            systemCommands.put("get_app_storage", "Get per-app storage breakdown from the background index (Android 8.0+, requires usage access)");
+            systemCommands.put("get_resource_history", "Get battery, memory and storage history (minute/hour/day tiers)");
+            systemCommands.put("get_app_sessions", "Get current foreground app and recent app sessions (requires usage access)");
             commands.put("system_info", systemCommands);
             
             // App Management Commands
@@ -237,6 +457,9 @@ public class CommandHandler {
             appCommands.put("get_installed_apps", "Get list of all installed applications");
             appCommands.put("block_app", "Block/hide application (requires device admin)");
             appCommands.put("unblock_app", "Unblock/show application (requires device admin)");
+            appCommands.put("block_apps", "Block apps by package list or category in one pass, with rollback (requires device owner)");
+            appCommands.put("unblock_apps", "Unblock apps by package list or category in one pass, with rollback (requires device owner)");
+            appCommands.put("get_app_categories", "Get installed app counts per category (game, social, video, ...)");
             appCommands.put("kill_app", "Kill background processes of an app");
             appCommands.put("force_stop_app", "Force stop application (requires system permissions)");
             appCommands.put("disable_app", "Disable application (requires system permissions)");
@@ -271,6 +494,19 @@ public class CommandHandler {
             JSONObject metaCommands = new JSONObject();
             metaCommands.put("get_available_commands", "Get list of all available commands");
             metaCommands.put("get_command_help", "Get help for specific command");
+            metaCommands.put("set_schedule", "Replace the on-device command schedule (versioned, runs offline)");
+            metaCommands.put("get_schedule", "Get the on-device command schedule with next and last runs");
+            metaCommands.put("get_work_stats", "Get background task schedule, deferrals and scheduler ticks saved by batching (tasks do not run while the device sleeps)");
+            metaCommands.put("get_server_endpoints", "Get configured server endpoints with health and measured RTT");
+            metaCommands.put("set_server_endpoints", "Replace the ordered server endpoint list used for failover");
+            metaCommands.put("set_server_tls", "Enable https/wss for all endpoints with optional certificate pins");
+            metaCommands.put("benchmark_reconnect", "Measure TLS reconnect latency with and without session resumption");
+            metaCommands.put("get_startup_metrics", "Get service startup timings and handler init durations");
+            metaCommands.put("get_recent_logs", "Get recent entries from the in-memory log buffer");
+            metaCommands.put("start_command_recording", "Record incoming commands and their timings for JVM replay");
+            metaCommands.put("stop_command_recording", "Stop recording incoming commands");
+            metaCommands.put("get_command_recording", "Get the recorded command log and recording status");
+            metaCommands.put("set_log_level", "Change minimum log level (verbose/debug/info/warn/error)");
             commands.put("meta", metaCommands);
             
             return new CommandResult(true, "Available commands retrieved", commands.toString());
@@ -299,6 +535,13 @@ public class CommandHandler {
                     help.put("example", "{\"volume\": 50, \"stream\": \"music\"}");
                     break;
                     
+                case "apply_profile":
+                    help.put("description", "Apply a device profile; settings already at the target value are not written, and a failed write rolls back the rest");
+                    help.put("parameters", "name (required unless settings given): Saved profile name, settings (optional): Inline profile {volume: {stream: 0-100}, ringer_mode: silent/vibrate/normal, brightness: 0-100, brightness_mode: auto/manual, screen_timeout_minutes: 0-60}, snapshot (optional): Remember previous values for restore_profile (default true)");
+                    help.put("requires", "Write settings permission for brightness/timeout, notification policy access for silent mode");
+                    help.put("example", "{\"name\": \"homework\"}");
+                    break;
+                    
                 case "get_location":
                     help.put("description", "Get current GPS or network-based location");
                     help.put("parameters", "None");
@@ -327,6 +570,14 @@ public class CommandHandler {
                     help.put("example", "{\"package_name\": \"com.facebook.katana\"}");
                     break;
                     
+                case "block_apps":
+                case "unblock_apps":
+                    help.put("description", "Block/unblock many apps in one pass with a per-package result");
+                    help.put("parameters", "packages (optional): Package names, category (optional): game/audio/video/image/social/news/maps/productivity/accessibility/other or an array of them, exclude (optional): Packages to skip, include_system (optional): Include system apps in categories (default false), rollback (optional): Undo applied changes if any package fails (default true)");
+                    help.put("requires", "Device Owner permissions");
+                    help.put("example", "{\"category\": [\"game\", \"social\"], \"exclude\": [\"com.whatsapp\"]}");
+                    break;
+                    
                 case "list_files":
                     help.put("description", "List files and directories in specified path");
                     help.put("parameters", "path (optional): Directory path (default external storage), max_files (optional): Maximum files to return (default 100), include_hidden (optional): Include hidden files (default false)");
@@ -334,6 +585,49 @@ public class CommandHandler {
                     help.put("example", "{\"path\": \"/sdcard/Download\", \"max_files\": 50}");
                     break;
                     
+                case "set_schedule":
+                    help.put("description", "Replace the on-device schedule; entries run via AlarmManager even when offline");
+                    help.put("parameters", "version (required): Schedule version, ignored unless newer, entries (required): Array of {id, action, params, time HH:mm, days 1-7 (1 = Monday, optional), window_minutes (0 = exact), enabled}, force (optional): Apply even if version is not newer");
+                    help.put("requires", "No special permissions (scheduled actions need their own)");
+                    help.put("example", "{\"version\": 3, \"entries\": [{\"id\": \"bedtime\", \"action\": \"lock_screen\", \"time\": \"21:00\"}, {\"id\": \"school_mute\", \"action\": \"mute_device\", \"time\": \"07:00\", \"days\": [1, 2, 3, 4, 5], \"window_minutes\": 5}]}");
+                    break;
+                    
+                case "set_server_endpoints":
+                    help.put("description", "Replace the server endpoint list; the client connects to the fastest healthy endpoint and fails over automatically");
+                    help.put("parameters", "endpoints (required): Array of \"host:port\" in priority order, the first becomes the primary server");
+                    help.put("requires", "No special permissions");
+                    help.put("example", "{\"endpoints\": [\"10.88.66.40:3001\", \"10.88.66.41:3001\"]}");
+                    break;
+                    
+                case "set_server_tls":
+                    help.put("description", "Switch all endpoints to https/wss; the client reconnects on its own and reuses TLS sessions across reconnects");
+                    help.put("parameters", "enabled (required): true for https/wss, pins (optional): Array of \"sha256/<base64>\" public key pins, empty = no pinning");
+                    help.put("requires", "Server reachable over TLS on the configured ports");
+                    help.put("example", "{\"enabled\": true, \"pins\": [\"sha256/AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=\"]}");
+                    break;
+                    
+                case "start_command_recording":
+                    help.put("description", "Record every command received from the server (action, params, execution time, result size) to a compact log; stops automatically at max_entries");
+                    help.put("parameters", "max_entries (optional): 1-20000 (default 2000). Starting again discards the previous log");
+                    help.put("requires", "No special permissions");
+                    help.put("example", "{\"max_entries\": 5000}");
+                    break;
+                    
+                case "get_command_recording":
+                    help.put("description", "Recording status and the log text, to be saved and replayed with ./gradlew :benchmark:replay");
+                    help.put("parameters", "include_log (optional): false returns only the status (default true)");
+                    help.put("requires", "No special permissions");
+                    help.put("example", "{\"include_log\": true}");
+                    break;
+                    
+                case "benchmark_reconnect":
+                    help.put("description", "Time TCP connect + TLS handshake to the current endpoint, with the shared SSL context (resumed) and a fresh one (full handshake)");
+                    help.put("parameters", "rounds (optional): Connections per mode, 1-20 (default 5)");
+                    help.put("requires", "TLS enabled (set_server_tls)");
+                    help.put("notes", "Runs off the socket thread and replies when done (max 60 s, truncated=true if cut short). resumed_sessions is null on TLS 1.3, where session IDs do not reveal resumption");
+                    help.put("example", "{\"rounds\": 10}");
+                    break;
+                    
                 default:
                     return new CommandResult(false, "No help available for command: " + command, null);
             }
@@ -345,19 +639,277 @@ public class CommandHandler {
         }
     }
     
+    /**
+     * Gabungan get_device_info, get_battery_status, get_storage_info,
+     * get_memory_info dan get_network_info dalam satu response.
+     *
+     * Semua section dijalankan paralel (lewat cache yang sama dengan command
+     * aslinya). Tiap section punya budget sendiri sejak dikirim ke executor:
+     * timeout_ms, atau section_timeouts.{nama} jika ada. Section yang gagal
+     * atau melewati budget dicatat di "errors", section lain tetap dikembalikan.
+     */
+    private CommandResult getDeviceSnapshot(final JSONObject params) {
+        try {
+            long timeoutMs = DEFAULT_SNAPSHOT_TIMEOUT_MS;
+            JSONArray requested = null;
+            JSONObject sectionTimeouts = null;
+            if (params != null) {
+                timeoutMs = params.optLong("timeout_ms", timeoutMs);
+                requested = params.optJSONArray("sections");
+                sectionTimeouts = params.optJSONObject("section_timeouts");
+            }
+            
+            long start = System.nanoTime();
+            ExecutorService executor = getSnapshotExecutor();
+            
+            List<String> names = new ArrayList<>();
+            List<Long> budgets = new ArrayList<>();
+            List<Long> deadlines = new ArrayList<>();
+            List<Future<CommandResult>> futures = new ArrayList<>();
+            for (final String[] section : SNAPSHOT_SECTIONS) {
+                if (requested != null && !containsString(requested, section[0])) {
+                    continue;
+                }
+                long budgetMs = sectionTimeouts != null ? sectionTimeouts.optLong(section[0], timeoutMs) : timeoutMs;
+                names.add(section[0]);
+                budgets.add(budgetMs);
+                deadlines.add(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs));
+                futures.add(executor.submit(new Callable<CommandResult>() {
+                    @Override
+                    public CommandResult call() {
+                        return executeCommand(section[1], params);
+                    }
+                }));
+            }
+            
+            JSONObject sections = new JSONObject();
+            JSONObject errors = new JSONObject();
+            for (int i = 0; i < futures.size(); i++) {
+                String name = names.get(i);
+                Future<CommandResult> future = futures.get(i);
+                try {
+                    long remaining = Math.max(0, deadlines.get(i) - System.nanoTime());
+                    CommandResult result = future.get(remaining, TimeUnit.NANOSECONDS);
+                    if (result.isSuccess() && result.getData() != null) {
+                        sections.put(name, new JSONObject(result.getData()));
+                    } else {
+                        errors.put(name, result.getMessage());
+                    }
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    errors.put(name, "timeout after " + budgets.get(i) + "ms");
+                } catch (ExecutionException e) {
+                    errors.put(name, String.valueOf(e.getCause()));
+                }
+            }
+            
+            JSONObject snapshot = new JSONObject();
+            snapshot.put("sections", sections);
+            if (errors.length() > 0) {
+                snapshot.put("errors", errors);
+            }
+            snapshot.put("complete", errors.length() == 0);
+            snapshot.put("elapsed_ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            snapshot.put("timestamp", System.currentTimeMillis());
+            
+            int collected = sections.length();
+            return new CommandResult(collected > 0,
+                "Snapshot collected " + collected + "/" + names.size() + " sections", snapshot.toString());
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to get device snapshot: " + e.getMessage(), null);
+        }
+    }
+    
+    private synchronized ExecutorService getSnapshotExecutor() {
+        if (snapshotExecutor == null) {
+            // Thread idle dilepas setelah 60 detik, jadi tidak ada biaya saat tidak dipakai
+            snapshotExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+                
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Snapshot-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return snapshotExecutor;
+    }
+    
+    private static boolean containsString(JSONArray array, String value) {
+        for (int i = 0; i < array.length(); i++) {
+            if (value.equals(array.optString(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private CommandResult getRecentLogs(JSONObject params) {
+        try {
+            int limit = 100;
+            int minLevel = Log.VERBOSE;
+            if (params != null) {
+                limit = params.optInt("limit", limit);
+                minLevel = AppLog.parseLevel(params.optString("min_level", null), minLevel);
+            }
+            
+            JSONArray entries = AppLog.getRecentEntries(limit, minLevel);
+            JSONObject result = new JSONObject();
+            result.put("entries", entries);
+            result.put("count", entries.length());
+            result.put("current_level", AppLog.levelName(AppLog.getMinLevel()));
+            
+            return new CommandResult(true, "Retrieved " + entries.length() + " log entries", result.toString());
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to get logs: " + e.getMessage(), null);
+        }
+    }
+    
+    private CommandResult setSchedule(JSONObject params) {
+        try {
+            int version = params.getInt("version");
+            JSONArray entries = params.getJSONArray("entries");
+            CommandScheduler scheduler = CommandScheduler.getInstance(context);
+            boolean changed = scheduler.update(version, entries, params.optBoolean("force", false));
+            
+            String message = changed
+                ? "Schedule updated to version " + version
+                : "Schedule already at version " + scheduler.getVersion();
+            return new CommandResult(true, message, scheduler.toJson().toString());
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to set schedule: " + e.getMessage(), null);
+        }
+    }
+    
+    private CommandResult setServerEndpoints(JSONObject params) {
+        try {
+            JSONArray list = params.getJSONArray("endpoints");
+            List<String> endpoints = new ArrayList<>();
+            for (int i = 0; i < list.length(); i++) {
+                endpoints.add(list.getString(i));
+            }
+            // EndpointSelector ikut reload lewat ServerConfig.ChangeListener
+            new ServerConfig(context).saveEndpoints(endpoints);
+            return new CommandResult(true, "Server endpoints updated (" + endpoints.size() + ")", null);
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to set server endpoints: " + e.getMessage(), null);
+        }
+    }
+    
+    private CommandResult setServerTls(JSONObject params) {
+        try {
+            boolean enabled = params.getBoolean("enabled");
+            List<String> pins = new ArrayList<>();
+            JSONArray list = params.optJSONArray("pins");
+            if (list != null) {
+                for (int i = 0; i < list.length(); i++) {
+                    pins.add(list.getString(i));
+                }
+            }
+            new ServerConfig(context).saveTls(enabled, pins);
+            return new CommandResult(true, "Server TLS " + (enabled ? "enabled" : "disabled")
+                + " (" + pins.size() + " pins)", null);
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to set server TLS: " + e.getMessage(), null);
+        }
+    }
+    
+    private CommandResult benchmarkReconnect(JSONObject params) {
+        try {
+            int rounds = params != null ? params.optInt("rounds", 5) : 5;
+            JSONObject result = SecureTransport.getInstance(context).benchmarkReconnect(
+                EndpointSelector.getInstance(context).select(), rounds);
+            return new CommandResult(true, "Reconnect benchmark completed", result.toString());
+        } catch (Exception e) {
+            return new CommandResult(false, "Reconnect benchmark failed: " + e.getMessage(), null);
+        }
+    }
+    
+    private CommandResult startCommandRecording(JSONObject params) {
+        try {
+            int maxEntries = params != null
+                ? params.optInt("max_entries", CommandRecorder.DEFAULT_MAX_ENTRIES)
+                : CommandRecorder.DEFAULT_MAX_ENTRIES;
+            CommandRecorder recorder = CommandRecorder.getInstance(context);
+            recorder.start(maxEntries);
+            return new CommandResult(true, "Command recording started", recorder.toJson(false).toString());
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to start command recording: " + e.getMessage(), null);
+        }
+    }
+    
+    private CommandResult setLogLevel(JSONObject params) {
+        try {
+            String levelName = params.getString("level");
+            int level = AppLog.parseLevel(levelName, -1);
+            if (level < 0) {
+                return new CommandResult(false, "Unknown log level: " + levelName, null);
+            }
+            
+            AppLog.setMinLevel(level);
+            return new CommandResult(true, "Log level set to " + AppLog.levelName(level), null);
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to set log level: " + e.getMessage(), null);
+        }
+    }
+    
     /**
      * Cleanup method to be called when CommandHandler is destroyed
      */
     public void cleanup() {
         try {
-            if (locationHandler != null) {
-                locationHandler.cleanup();
+            // Handler yang belum pernah dibuat tidak perlu dibersihkan
+            if (locationHandler.isCreated()) {
+                locationHandler.get().cleanup();
+            }
+            if (mediaHandler.isCreated()) {
+                mediaHandler.get().onDestroy();
             }
-            if (mediaHandler != null) {
-                mediaHandler.onDestroy();
+            synchronized (this) {
+                if (snapshotExecutor != null) {
+                    snapshotExecutor.shutdownNow();
+                    snapshotExecutor = null;
+                }
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error during cleanup", e);
+            AppLog.e(TAG, "Error during cleanup", e);
+        }
+    }
+    
+    /**
+     * Holder thread-safe yang membuat instance saat get() pertama kali
+     * dipanggil dan mencatat durasi pembuatannya di StartupMetrics.
+     */
+    private abstract static class Lazy<T> {
+        private final String name;
+        private volatile T instance;
+        
+        Lazy(String name) {
+            this.name = name;
+        }
+        
+        protected abstract T create();
+        
+        T get() {
+            T result = instance;
+            if (result == null) {
+                synchronized (this) {
+                    result = instance;
+                    if (result == null) {
+                        long start = System.nanoTime();
+                        result = create();
+                        StartupMetrics.recordDuration("handler_" + name, System.nanoTime() - start);
+                        instance = result;
+                    }
+                }
+            }
+            return result;
+        }
+        
+        boolean isCreated() {
+            return instance != null;
         }
     }
 }
@@ -0,0 +1,229 @@
+package com.idsiber.eye;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Perekam command masuk (opt-in lewat start_command_recording) untuk
+ * direplay di JVM saat mencari regresi performa. Setiap command dari
+ * server ditulis satu baris CommandLog: waktu relatif, action, durasi
+ * eksekusi, hasil, dan params. Status rekaman disimpan di prefs sehingga
+ * tetap berjalan setelah service restart, sampai max_entries tercapai.
+ *
+ * Tulis file dilakukan di thread background; saat rekaman mati, biaya di
+ * jalur command hanya satu pembacaan volatile.
+ */
+public class CommandRecorder {
+    private static final String TAG = "CommandRecorder";
+    private static final String PREFS_NAME = "command_recorder";
+    private static final String KEY_ENABLED = "enabled";
+    private static final String KEY_STARTED_AT = "started_at";
+    private static final String KEY_MAX_ENTRIES = "max_entries";
+    private static final String KEY_ENTRIES = "entries";
+    private static final String FILE_NAME = "command_log.txt";
+
+    public static final int DEFAULT_MAX_ENTRIES = 2000;
+    public static final int MAX_ENTRIES_LIMIT = 20000;
+
+    private static CommandRecorder instance;
+
+    private final SharedPreferences prefs;
+    private final File file;
+    private volatile boolean enabled;
+    private long startedAt;
+    private int maxEntries;
+    private int entries;
+    private HandlerThread thread;
+    private Handler handler;
+    private Writer writer;
+
+    private CommandRecorder(Context context) {
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        file = new File(context.getFilesDir(), FILE_NAME);
+        enabled = prefs.getBoolean(KEY_ENABLED, false);
+        startedAt = prefs.getLong(KEY_STARTED_AT, 0);
+        maxEntries = prefs.getInt(KEY_MAX_ENTRIES, DEFAULT_MAX_ENTRIES);
+        entries = prefs.getInt(KEY_ENTRIES, 0);
+    }
+
+    public static synchronized CommandRecorder getInstance(Context context) {
+        if (instance == null) {
+            instance = new CommandRecorder(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Mulai rekaman baru; log sebelumnya dibuang
+     */
+    public synchronized void start(int maxEntries) {
+        this.maxEntries = Math.max(1, Math.min(maxEntries, MAX_ENTRIES_LIMIT));
+        startedAt = System.currentTimeMillis();
+        entries = 0;
+        enabled = true;
+        prefs.edit()
+            .putBoolean(KEY_ENABLED, true)
+            .putLong(KEY_STARTED_AT, startedAt)
+            .putInt(KEY_MAX_ENTRIES, this.maxEntries)
+            .putInt(KEY_ENTRIES, 0)
+            .apply();
+
+        final long headerStartedAt = startedAt;
+        post(new Runnable() {
+            @Override
+            public void run() {
+                closeWriter();
+                try {
+                    writer = new BufferedWriter(new FileWriter(file, false));
+                    writer.write(CommandLog.header(headerStartedAt));
+                    writer.write('\n');
+                    writer.flush();
+                } catch (IOException e) {
+                    AppLog.e(TAG, "Cannot start command log", e);
+                }
+            }
+        });
+        AppLog.i(TAG, "Command recording started, max {} entries", this.maxEntries);
+    }
+
+    public synchronized void stop() {
+        if (!enabled) {
+            return;
+        }
+        enabled = false;
+        prefs.edit().putBoolean(KEY_ENABLED, false).putInt(KEY_ENTRIES, entries).apply();
+        post(new Runnable() {
+            @Override
+            public void run() {
+                closeWriter();
+            }
+        });
+        AppLog.i(TAG, "Command recording stopped after {} entries", entries);
+    }
+
+    /**
+     * Catat satu command dari server beserta response-nya
+     * (hasil DeviceProtocol.execute)
+     */
+    public void record(DeviceProtocol.Command command, JSONObject response) {
+        if (!enabled || isRecorderCommand(command.action)) {
+            return;
+        }
+        long executeNanos = command.trace.getExecuteNanos();
+        int resultChars = response.isNull("result") ? 0 : response.optString("result", "").length();
+
+        final String line;
+        boolean last;
+        synchronized (this) {
+            if (!enabled) {
+                return;
+            }
+            line = CommandLog.format(
+                command.trace.getReceivedAt() - startedAt,
+                command.action,
+                executeNanos >= 0 ? executeNanos / 1000 : -1,
+                response.optBoolean("success"),
+                resultChars,
+                command.params);
+            entries++;
+            last = entries >= maxEntries;
+            prefs.edit().putInt(KEY_ENTRIES, entries).apply();
+        }
+        post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (writer == null) {
+                        // Service restart saat rekaman aktif: lanjutkan file yang ada
+                        writer = new BufferedWriter(new FileWriter(file, true));
+                    }
+                    writer.write(line);
+                    writer.write('\n');
+                    writer.flush();
+                } catch (IOException e) {
+                    AppLog.w(TAG, "Cannot write command log: {}", e.getMessage());
+                }
+            }
+        });
+        if (last) {
+            stop();
+        }
+    }
+
+    /**
+     * Status rekaman; includeLog menyertakan isi log untuk diunduh dan
+     * direplay (./gradlew :benchmark:replay)
+     */
+    public JSONObject toJson(boolean includeLog) throws JSONException {
+        JSONObject json = new JSONObject();
+        synchronized (this) {
+            json.put("recording", enabled);
+            json.put("entries", entries);
+            json.put("max_entries", maxEntries);
+            json.put("started_at", startedAt);
+        }
+        json.put("file_bytes", file.length());
+        if (includeLog) {
+            json.put("log", readLog());
+        }
+        return json;
+    }
+
+    private String readLog() {
+        if (!file.exists()) {
+            return "";
+        }
+        StringBuilder log = new StringBuilder((int) Math.min(file.length(), Integer.MAX_VALUE));
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                log.append(line).append('\n');
+            }
+        } catch (IOException e) {
+            AppLog.w(TAG, "Cannot read command log: {}", e.getMessage());
+        }
+        return log.toString();
+    }
+
+    private static boolean isRecorderCommand(String action) {
+        return action.endsWith("_command_recording");
+    }
+
+    private synchronized void post(Runnable task) {
+        if (thread == null) {
+            thread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+        handler.post(task);
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // Diabaikan
+            }
+            writer = null;
+        }
+    }
+}
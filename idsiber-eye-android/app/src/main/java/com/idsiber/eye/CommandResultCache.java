@@ -0,0 +1,137 @@
+package com.idsiber.eye;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-through cache untuk command informasi yang read-only.
+ *
+ * Setiap action punya TTL sendiri, dan server bisa meminta data yang lebih
+ * segar lewat parameter "max_age" (detik, 0 = selalu hitung ulang). Entry
+ * juga dibuang saat ada broadcast sistem yang membuat datanya basi.
+ * get_network_info tidak lewat sini karena sudah dijaga NetworkStateMonitor.
+ */
+public class CommandResultCache {
+    private static final String TAG = "CommandResultCache";
+
+    public static final String DEVICE_INFO = "get_device_info";
+    public static final String STORAGE_INFO = "get_storage_info";
+    public static final String MEMORY_INFO = "get_memory_info";
+
+    private static CommandResultCache instance;
+
+    private final Map<String, Long> ttlMs = new HashMap<>();
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private static class Entry {
+        final CommandResult result;
+        final long storedAt;
+
+        Entry(CommandResult result, long storedAt) {
+            this.result = result;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private CommandResultCache() {
+        // Data build/hardware hampir tidak berubah; status admin di-invalidate
+        // oleh IdSiberDeviceAdminReceiver
+        ttlMs.put(DEVICE_INFO, 10 * 60 * 1000L);
+        ttlMs.put(STORAGE_INFO, 60 * 1000L);
+        ttlMs.put(MEMORY_INFO, 5 * 1000L);
+    }
+
+    /**
+     * Satu cache untuk seluruh proses, dipakai bersama oleh semua CommandHandler
+     */
+    public static synchronized CommandResultCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new CommandResultCache();
+            instance.registerInvalidationReceivers(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public boolean isCacheable(String action) {
+        return ttlMs.containsKey(action);
+    }
+
+    /**
+     * Ambil hasil cache yang umurnya tidak melebihi TTL action maupun maxAgeMs
+     *
+     * @return hasil cache, atau null jika tidak ada / sudah basi
+     */
+    public CommandResult get(String action, long maxAgeMs) {
+        Entry entry = entries.get(action);
+        if (entry == null) {
+            return null;
+        }
+
+        long age = SystemClock.elapsedRealtime() - entry.storedAt;
+        if (age > ttlMs.get(action) || age > maxAgeMs) {
+            return null;
+        }
+        AppLog.d(TAG, "Cache hit: {}", action);
+        return entry.result;
+    }
+
+    /**
+     * Simpan hasil; hasil gagal tidak di-cache supaya dicoba ulang berikutnya
+     */
+    public void put(String action, CommandResult result) {
+        if (result != null && result.isSuccess() && isCacheable(action)) {
+            entries.put(action, new Entry(result, SystemClock.elapsedRealtime()));
+        }
+    }
+
+    public void invalidate(String action) {
+        entries.remove(action);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    private void registerInvalidationReceivers(Context context) {
+        IntentFilter storageFilter = new IntentFilter();
+        storageFilter.addAction(Intent.ACTION_DEVICE_STORAGE_LOW);
+        storageFilter.addAction(Intent.ACTION_DEVICE_STORAGE_OK);
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                invalidate(STORAGE_INFO);
+            }
+        }, storageFilter);
+
+        // Install/uninstall aplikasi dan mount media mengubah angka storage
+        IntentFilter packageFilter = new IntentFilter();
+        packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addDataScheme("package");
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                invalidate(STORAGE_INFO);
+            }
+        }, packageFilter);
+
+        IntentFilter mediaFilter = new IntentFilter();
+        mediaFilter.addAction(Intent.ACTION_MEDIA_MOUNTED);
+        mediaFilter.addAction(Intent.ACTION_MEDIA_UNMOUNTED);
+        mediaFilter.addAction(Intent.ACTION_MEDIA_REMOVED);
+        mediaFilter.addDataScheme("file");
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                invalidate(STORAGE_INFO);
+            }
+        }, mediaFilter);
+    }
+}
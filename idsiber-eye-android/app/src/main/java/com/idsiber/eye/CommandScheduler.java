@@ -0,0 +1,452 @@
+package com.idsiber.eye;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Jadwal command lokal (cron di device), misalnya "lock_screen jam 21:00"
+ * atau "mute_device Senin-Jumat 07:00".
+ *
+ * Jadwal dikirim server lewat set_schedule beserta nomor versi, disimpan di
+ * SharedPreferences, lalu dijalankan lewat AlarmManager tanpa butuh koneksi.
+ * Hanya satu alarm yang dipasang: untuk entry terdekat. Entry dengan
+ * window_minutes = 0 memakai alarm exact (jika diizinkan), selain itu
+ * memakai window supaya sistem bisa menggabungkan wakeup.
+ *
+ * Format entry:
+ *   { "id", "action", "params", "time": "HH:mm", "days": [1..7] (1 = Senin),
+ *     "window_minutes", "enabled" }
+ */
+public class CommandScheduler {
+    private static final String TAG = "CommandScheduler";
+    private static final String PREFS_NAME = "IdSiberSchedule";
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_ENTRIES = "entries";
+    private static final String KEY_RUNS = "runs";
+
+    public static final String ACTION_ALARM = "com.idsiber.eye.SCHEDULE_ALARM";
+
+    // Window default untuk entry yang tidak meminta alarm exact
+    private static final int DEFAULT_WINDOW_MINUTES = 10;
+    // Alarm yang terlambat lebih dari ini (setelah window) dianggap terlewat
+    private static final long MAX_LATENESS_MS = 15 * 60 * 1000L;
+    private static final long DUE_SLACK_MS = 1000;
+    private static final int MAX_ENTRIES = 64;
+
+    // Command yang tidak boleh dijadwalkan
+    private static final String[] FORBIDDEN_ACTIONS = {
+        "set_schedule", "get_schedule", "wipe_device", "reboot_device"
+    };
+
+    private static CommandScheduler instance;
+
+    private static class Entry {
+        String id;
+        String action;
+        JSONObject params;
+        int minuteOfDay;
+        // Bit per Calendar.DAY_OF_WEEK (1 = Minggu ... 7 = Sabtu), 0 = setiap hari
+        int dayMask;
+        int windowMinutes;
+        boolean enabled;
+        long nextRunAt;
+    }
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final AlarmManager alarmManager;
+    private final Handler handler;
+
+    private int version;
+    private List<Entry> entries = new ArrayList<>();
+    private JSONObject runs;
+    private CommandHandler commandHandler;
+
+    private CommandScheduler(Context context) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+
+        HandlerThread thread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        this.handler = new Handler(thread.getLooper());
+
+        load();
+    }
+
+    public static synchronized CommandScheduler getInstance(Context context) {
+        if (instance == null) {
+            instance = new CommandScheduler(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Pakai CommandHandler milik service supaya handler tidak dibuat dua kali.
+     * Jika alarm berbunyi saat service tidak jalan, scheduler membuat sendiri.
+     */
+    public synchronized void attach(CommandHandler commandHandler) {
+        this.commandHandler = commandHandler;
+    }
+
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    private void load() {
+        version = prefs.getInt(KEY_VERSION, 0);
+        try {
+            runs = new JSONObject(prefs.getString(KEY_RUNS, "{}"));
+        } catch (JSONException e) {
+            runs = new JSONObject();
+        }
+        try {
+            entries = parseEntries(new JSONArray(prefs.getString(KEY_ENTRIES, "[]")));
+        } catch (Exception e) {
+            AppLog.e(TAG, "Stored schedule is invalid, clearing", e);
+            entries = new ArrayList<>();
+            version = 0;
+        }
+    }
+
+    /**
+     * Ganti jadwal dengan versi dari server. Versi yang tidak lebih baru
+     * diabaikan (kecuali force) sehingga push ulang saat reconnect aman.
+     * Return true jika jadwal berubah.
+     */
+    public synchronized boolean update(int newVersion, JSONArray newEntries, boolean force) throws JSONException {
+        if (newVersion <= version && !force) {
+            return false;
+        }
+        // Validasi dulu; jadwal lama tetap dipakai jika ada entry yang salah
+        List<Entry> parsed = parseEntries(newEntries);
+
+        entries = parsed;
+        version = newVersion;
+        runs = new JSONObject();
+        prefs.edit()
+            .putInt(KEY_VERSION, version)
+            .putString(KEY_ENTRIES, newEntries.toString())
+            .putString(KEY_RUNS, "{}")
+            .apply();
+        AppLog.i(TAG, "Schedule updated to version {} ({} entries)", version, entries.size());
+        rearm();
+        return true;
+    }
+
+    /**
+     * Hitung ulang jadwal berikutnya dari waktu sekarang dan pasang alarm.
+     * Dipanggil setelah boot, perubahan jam/zona waktu dan update jadwal.
+     */
+    public synchronized void rearm() {
+        long now = System.currentTimeMillis();
+        for (Entry entry : entries) {
+            entry.nextRunAt = entry.enabled ? nextOccurrence(entry, now) : 0;
+        }
+        armNext();
+    }
+
+    /**
+     * Dipanggil ScheduleAlarmReceiver. Command dijalankan di thread scheduler;
+     * PendingResult diselesaikan setelahnya supaya proses tetap hidup.
+     */
+    public void onAlarm(final BroadcastReceiver.PendingResult pendingResult) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runDueEntries();
+                } catch (Exception e) {
+                    AppLog.e(TAG, "Scheduled run failed", e);
+                } finally {
+                    if (pendingResult != null) {
+                        pendingResult.finish();
+                    }
+                }
+            }
+        });
+    }
+
+    private void runDueEntries() {
+        List<Entry> due = new ArrayList<>();
+        // Occurrence yang dijalankan, sejajar dengan due (nextRunAt langsung maju)
+        List<Long> scheduled = new ArrayList<>();
+        CommandHandler executor;
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            // Proses baru setelah dibunuh: nextRunAt belum dihitung
+            if (hasUncomputedEntries()) {
+                restorePendingRuns(now);
+            }
+            for (Entry entry : entries) {
+                if (!entry.enabled || entry.nextRunAt == 0 || entry.nextRunAt > now + DUE_SLACK_MS) {
+                    continue;
+                }
+                long lateness = now - entry.nextRunAt;
+                if (lateness > entry.windowMinutes * 60 * 1000L + MAX_LATENESS_MS) {
+                    AppLog.w(TAG, "Skipping missed run of {} ({}ms late)", entry.id, lateness);
+                } else {
+                    due.add(entry);
+                    scheduled.add(entry.nextRunAt);
+                }
+                entry.nextRunAt = nextOccurrence(entry, Math.max(now, entry.nextRunAt));
+            }
+            if (commandHandler == null && !due.isEmpty()) {
+                commandHandler = new CommandHandler(context);
+            }
+            executor = commandHandler;
+        }
+
+        for (int i = 0; i < due.size(); i++) {
+            Entry entry = due.get(i);
+            AppLog.i(TAG, "Running scheduled {} ({})", entry.action, entry.id);
+            CommandResult result = executor.executeCommand(entry.action, entry.params);
+            recordRun(entry, scheduled.get(i), result);
+        }
+
+        synchronized (this) {
+            armNext();
+        }
+    }
+
+    private boolean hasUncomputedEntries() {
+        for (Entry entry : entries) {
+            if (entry.enabled && entry.nextRunAt == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Setelah proses dibunuh, occurrence yang memicu alarm ini sudah lewat.
+     * Cari occurrence terakhir dalam batas keterlambatan yang belum tercatat.
+     */
+    private void restorePendingRuns(long now) {
+        for (Entry entry : entries) {
+            if (!entry.enabled || entry.nextRunAt != 0) {
+                continue;
+            }
+            long limit = entry.windowMinutes * 60 * 1000L + MAX_LATENESS_MS;
+            long candidate = nextOccurrence(entry, now - limit - 1);
+            JSONObject lastRun = runs.optJSONObject(entry.id);
+            long lastScheduled = lastRun != null ? lastRun.optLong("scheduled_at", 0) : 0;
+            if (candidate <= now + DUE_SLACK_MS && candidate > lastScheduled) {
+                entry.nextRunAt = candidate;
+            } else {
+                entry.nextRunAt = nextOccurrence(entry, now);
+            }
+        }
+    }
+
+    private synchronized void recordRun(Entry entry, long scheduledFor, CommandResult result) {
+        try {
+            JSONObject run = new JSONObject();
+            run.put("scheduled_at", scheduledFor);
+            run.put("ran_at", System.currentTimeMillis());
+            run.put("success", result != null && result.isSuccess());
+            run.put("message", result != null ? result.getMessage() : null);
+            runs.put(entry.id, run);
+            prefs.edit().putString(KEY_RUNS, runs.toString()).apply();
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Failed to record scheduled run", e);
+        }
+    }
+
+    private void armNext() {
+        if (alarmManager == null) {
+            return;
+        }
+        PendingIntent pendingIntent = createAlarmIntent();
+
+        // Alarm boleh berbunyi mulai occurrence paling awal, tapi harus sebelum
+        // deadline paling awal (nextRunAt + window), supaya entry dengan window
+        // sempit tidak terlambat karena entry lain yang mulai lebih dulu
+        Entry next = null;
+        long start = Long.MAX_VALUE;
+        long deadline = Long.MAX_VALUE;
+        for (Entry entry : entries) {
+            if (!entry.enabled || entry.nextRunAt == 0) {
+                continue;
+            }
+            start = Math.min(start, entry.nextRunAt);
+            long entryDeadline = entry.nextRunAt + windowMillis(entry);
+            if (entryDeadline < deadline) {
+                deadline = entryDeadline;
+                next = entry;
+            }
+        }
+        if (next == null) {
+            alarmManager.cancel(pendingIntent);
+            AppLog.d(TAG, "No scheduled commands, alarm cancelled");
+            return;
+        }
+
+        if (windowMillis(next) == 0) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, next.nextRunAt, pendingIntent);
+        } else {
+            alarmManager.setWindow(AlarmManager.RTC_WAKEUP, start, deadline - start, pendingIntent);
+        }
+        AppLog.d(TAG, "Next scheduled command {} at {} (deadline {})", next.id, start, deadline);
+    }
+
+    /**
+     * Lebar window alarm entry; 0 berarti alarm exact
+     */
+    private long windowMillis(Entry entry) {
+        if (entry.windowMinutes == 0 && canScheduleExact()) {
+            return 0;
+        }
+        int window = entry.windowMinutes > 0 ? entry.windowMinutes : DEFAULT_WINDOW_MINUTES;
+        return window * 60 * 1000L;
+    }
+
+    private boolean canScheduleExact() {
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms();
+    }
+
+    private PendingIntent createAlarmIntent() {
+        Intent intent = new Intent(context, ScheduleAlarmReceiver.class);
+        intent.setAction(ACTION_ALARM);
+        return PendingIntent.getBroadcast(context, 0, intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    /**
+     * Occurrence pertama setelah "after" (epoch ms) menurut jam lokal
+     */
+    private static long nextOccurrence(Entry entry, long after) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(after);
+        calendar.set(Calendar.HOUR_OF_DAY, entry.minuteOfDay / 60);
+        calendar.set(Calendar.MINUTE, entry.minuteOfDay % 60);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        for (int i = 0; i < 8; i++) {
+            int day = calendar.get(Calendar.DAY_OF_WEEK);
+            if (calendar.getTimeInMillis() > after
+                    && (entry.dayMask == 0 || (entry.dayMask & (1 << day)) != 0)) {
+                return calendar.getTimeInMillis();
+            }
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            // Jaga jam tetap sama saat melewati pergantian DST
+            calendar.set(Calendar.HOUR_OF_DAY, entry.minuteOfDay / 60);
+            calendar.set(Calendar.MINUTE, entry.minuteOfDay % 60);
+        }
+        return 0;
+    }
+
+    private static List<Entry> parseEntries(JSONArray array) throws JSONException {
+        if (array.length() > MAX_ENTRIES) {
+            throw new IllegalArgumentException("Too many schedule entries (max " + MAX_ENTRIES + ")");
+        }
+        List<Entry> parsed = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject json = array.getJSONObject(i);
+            Entry entry = new Entry();
+            entry.id = json.optString("id", "entry_" + i);
+            entry.action = json.getString("action");
+            entry.params = json.optJSONObject("params");
+            entry.minuteOfDay = parseTime(json.getString("time"));
+            entry.windowMinutes = Math.max(json.optInt("window_minutes", 0), 0);
+            entry.enabled = json.optBoolean("enabled", true);
+
+            for (String forbidden : FORBIDDEN_ACTIONS) {
+                if (forbidden.equals(entry.action)) {
+                    throw new IllegalArgumentException("Action cannot be scheduled: " + entry.action);
+                }
+            }
+
+            JSONArray days = json.optJSONArray("days");
+            if (days != null) {
+                for (int d = 0; d < days.length(); d++) {
+                    int isoDay = days.getInt(d);
+                    if (isoDay < 1 || isoDay > 7) {
+                        throw new IllegalArgumentException("Invalid day " + isoDay + " in " + entry.id);
+                    }
+                    // ISO 1 = Senin -> Calendar.MONDAY (2), ISO 7 = Minggu -> Calendar.SUNDAY (1)
+                    entry.dayMask |= 1 << (isoDay % 7 + 1);
+                }
+            }
+            parsed.add(entry);
+        }
+        return parsed;
+    }
+
+    private static int parseTime(String time) {
+        int separator = time.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid time: " + time);
+        }
+        int hour = Integer.parseInt(time.substring(0, separator).trim());
+        int minute = Integer.parseInt(time.substring(separator + 1).trim());
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            throw new IllegalArgumentException("Invalid time: " + time);
+        }
+        return hour * 60 + minute;
+    }
+
+    private static String formatTime(int minuteOfDay) {
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        return (hour < 10 ? "0" : "") + hour + ":" + (minute < 10 ? "0" : "") + minute;
+    }
+
+    public synchronized JSONObject toJson() throws JSONException {
+        JSONArray list = new JSONArray();
+        long nextRunAt = 0;
+        for (Entry entry : entries) {
+            JSONObject json = new JSONObject();
+            json.put("id", entry.id);
+            json.put("action", entry.action);
+            if (entry.params != null) {
+                json.put("params", entry.params);
+            }
+            json.put("time", formatTime(entry.minuteOfDay));
+            if (entry.dayMask != 0) {
+                JSONArray days = new JSONArray();
+                for (int isoDay = 1; isoDay <= 7; isoDay++) {
+                    if ((entry.dayMask & (1 << (isoDay % 7 + 1))) != 0) {
+                        days.put(isoDay);
+                    }
+                }
+                json.put("days", days);
+            }
+            json.put("window_minutes", entry.windowMinutes);
+            json.put("enabled", entry.enabled);
+            json.put("next_run_at", entry.nextRunAt);
+            JSONObject lastRun = runs.optJSONObject(entry.id);
+            if (lastRun != null) {
+                json.put("last_run", lastRun);
+            }
+            list.put(json);
+
+            if (entry.nextRunAt > 0 && (nextRunAt == 0 || entry.nextRunAt < nextRunAt)) {
+                nextRunAt = entry.nextRunAt;
+            }
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("version", version);
+        result.put("entries", list);
+        result.put("next_run_at", nextRunAt);
+        result.put("exact_alarms", alarmManager != null && canScheduleExact());
+        return result;
+    }
+}
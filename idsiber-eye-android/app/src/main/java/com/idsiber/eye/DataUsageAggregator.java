@@ -0,0 +1,468 @@
+package com.idsiber.eye;
+
+import android.app.usage.NetworkStats;
+import android.app.usage.NetworkStatsManager;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.net.ConnectivityManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.telephony.TelephonyManager;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Agregasi pemakaian data per aplikasi (UID) dari NetworkStatsManager.
+ *
+ * Setiap update hanya membaca rentang sejak checkpoint terakhir, lalu
+ * menambahkan hasilnya ke bucket per jam (48 jam terakhir) dan per hari
+ * (90 hari terakhir). Bucket dan checkpoint disimpan ke file, jadi query
+ * top-N cukup menjumlahkan bucket yang ada tanpa membaca ulang riwayat
+ * sistem. Butuh usage access.
+ *
+ * Sistem mencatat NetworkStats dalam bucket 2 jam yang masih bertambah
+ * sampai ditutup, jadi checkpoint hanya maju sampai batas bucket sistem
+ * yang sudah tutup. Sisa rentang sampai sekarang (openTail) dibaca ulang
+ * setiap update dan tidak disimpan.
+ */
+public class DataUsageAggregator {
+    private static final String TAG = "DataUsageAggregator";
+    private static final String FILE_NAME = "data_usage.bin";
+    private static final int FILE_VERSION = 1;
+
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    private static final int HOUR_BUCKETS = 48;
+    private static final int DAY_BUCKETS = 90;
+    // Durasi bucket NetworkStatsService (default sistem), sejajar epoch
+    private static final long STATS_BUCKET_MS = 2 * HOUR_MS;
+    private static final long MIN_UPDATE_INTERVAL_MS = 60 * 1000L;
+    private static final long INITIAL_BACKFILL_MS = 7 * DAY_MS;
+    private static final long UPDATE_INTERVAL_MS = HOUR_MS;
+    private static final long MAX_DEFER_MS = 6 * HOUR_MS;
+
+    public static final int NETWORK_MOBILE = 0;
+    public static final int NETWORK_WIFI = 1;
+
+    private static DataUsageAggregator instance;
+
+    /**
+     * Pemakaian semua UID dalam satu rentang waktu. UID disimpan terurut
+     * dengan array byte paralel (mobile, wifi; rx+tx).
+     */
+    private static class Bucket {
+        final long start;
+        int[] uids = new int[16];
+        long[] mobile = new long[16];
+        long[] wifi = new long[16];
+        int size = 0;
+
+        Bucket(long start) {
+            this.start = start;
+        }
+
+        void add(int uid, int network, long bytes) {
+            int index = Arrays.binarySearch(uids, 0, size, uid);
+            if (index < 0) {
+                index = -index - 1;
+                if (size == uids.length) {
+                    uids = Arrays.copyOf(uids, size * 2);
+                    mobile = Arrays.copyOf(mobile, size * 2);
+                    wifi = Arrays.copyOf(wifi, size * 2);
+                }
+                System.arraycopy(uids, index, uids, index + 1, size - index);
+                System.arraycopy(mobile, index, mobile, index + 1, size - index);
+                System.arraycopy(wifi, index, wifi, index + 1, size - index);
+                uids[index] = uid;
+                mobile[index] = 0;
+                wifi[index] = 0;
+                size++;
+            }
+            if (network == NETWORK_MOBILE) {
+                mobile[index] += bytes;
+            } else {
+                wifi[index] += bytes;
+            }
+        }
+
+        void addAll(Bucket other, boolean countMobile, boolean countWifi) {
+            for (int i = 0; i < other.size; i++) {
+                if (countMobile && other.mobile[i] > 0) {
+                    add(other.uids[i], NETWORK_MOBILE, other.mobile[i]);
+                }
+                if (countWifi && other.wifi[i] > 0) {
+                    add(other.uids[i], NETWORK_WIFI, other.wifi[i]);
+                }
+            }
+        }
+    }
+
+    private final Context context;
+    private final NetworkStatsManager statsManager;
+    private final File file;
+    private final List<Bucket> hourBuckets = new ArrayList<>();
+    private final List<Bucket> dayBuckets = new ArrayList<>();
+    private final NetworkStats.Bucket statsBucket = new NetworkStats.Bucket();
+    private long checkpoint;
+    // Bucket per jam untuk [checkpoint, sekarang), diganti utuh setiap update
+    private List<Bucket> openTail = new ArrayList<>();
+    private long lastUpdate;
+
+    private HandlerThread thread;
+    private Handler handler;
+    private final Runnable updateTask = new Runnable() {
+        @Override
+        public void run() {
+            update();
+        }
+    };
+    // Dipanggil WorkScheduler; query NetworkStats dijalankan di thread sendiri
+    private final Runnable scheduleTask = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (DataUsageAggregator.this) {
+                if (handler != null) {
+                    handler.post(updateTask);
+                }
+            }
+        }
+    };
+
+    private DataUsageAggregator(Context context) {
+        this.context = context;
+        this.statsManager = (NetworkStatsManager) context.getSystemService(Context.NETWORK_STATS_SERVICE);
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        load();
+    }
+
+    public static synchronized DataUsageAggregator getInstance(Context context) {
+        if (instance == null) {
+            instance = new DataUsageAggregator(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        // queryTop() juga memperbarui data, jadi update berkala boleh ditunda
+        WorkScheduler.getInstance(context).scheduleDeferrable(TAG, 0, UPDATE_INTERVAL_MS, MAX_DEFER_MS, scheduleTask);
+    }
+
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        WorkScheduler.getInstance(context).cancel(TAG);
+        handler.removeCallbacksAndMessages(null);
+        thread.quitSafely();
+        thread = null;
+        handler = null;
+    }
+
+    /**
+     * Baca statistik sejak checkpoint dan tambahkan ke bucket. Rentang di
+     * atas 48 jam dibaca per hari, sisanya per jam.
+     */
+    public synchronized void update() {
+        if (statsManager == null || !DeviceCapabilities.getInstance(context).hasUsageAccess()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastUpdate < MIN_UPDATE_INTERVAL_MS) {
+            return;
+        }
+        lastUpdate = now;
+
+        long closed = now - now % STATS_BUCKET_MS;
+        long from = checkpoint > 0 ? checkpoint : closed - INITIAL_BACKFILL_MS;
+        from = Math.max(from, closed - DAY_BUCKETS * DAY_MS);
+        long hourlyFrom = now - now % HOUR_MS - (HOUR_BUCKETS - 1) * HOUR_MS;
+        try {
+            while (from < closed) {
+                boolean hourly = from >= hourlyFrom;
+                long end = hourly
+                    ? Math.min(from - from % HOUR_MS + HOUR_MS, closed)
+                    : Math.min(from - from % DAY_MS + DAY_MS, hourlyFrom);
+                // Kedua jaringan dibaca dulu ke bucket sementara; jika salah satu
+                // gagal, slice tidak digabung dan checkpoint tidak maju
+                Bucket slice = collectSlice(from, end);
+                bucketFor(dayBuckets, from - from % DAY_MS).addAll(slice, true, true);
+                if (hourly) {
+                    bucketFor(hourBuckets, from - from % HOUR_MS).addAll(slice, true, true);
+                }
+                checkpoint = end;
+                from = end;
+            }
+
+            List<Bucket> tail = new ArrayList<>();
+            for (long start = checkpoint; start < now; ) {
+                long end = Math.min(start - start % HOUR_MS + HOUR_MS, now);
+                tail.add(collectSlice(start, end));
+                start = end;
+            }
+            openTail = tail;
+        } catch (Exception e) {
+            AppLog.e(TAG, "Data usage update failed", e);
+            // Tail lama yang sudah tercakup checkpoint akan terhitung ganda
+            if (!openTail.isEmpty() && openTail.get(0).start < checkpoint) {
+                openTail = new ArrayList<>();
+            }
+        }
+
+        trim(now);
+        try {
+            save();
+        } catch (IOException e) {
+            AppLog.e(TAG, "Failed to save data usage", e);
+        }
+    }
+
+    private Bucket collectSlice(long start, long end) throws Exception {
+        Bucket slice = new Bucket(start);
+        collect(ConnectivityManager.TYPE_MOBILE, NETWORK_MOBILE, start, end, slice);
+        collect(ConnectivityManager.TYPE_WIFI, NETWORK_WIFI, start, end, slice);
+        return slice;
+    }
+
+    private void collect(int networkType, int network, long start, long end, Bucket target) throws Exception {
+        String subscriberId = networkType == ConnectivityManager.TYPE_MOBILE ? mobileSubscriberId() : null;
+        NetworkStats stats = statsManager.querySummary(networkType, subscriberId, start, end);
+        if (stats == null) {
+            return;
+        }
+        try {
+            while (stats.hasNextBucket()) {
+                stats.getNextBucket(statsBucket);
+                long bytes = statsBucket.getRxBytes() + statsBucket.getTxBytes();
+                if (bytes != 0) {
+                    target.add(statsBucket.getUid(), network, bytes);
+                }
+            }
+        } finally {
+            stats.close();
+        }
+    }
+
+    /**
+     * Sebelum Android 10 query mobile dengan subscriberId null tidak cocok
+     * dengan trafik apa pun, jadi IMSI SIM data default wajib diisi. Mulai
+     * Android 10 null berarti semua SIM (IMSI juga tidak lagi diberikan).
+     */
+    private String mobileSubscriberId() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return null;
+        }
+        TelephonyManager telephony = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+        if (telephony == null) {
+            return null;
+        }
+        try {
+            return telephony.getSubscriberId();
+        } catch (SecurityException e) {
+            AppLog.w(TAG, "READ_PHONE_STATE not granted, mobile usage unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Bucket bucketFor(List<Bucket> buckets, long start) {
+        if (!buckets.isEmpty()) {
+            Bucket last = buckets.get(buckets.size() - 1);
+            if (last.start == start) {
+                return last;
+            }
+        }
+        Bucket bucket = new Bucket(start);
+        buckets.add(bucket);
+        return bucket;
+    }
+
+    private void trim(long now) {
+        while (!hourBuckets.isEmpty() && hourBuckets.get(0).start < now - HOUR_BUCKETS * HOUR_MS) {
+            hourBuckets.remove(0);
+        }
+        while (!dayBuckets.isEmpty() && dayBuckets.get(0).start < now - DAY_BUCKETS * DAY_MS) {
+            dayBuckets.remove(0);
+        }
+    }
+
+    /**
+     * Top-N aplikasi untuk rentang [from, to]. Rentang dalam 48 jam terakhir
+     * memakai bucket per jam, selebihnya bucket per hari.
+     *
+     * @param network "mobile", "wifi" atau "all"
+     */
+    public synchronized JSONObject queryTop(long from, long to, int limit, String network) throws JSONException {
+        update();
+
+        boolean useHours = from >= System.currentTimeMillis() - HOUR_BUCKETS * HOUR_MS;
+        List<Bucket> buckets = useHours ? hourBuckets : dayBuckets;
+        long bucketMs = useHours ? HOUR_MS : DAY_MS;
+        boolean countMobile = !"wifi".equals(network);
+        boolean countWifi = !"mobile".equals(network);
+
+        Bucket total = new Bucket(from);
+        accumulate(total, buckets, bucketMs, from, to, countMobile, countWifi);
+        accumulate(total, openTail, bucketMs, from, to, countMobile, countWifi);
+
+        Integer[] order = new Integer[total.size];
+        for (int i = 0; i < total.size; i++) {
+            order[i] = i;
+        }
+        final Bucket sorted = total;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                long bytesA = sorted.mobile[a] + sorted.wifi[a];
+                long bytesB = sorted.mobile[b] + sorted.wifi[b];
+                return Long.compare(bytesB, bytesA);
+            }
+        });
+
+        PackageManager pm = context.getPackageManager();
+        JSONArray apps = new JSONArray();
+        for (int i = 0; i < Math.min(limit, order.length); i++) {
+            int index = order[i];
+            int uid = total.uids[index];
+            JSONObject app = new JSONObject();
+            app.put("uid", uid);
+            describeUid(pm, uid, app);
+            app.put("mobile_bytes", total.mobile[index]);
+            app.put("wifi_bytes", total.wifi[index]);
+            app.put("total_bytes", total.mobile[index] + total.wifi[index]);
+            apps.put(app);
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("from", from);
+        result.put("to", to);
+        result.put("network", network);
+        result.put("resolution", useHours ? "hour" : "day");
+        result.put("checkpoint", checkpoint);
+        result.put("apps", apps);
+        return result;
+    }
+
+    private static void accumulate(Bucket total, List<Bucket> buckets, long bucketMs, long from, long to,
+                                   boolean countMobile, boolean countWifi) {
+        for (Bucket bucket : buckets) {
+            // Bucket openTail per jam, dihitung ke hari yang memuatnya
+            long start = bucket.start - bucket.start % bucketMs;
+            if (start + bucketMs <= from || start > to) {
+                continue;
+            }
+            total.addAll(bucket, countMobile, countWifi);
+        }
+    }
+
+    private static void describeUid(PackageManager pm, int uid, JSONObject app) throws JSONException {
+        if (uid == NetworkStats.Bucket.UID_REMOVED) {
+            app.put("package_name", "removed");
+            app.put("app_name", "Removed apps");
+            return;
+        }
+        if (uid == NetworkStats.Bucket.UID_TETHERING) {
+            app.put("package_name", "tethering");
+            app.put("app_name", "Hotspot & tethering");
+            return;
+        }
+        String[] packages = pm.getPackagesForUid(uid);
+        if (packages == null || packages.length == 0) {
+            app.put("package_name", "uid:" + uid);
+            app.put("app_name", uid == Process.SYSTEM_UID ? "Android System" : "uid:" + uid);
+            return;
+        }
+        app.put("package_name", packages[0]);
+        try {
+            ApplicationInfo info = pm.getApplicationInfo(packages[0], 0);
+            app.put("app_name", pm.getApplicationLabel(info).toString());
+        } catch (PackageManager.NameNotFoundException e) {
+            app.put("app_name", packages[0]);
+        }
+        if (packages.length > 1) {
+            app.put("shared_uid_packages", packages.length);
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_VERSION) {
+                return;
+            }
+            checkpoint = in.readLong();
+            readBuckets(in, hourBuckets);
+            readBuckets(in, dayBuckets);
+        } catch (IOException e) {
+            AppLog.w(TAG, "Discarding unreadable data usage file: {}", e);
+            checkpoint = 0;
+            hourBuckets.clear();
+            dayBuckets.clear();
+        }
+    }
+
+    private void save() throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeLong(checkpoint);
+            writeBuckets(out, hourBuckets);
+            writeBuckets(out, dayBuckets);
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Failed to replace " + file);
+        }
+    }
+
+    private static void writeBuckets(DataOutputStream out, List<Bucket> buckets) throws IOException {
+        out.writeInt(buckets.size());
+        for (Bucket bucket : buckets) {
+            out.writeLong(bucket.start);
+            out.writeInt(bucket.size);
+            for (int i = 0; i < bucket.size; i++) {
+                out.writeInt(bucket.uids[i]);
+                out.writeLong(bucket.mobile[i]);
+                out.writeLong(bucket.wifi[i]);
+            }
+        }
+    }
+
+    private static void readBuckets(DataInputStream in, List<Bucket> buckets) throws IOException {
+        int count = in.readInt();
+        for (int b = 0; b < count; b++) {
+            Bucket bucket = new Bucket(in.readLong());
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                int uid = in.readInt();
+                bucket.add(uid, NETWORK_MOBILE, in.readLong());
+                bucket.add(uid, NETWORK_WIFI, in.readLong());
+            }
+            buckets.add(bucket);
+        }
+    }
+}
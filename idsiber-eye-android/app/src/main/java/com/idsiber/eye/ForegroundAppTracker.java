@@ -0,0 +1,233 @@
+package com.idsiber.eye;
+
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Pelacak aplikasi foreground berbasis UsageEvents.
+ *
+ * Setiap poll hanya membaca event sejak cursor terakhir (bukan query ulang
+ * seluruh rentang waktu), lalu memperbarui aplikasi aktif dan batas sesi di
+ * memori. Cursor disimpan ke SharedPreferences bersama aplikasi aktif saat itu
+ * supaya setelah restart tidak perlu membaca ulang dari awal; event
+ * MOVE_TO_FOREGROUND aplikasi tersebut lebih tua dari cursor. Butuh usage
+ * access; tanpa itu current app dilaporkan "unknown".
+ */
+public class ForegroundAppTracker {
+    private static final String TAG = "ForegroundAppTracker";
+    private static final String PREFS_NAME = "IdSiberForegroundTracker";
+    private static final String KEY_CURSOR = "event_cursor";
+    private static final String KEY_CURRENT_PACKAGE = "current_package";
+    private static final String KEY_CURRENT_START = "current_start";
+
+    // Lookback awal untuk menemukan aplikasi yang sedang aktif
+    private static final long INITIAL_LOOKBACK_MS = 10 * 60 * 1000L;
+    private static final long MAX_CURSOR_AGE_MS = 24 * 60 * 60 * 1000L;
+    private static final long MIN_POLL_INTERVAL_MS = 2000;
+    private static final long CURSOR_SAVE_INTERVAL_MS = 60 * 1000L;
+    // Pindah activity di app yang sama memicu pause lalu resume; jangan dihitung sesi baru
+    private static final long SESSION_MERGE_MS = 2000;
+    private static final int SESSION_CAPACITY = 128;
+
+    private static ForegroundAppTracker instance;
+
+    private final Context context;
+    private final UsageStatsManager usageStatsManager;
+    private final SharedPreferences prefs;
+    private final UsageEvents.Event event = new UsageEvents.Event();
+
+    private long cursor;
+    private long lastPollAt;
+    private long lastCursorSaveAt;
+
+    private String currentPackage;
+    private long currentStart;
+    private String pausedPackage;
+    private long pausedAt;
+
+    // Ring buffer sesi yang sudah selesai, array paralel tanpa objek per sesi
+    private final String[] sessionPackages = new String[SESSION_CAPACITY];
+    private final long[] sessionStarts = new long[SESSION_CAPACITY];
+    private final long[] sessionEnds = new long[SESSION_CAPACITY];
+    private int sessionNext = 0;
+    private int sessionCount = 0;
+
+    private ForegroundAppTracker(Context context) {
+        this.context = context;
+        this.usageStatsManager = (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+
+        long now = System.currentTimeMillis();
+        long saved = prefs.getLong(KEY_CURSOR, 0);
+        if (saved > now - MAX_CURSOR_AGE_MS && saved <= now) {
+            cursor = saved;
+            currentPackage = prefs.getString(KEY_CURRENT_PACKAGE, null);
+            currentStart = prefs.getLong(KEY_CURRENT_START, 0);
+        } else {
+            cursor = now - INITIAL_LOOKBACK_MS;
+        }
+    }
+
+    public static synchronized ForegroundAppTracker getInstance(Context context) {
+        if (instance == null) {
+            instance = new ForegroundAppTracker(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Package aplikasi foreground saat ini, atau "unknown"
+     */
+    public synchronized String getCurrentApp() {
+        poll();
+        String current = currentPackage != null ? currentPackage : pausedPackage;
+        return current != null ? current : "unknown";
+    }
+
+    /**
+     * Kapan aplikasi foreground saat ini mulai aktif (epoch ms), 0 jika tidak diketahui
+     */
+    public synchronized long getCurrentAppSince() {
+        return currentPackage != null ? currentStart : 0;
+    }
+
+    /**
+     * Baca event baru sejak cursor. Dibatasi MIN_POLL_INTERVAL_MS sehingga
+     * pemanggilan beruntun (heartbeat + command) tidak menambah query.
+     */
+    public synchronized void poll() {
+        long now = System.currentTimeMillis();
+        if (usageStatsManager == null || now - lastPollAt < MIN_POLL_INTERVAL_MS) {
+            return;
+        }
+        lastPollAt = now;
+        if (!DeviceCapabilities.getInstance(context).hasUsageAccess()) {
+            return;
+        }
+
+        UsageEvents events = usageStatsManager.queryEvents(cursor, now);
+        if (events == null) {
+            return;
+        }
+        while (events.hasNextEvent()) {
+            events.getNextEvent(event);
+            handleEvent(event.getEventType(), event.getPackageName(), event.getTimeStamp());
+            if (event.getTimeStamp() >= cursor) {
+                cursor = event.getTimeStamp() + 1;
+            }
+        }
+
+        // Sesi yang di-pause cukup lama dianggap selesai
+        if (pausedPackage != null && now - pausedAt > SESSION_MERGE_MS) {
+            closePausedSession();
+        }
+
+        if (now - lastCursorSaveAt > CURSOR_SAVE_INTERVAL_MS) {
+            // Aplikasi aktif disimpan bersama cursor supaya keduanya konsisten
+            prefs.edit()
+                .putLong(KEY_CURSOR, cursor)
+                .putString(KEY_CURRENT_PACKAGE, currentPackage)
+                .putLong(KEY_CURRENT_START, currentStart)
+                .apply();
+            lastCursorSaveAt = now;
+        }
+    }
+
+    private void handleEvent(int type, String packageName, long time) {
+        if (type == UsageEvents.Event.MOVE_TO_FOREGROUND) {
+            if (packageName.equals(currentPackage)) {
+                return;
+            }
+            if (packageName.equals(pausedPackage) && time - pausedAt <= SESSION_MERGE_MS) {
+                // Lanjutkan sesi yang sama
+                currentPackage = pausedPackage;
+                pausedPackage = null;
+                return;
+            }
+            if (currentPackage != null) {
+                recordSession(currentPackage, currentStart, time);
+            }
+            closePausedSession();
+            currentPackage = packageName;
+            currentStart = time;
+        } else if (type == UsageEvents.Event.MOVE_TO_BACKGROUND) {
+            if (packageName.equals(currentPackage)) {
+                closePausedSession();
+                pausedPackage = currentPackage;
+                pausedAt = time;
+                currentPackage = null;
+            }
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P
+                && type == UsageEvents.Event.SCREEN_NON_INTERACTIVE) {
+            // Layar mati mengakhiri sesi tanpa event background di beberapa device
+            if (currentPackage != null) {
+                recordSession(currentPackage, currentStart, time);
+                currentPackage = null;
+            }
+            closePausedSession();
+        }
+    }
+
+    private void closePausedSession() {
+        if (pausedPackage == null) {
+            return;
+        }
+        // currentStart masih menyimpan awal sesi paket yang di-pause
+        recordSession(pausedPackage, currentStart, pausedAt);
+        pausedPackage = null;
+    }
+
+    private void recordSession(String packageName, long start, long end) {
+        sessionPackages[sessionNext] = packageName;
+        sessionStarts[sessionNext] = start;
+        sessionEnds[sessionNext] = end;
+        sessionNext = (sessionNext + 1) % SESSION_CAPACITY;
+        if (sessionCount < SESSION_CAPACITY) {
+            sessionCount++;
+        }
+        AppLog.d(TAG, "Session {} {}ms", packageName, end - start);
+    }
+
+    /**
+     * Sesi foreground terbaru (paling baru di akhir), termasuk sesi yang
+     * sedang berjalan
+     */
+    public synchronized JSONObject getSessionsJson(int limit, long sinceMs) throws JSONException {
+        poll();
+
+        JSONArray sessions = new JSONArray();
+        int count = Math.min(Math.max(limit, 0), sessionCount);
+        int first = (sessionNext - count + SESSION_CAPACITY) % SESSION_CAPACITY;
+        for (int i = 0; i < count; i++) {
+            int index = (first + i) % SESSION_CAPACITY;
+            if (sessionEnds[index] < sinceMs) {
+                continue;
+            }
+            JSONObject session = new JSONObject();
+            session.put("package_name", sessionPackages[index]);
+            session.put("start", sessionStarts[index]);
+            session.put("end", sessionEnds[index]);
+            session.put("duration_ms", sessionEnds[index] - sessionStarts[index]);
+            sessions.put(session);
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("sessions", sessions);
+        if (currentPackage != null) {
+            JSONObject current = new JSONObject();
+            current.put("package_name", currentPackage);
+            current.put("start", currentStart);
+            current.put("duration_ms", System.currentTimeMillis() - currentStart);
+            result.put("current", current);
+        }
+        result.put("usage_access", DeviceCapabilities.getInstance(context).hasUsageAccess());
+        return result;
+    }
+}
@@ -13,6 +13,8 @@ public class IdSiberDeviceAdminReceiver extends DeviceAdminReceiver {
     public void onEnabled(Context context, Intent intent) {
         super.onEnabled(context, intent);
         Log.d(TAG, "Device admin enabled");
+        CommandResultCache.getInstance(context).invalidate(CommandResultCache.DEVICE_INFO);
+        DeviceCapabilities.getInstance(context).refresh();
         Toast.makeText(context, "IdSiber-Eye device admin enabled", Toast.LENGTH_SHORT).show();
     }
     
@@ -20,6 +22,8 @@ public class IdSiberDeviceAdminReceiver extends DeviceAdminReceiver {
     public void onDisabled(Context context, Intent intent) {
         super.onDisabled(context, intent);
         Log.d(TAG, "Device admin disabled");
+        CommandResultCache.getInstance(context).invalidate(CommandResultCache.DEVICE_INFO);
+        DeviceCapabilities.getInstance(context).refresh();
         Toast.makeText(context, "IdSiber-Eye device admin disabled", Toast.LENGTH_SHORT).show();
     }
     
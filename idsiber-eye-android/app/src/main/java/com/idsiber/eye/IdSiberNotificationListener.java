@@ -21,14 +21,12 @@ public class IdSiberNotificationListener extends NotificationListenerService {
     private static final List<StatusBarNotification> capturedNotifications = new ArrayList<>();
     private static final int MAX_STORED_NOTIFICATIONS = 100; // Maximum notifications to store in memory
     private WebSocketClient wsClient;
-    private ServerConfig serverConfig;
 
     @Override
     public void onCreate() {
         super.onCreate();
         Log.d(TAG, "NotificationListener service created");
         instance = this;
-        serverConfig = new ServerConfig(this);
         wsClient = new WebSocketClient(this, new WebSocketClient.StatusCallback() {
             @Override
             public void onStatusChange(String status) {
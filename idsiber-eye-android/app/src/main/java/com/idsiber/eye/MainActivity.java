@@ -160,22 +160,19 @@ public class MainActivity extends Activity {
                     return;
                 }
                 
-                // Save config
+                // Save config; client yang terhubung pindah endpoint sendiri
+                // lewat ServerConfig.ChangeListener
+                boolean connected = wsClient != null && wsClient.isConnected();
                 serverConfig.saveServerConfig(ip, port);
                 updateServerText();
                 
                 // Close dialog
                 dialog.dismiss();
                 
-                // Reconnect if already connected
-                if (wsClient != null && wsClient.isConnected()) {
+                if (connected) {
                     Toast.makeText(MainActivity.this, "Server diubah, reconnecting...", Toast.LENGTH_SHORT).show();
-                    wsClient.disconnect();
-                    initWebSocketClient();
-                    wsClient.connect();
                 } else {
                     Toast.makeText(MainActivity.this, "Server configuration saved", Toast.LENGTH_SHORT).show();
-                    initWebSocketClient();
                 }
             }
         });
@@ -300,6 +297,7 @@ public class MainActivity extends Activity {
     @Override
     public void onRequestPermissionsResult(int requestCode, String[] permissions, int[] grantResults) {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        DeviceCapabilities.getInstance(this).refresh();
         
         if (requestCode == REQUEST_ALL_PERMISSIONS) {
             boolean allGranted = true;
@@ -464,6 +462,8 @@ public class MainActivity extends Activity {
     @Override
     protected void onResume() {
         super.onResume();
+        // Izin khusus (usage access, write settings, dll) diubah lewat layar Settings
+        DeviceCapabilities.getInstance(this).refresh();
         updateUI();
         // Update server text in case it was changed
         updateServerText();
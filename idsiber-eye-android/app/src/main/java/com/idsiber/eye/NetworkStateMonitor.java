@@ -0,0 +1,376 @@
+package com.idsiber.eye;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.LinkAddress;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.os.Build;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.telephony.TelephonyManager;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Status jaringan yang selalu tersedia di memori.
+ *
+ * Diisi oleh NetworkCallback dari ConnectivityManager (default network),
+ * ditambah broadcast WiFi/airplane mode untuk data yang tidak ikut callback.
+ * get_network_info cukup membaca JSON yang sudah dirender, dan WebSocketClient
+ * mendapat notifikasi saat jaringan hilang, kembali, atau berpindah.
+ */
+public class NetworkStateMonitor {
+    private static final String TAG = "NetworkStateMonitor";
+
+    private static NetworkStateMonitor instance;
+
+    public interface Listener {
+        void onNetworkChanged(State previous, State current);
+    }
+
+    /**
+     * Snapshot immutable dari default network
+     */
+    public static class State {
+        public final Network network;
+        public final boolean connected;
+        public final String transport;
+        public final boolean metered;
+        public final boolean validated;
+        public final boolean roaming;
+        public final int downstreamKbps;
+        public final int upstreamKbps;
+        public final int signalStrength;
+        public final long changedAt;
+        public final long changedAtWall;
+
+        State(Network network, NetworkCapabilities caps) {
+            this.network = network;
+            this.connected = network != null && caps != null;
+            this.transport = caps != null ? transportName(caps) : "none";
+            this.metered = caps != null && !caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+            this.validated = caps != null && caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+            this.roaming = caps != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.P
+                && !caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_ROAMING);
+            this.downstreamKbps = caps != null ? caps.getLinkDownstreamBandwidthKbps() : 0;
+            this.upstreamKbps = caps != null ? caps.getLinkUpstreamBandwidthKbps() : 0;
+            this.signalStrength = caps != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+                ? caps.getSignalStrength() : Integer.MIN_VALUE;
+            this.changedAt = SystemClock.elapsedRealtime();
+            this.changedAtWall = System.currentTimeMillis();
+        }
+
+        private static String transportName(NetworkCapabilities caps) {
+            if (caps.hasTransport(NetworkCapabilities.TRANSPORT_VPN)) return "vpn";
+            if (caps.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) return "wifi";
+            if (caps.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) return "cellular";
+            if (caps.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) return "ethernet";
+            if (caps.hasTransport(NetworkCapabilities.TRANSPORT_BLUETOOTH)) return "bluetooth";
+            return "other";
+        }
+    }
+
+    private final Context context;
+    private final ConnectivityManager connectivityManager;
+    private final WifiManager wifiManager;
+    private final TelephonyManager telephonyManager;
+    private final CopyOnWriteArraySet<Listener> listeners = new CopyOnWriteArraySet<>();
+
+    private volatile State state = new State(null, null);
+    private volatile String renderedJson;
+    private LinkProperties linkProperties;
+    private JSONObject wifiInfo;
+    private JSONObject mobileInfo;
+    private boolean airplaneMode;
+
+    private NetworkStateMonitor(Context context) {
+        this.context = context;
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+        this.telephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+    }
+
+    public static synchronized NetworkStateMonitor getInstance(Context context) {
+        if (instance == null) {
+            instance = new NetworkStateMonitor(context.getApplicationContext());
+            instance.start();
+        }
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * JSON untuk get_network_info, dirender sekali per perubahan status
+     */
+    public String getNetworkInfoJson() throws JSONException {
+        String json = renderedJson;
+        if (json == null) {
+            synchronized (this) {
+                if (renderedJson == null) {
+                    renderedJson = render();
+                }
+                json = renderedJson;
+            }
+        }
+        return json;
+    }
+
+    private void start() {
+        synchronized (this) {
+            airplaneMode = readAirplaneMode();
+            refreshWifiInfo();
+            refreshMobileInfo();
+        }
+
+        if (connectivityManager != null) {
+            // Isi awal supaya query sebelum callback pertama tetap benar
+            Network active = connectivityManager.getActiveNetwork();
+            if (active != null) {
+                state = new State(active, connectivityManager.getNetworkCapabilities(active));
+                linkProperties = connectivityManager.getLinkProperties(active);
+            }
+
+            // Callback pertama langsung datang untuk default network yang aktif
+            connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onCapabilitiesChanged(Network network, NetworkCapabilities caps) {
+                    updateNetwork(network, caps);
+                }
+
+                @Override
+                public void onLinkPropertiesChanged(Network network, LinkProperties properties) {
+                    synchronized (NetworkStateMonitor.this) {
+                        linkProperties = properties;
+                        renderedJson = null;
+                    }
+                }
+
+                @Override
+                public void onLost(Network network) {
+                    updateNetwork(null, null);
+                }
+            });
+        }
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(WifiManager.WIFI_STATE_CHANGED_ACTION);
+        filter.addAction(WifiManager.RSSI_CHANGED_ACTION);
+        filter.addAction(Intent.ACTION_AIRPLANE_MODE_CHANGED);
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                synchronized (NetworkStateMonitor.this) {
+                    if (Intent.ACTION_AIRPLANE_MODE_CHANGED.equals(intent.getAction())) {
+                        airplaneMode = readAirplaneMode();
+                    } else {
+                        refreshWifiInfo();
+                    }
+                    renderedJson = null;
+                }
+            }
+        }, filter);
+    }
+
+    private void updateNetwork(Network network, NetworkCapabilities caps) {
+        State previous;
+        State current = new State(network, caps);
+        synchronized (this) {
+            previous = state;
+            state = current;
+            if (network == null) {
+                linkProperties = null;
+            }
+            // Data WiFi/seluler hanya diambil ulang saat transport berganti;
+            // perpindahan 4G ke 5G tetap cellular, jadi network_type dibaca ulang
+            if (!current.transport.equals(previous.transport)) {
+                refreshWifiInfo();
+                refreshMobileInfo();
+            } else if ("cellular".equals(current.transport)) {
+                refreshMobileNetworkType();
+            }
+            renderedJson = null;
+        }
+
+        // onCapabilitiesChanged juga dipanggil untuk perubahan kecil
+        // (bandwidth, signal); listener hanya perlu tahu perubahan yang berarti
+        if (previous.connected != current.connected
+                || !current.transport.equals(previous.transport)
+                || (current.network != null && !current.network.equals(previous.network))) {
+            AppLog.i(TAG, "Default network changed: {}", current.connected ? current.transport : "none");
+            for (Listener listener : listeners) {
+                listener.onNetworkChanged(previous, current);
+            }
+        }
+    }
+
+    private boolean readAirplaneMode() {
+        return Settings.Global.getInt(context.getContentResolver(), Settings.Global.AIRPLANE_MODE_ON, 0) != 0;
+    }
+
+    private void refreshWifiInfo() {
+        if (wifiManager == null) {
+            wifiInfo = null;
+            return;
+        }
+        try {
+            JSONObject info = new JSONObject();
+            info.put("wifi_enabled", wifiManager.isWifiEnabled());
+            WifiInfo connection = wifiManager.getConnectionInfo();
+            if (connection != null) {
+                info.put("ssid", connection.getSSID());
+                info.put("bssid", connection.getBSSID());
+                info.put("ip_address", connection.getIpAddress());
+                info.put("signal_strength", connection.getRssi());
+                info.put("link_speed", connection.getLinkSpeed());
+            }
+            wifiInfo = info;
+        } catch (Exception e) {
+            AppLog.w(TAG, "Failed to read WiFi info: {}", e);
+        }
+    }
+
+    private void refreshMobileInfo() {
+        if (telephonyManager == null) {
+            mobileInfo = null;
+            return;
+        }
+        try {
+            JSONObject info = new JSONObject();
+            info.put("network_operator", telephonyManager.getNetworkOperatorName());
+            info.put("sim_operator", telephonyManager.getSimOperatorName());
+            info.put("phone_type", getPhoneTypeString(telephonyManager.getPhoneType()));
+            info.put("network_type", getNetworkTypeString(telephonyManager.getNetworkType()));
+            info.put("has_icc_card", telephonyManager.hasIccCard());
+            info.put("sim_state", getSimStateString(telephonyManager.getSimState()));
+            mobileInfo = info;
+        } catch (Exception e) {
+            // getNetworkType butuh READ_PHONE_STATE di Android 11+
+            AppLog.w(TAG, "Failed to read mobile info: {}", e);
+        }
+    }
+
+    private void refreshMobileNetworkType() {
+        if (telephonyManager == null || mobileInfo == null) {
+            return;
+        }
+        try {
+            mobileInfo.put("network_type", getNetworkTypeString(telephonyManager.getNetworkType()));
+        } catch (Exception e) {
+            AppLog.w(TAG, "Failed to read mobile network type: {}", e);
+        }
+    }
+
+    private String render() throws JSONException {
+        State current = state;
+        JSONObject json = new JSONObject();
+        json.put("is_connected", current.connected);
+        json.put("transport", current.transport);
+        // Nama lama dari NetworkInfo.getTypeName()
+        json.put("connection_type", "cellular".equals(current.transport)
+            ? "MOBILE" : current.transport.toUpperCase(Locale.US));
+        // Nama lama dari NetworkInfo.getSubtypeName(): kosong selain seluler
+        json.put("connection_subtype", "cellular".equals(current.transport) && mobileInfo != null
+            ? mobileInfo.optString("network_type") : "");
+        json.put("is_available", current.connected);
+        json.put("is_roaming", current.roaming);
+        json.put("is_metered", current.metered);
+        json.put("is_validated", current.validated);
+        if (current.connected) {
+            json.put("downstream_kbps", current.downstreamKbps);
+            json.put("upstream_kbps", current.upstreamKbps);
+            if (current.signalStrength != Integer.MIN_VALUE) {
+                json.put("signal_strength", current.signalStrength);
+            }
+        }
+
+        if (linkProperties != null) {
+            json.put("interface_name", linkProperties.getInterfaceName());
+            JSONArray addresses = new JSONArray();
+            for (LinkAddress address : linkProperties.getLinkAddresses()) {
+                addresses.put(address.getAddress().getHostAddress());
+            }
+            json.put("ip_addresses", addresses);
+        }
+
+        if (wifiInfo != null) {
+            json.put("wifi_info", wifiInfo);
+        }
+        if (mobileInfo != null) {
+            json.put("mobile_info", mobileInfo);
+        }
+        json.put("airplane_mode", airplaneMode);
+        json.put("state_changed_at", current.changedAtWall);
+        return json.toString();
+    }
+
+    private static String getPhoneTypeString(int phoneType) {
+        switch (phoneType) {
+            case TelephonyManager.PHONE_TYPE_GSM: return "GSM";
+            case TelephonyManager.PHONE_TYPE_CDMA: return "CDMA";
+            case TelephonyManager.PHONE_TYPE_SIP: return "SIP";
+            case TelephonyManager.PHONE_TYPE_NONE: return "None";
+            default: return "Unknown";
+        }
+    }
+
+    private static String getNetworkTypeString(int networkType) {
+        switch (networkType) {
+            case TelephonyManager.NETWORK_TYPE_GPRS: return "GPRS";
+            case TelephonyManager.NETWORK_TYPE_EDGE: return "EDGE";
+            case TelephonyManager.NETWORK_TYPE_UMTS: return "UMTS";
+            case TelephonyManager.NETWORK_TYPE_HSDPA: return "HSDPA";
+            case TelephonyManager.NETWORK_TYPE_HSUPA: return "HSUPA";
+            case TelephonyManager.NETWORK_TYPE_HSPA: return "HSPA";
+            case TelephonyManager.NETWORK_TYPE_CDMA: return "CDMA";
+            case TelephonyManager.NETWORK_TYPE_EVDO_0: return "EVDO_0";
+            case TelephonyManager.NETWORK_TYPE_EVDO_A: return "EVDO_A";
+            case TelephonyManager.NETWORK_TYPE_EVDO_B: return "EVDO_B";
+            case TelephonyManager.NETWORK_TYPE_1xRTT: return "1xRTT";
+            case TelephonyManager.NETWORK_TYPE_IDEN: return "iDEN";
+            case TelephonyManager.NETWORK_TYPE_LTE: return "LTE";
+            case TelephonyManager.NETWORK_TYPE_EHRPD: return "eHRPD";
+            case TelephonyManager.NETWORK_TYPE_HSPAP: return "HSPA+";
+            case TelephonyManager.NETWORK_TYPE_NR: return "NR";
+            default: return "Unknown";
+        }
+    }
+
+    private static String getSimStateString(int simState) {
+        switch (simState) {
+            case TelephonyManager.SIM_STATE_ABSENT: return "Absent";
+            case TelephonyManager.SIM_STATE_PIN_REQUIRED: return "PIN Required";
+            case TelephonyManager.SIM_STATE_PUK_REQUIRED: return "PUK Required";
+            case TelephonyManager.SIM_STATE_NETWORK_LOCKED: return "Network Locked";
+            case TelephonyManager.SIM_STATE_READY: return "Ready";
+            case TelephonyManager.SIM_STATE_NOT_READY: return "Not Ready";
+            case TelephonyManager.SIM_STATE_PERM_DISABLED: return "Permanently Disabled";
+            case TelephonyManager.SIM_STATE_CARD_IO_ERROR: return "Card IO Error";
+            case TelephonyManager.SIM_STATE_CARD_RESTRICTED: return "Card Restricted";
+            case TelephonyManager.SIM_STATE_UNKNOWN: return "Unknown";
+            default: return "Unknown";
+        }
+    }
+}
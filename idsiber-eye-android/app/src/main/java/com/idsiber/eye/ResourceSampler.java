@@ -0,0 +1,370 @@
+package com.idsiber.eye;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Environment;
+import android.os.StatFs;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Sampler time-series untuk baterai, memori dan storage.
+ *
+ * Satu sampel per menit disimpan di tier "minute". Rata-rata per jam dan per
+ * hari diturunkan ke tier "hour" dan "day", sehingga riwayat panjang tetap
+ * muat di array primitif berukuran tetap (tidak ada objek per sampel).
+ * Semua nilai disimpan sebagai int dengan satuan di METRIC_UNITS.
+ *
+ * Semua tier beserta akumulatornya disimpan ke file setiap kali titik jam
+ * baru terbentuk dan saat stop(), jadi riwayat jam/hari bertahan setelah
+ * service atau proses restart (seperti DataUsageAggregator).
+ */
+public class ResourceSampler {
+    private static final String TAG = "ResourceSampler";
+    private static final String FILE_NAME = "resource_samples.bin";
+    private static final int FILE_VERSION = 1;
+    private static final long SAMPLE_INTERVAL_MS = 60 * 1000L;
+    private static final long MAX_DEFER_MS = 15 * 60 * 1000L;
+    private static final long MB = 1024 * 1024;
+
+    public static final String[] METRICS = {
+        "battery_level", "charging", "battery_temp", "memory_available", "storage_free"
+    };
+    private static final String[] METRIC_UNITS = {
+        "percent", "percent_of_time", "deci_celsius", "mb", "mb"
+    };
+    private static final int METRIC_COUNT = METRICS.length;
+
+    private static ResourceSampler instance;
+
+    /**
+     * Satu resolusi: ring buffer waktu + nilai (METRIC_COUNT int per titik),
+     * plus akumulator untuk membentuk titik di tier berikutnya
+     */
+    private static class Tier {
+        final String name;
+        final long intervalMs;
+        final int capacity;
+        final long[] times;
+        final int[] values;
+        int next = 0;
+        int size = 0;
+
+        final long[] sums = new long[METRIC_COUNT];
+        final int[] average = new int[METRIC_COUNT];
+        int sumCount = 0;
+        long sumBucket = -1;
+
+        Tier(String name, long intervalMs, int capacity) {
+            this.name = name;
+            this.intervalMs = intervalMs;
+            this.capacity = capacity;
+            this.times = new long[capacity];
+            this.values = new int[capacity * METRIC_COUNT];
+        }
+
+        void write(long time, int[] sample) {
+            times[next] = time;
+            System.arraycopy(sample, 0, values, next * METRIC_COUNT, METRIC_COUNT);
+            next = (next + 1) % capacity;
+            if (size < capacity) {
+                size++;
+            }
+        }
+    }
+
+    // 2 jam per menit, 3 hari per jam, 60 hari per hari
+    private final Tier[] tiers = {
+        new Tier("minute", SAMPLE_INTERVAL_MS, 120),
+        new Tier("hour", 60 * 60 * 1000L, 72),
+        new Tier("day", 24 * 60 * 60 * 1000L, 60)
+    };
+
+    private final Context context;
+    private final ActivityManager activityManager;
+    private final ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+    private final IntentFilter batteryFilter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+    private final int[] sample = new int[METRIC_COUNT];
+    private final File file;
+    private StatFs statFs;
+    private boolean dirty;
+
+    private boolean started;
+    private final Runnable sampleTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                sampleNow();
+            } catch (Exception e) {
+                AppLog.e(TAG, "Sampling failed", e);
+            }
+        }
+    };
+
+    private ResourceSampler(Context context) {
+        this.context = context;
+        this.activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        load();
+    }
+
+    public static synchronized ResourceSampler getInstance(Context context) {
+        if (instance == null) {
+            instance = new ResourceSampler(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Sampling dijadwalkan lewat WorkScheduler sebagai task deferrable:
+     * selama Doze/baterai lemah sampel ditunda (celah di tier menit),
+     * rata-rata jam dan hari tetap dihitung dari sampel yang ada.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        WorkScheduler.getInstance(context).scheduleDeferrable(TAG, 0, SAMPLE_INTERVAL_MS, MAX_DEFER_MS, sampleTask);
+    }
+
+    public synchronized void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        WorkScheduler.getInstance(context).cancel(TAG);
+        saveQuietly();
+    }
+
+    private void sampleNow() {
+        Intent battery = context.registerReceiver(null, batteryFilter);
+        int level = -1;
+        int charging = 0;
+        int temperature = 0;
+        if (battery != null) {
+            int raw = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+            int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+            level = scale > 0 ? raw * 100 / scale : -1;
+            int status = battery.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+            charging = status == BatteryManager.BATTERY_STATUS_CHARGING
+                || status == BatteryManager.BATTERY_STATUS_FULL ? 100 : 0;
+            temperature = battery.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, 0);
+        }
+
+        long memoryAvailable = 0;
+        if (activityManager != null) {
+            activityManager.getMemoryInfo(memoryInfo);
+            memoryAvailable = memoryInfo.availMem;
+        }
+
+        String dataPath = Environment.getDataDirectory().getPath();
+        if (statFs == null) {
+            statFs = new StatFs(dataPath);
+        } else {
+            statFs.restat(dataPath);
+        }
+
+        synchronized (this) {
+            sample[0] = level;
+            sample[1] = charging;
+            sample[2] = temperature;
+            sample[3] = (int) (memoryAvailable / MB);
+            sample[4] = (int) (statFs.getAvailableBytes() / MB);
+            add(0, System.currentTimeMillis(), sample);
+            if (dirty) {
+                saveQuietly();
+            }
+        }
+    }
+
+    /**
+     * Tulis titik ke tier, lalu akumulasikan ke bucket tier berikutnya.
+     * Bucket yang sudah lewat ditutup menjadi satu titik rata-rata.
+     */
+    private void add(int tierIndex, long time, int[] values) {
+        Tier tier = tiers[tierIndex];
+        tier.write(time, values);
+        // Titik jam/hari baru: simpan setelah sampel ini selesai diproses
+        dirty |= tierIndex > 0;
+        if (tierIndex + 1 >= tiers.length) {
+            return;
+        }
+
+        Tier parent = tiers[tierIndex + 1];
+        long bucket = time - time % parent.intervalMs;
+        if (tier.sumCount > 0 && bucket != tier.sumBucket) {
+            for (int m = 0; m < METRIC_COUNT; m++) {
+                tier.average[m] = (int) (tier.sums[m] / tier.sumCount);
+                tier.sums[m] = 0;
+            }
+            long bucketTime = tier.sumBucket;
+            tier.sumCount = 0;
+            add(tierIndex + 1, bucketTime, tier.average);
+        }
+        tier.sumBucket = bucket;
+        for (int m = 0; m < METRIC_COUNT; m++) {
+            tier.sums[m] += values[m];
+        }
+        tier.sumCount++;
+    }
+
+    /**
+     * Query rentang waktu pada satu tier. Hasil berbentuk array ringkas:
+     * "t0" (epoch ms), "t" (offset detik dari t0) dan satu array nilai per metrik.
+     */
+    public synchronized JSONObject query(String tierName, long from, long to, JSONArray metrics) throws JSONException {
+        Tier tier = null;
+        for (Tier candidate : tiers) {
+            if (candidate.name.equals(tierName)) {
+                tier = candidate;
+            }
+        }
+        if (tier == null) {
+            throw new IllegalArgumentException("Unknown tier: " + tierName);
+        }
+
+        boolean[] selected = new boolean[METRIC_COUNT];
+        for (int m = 0; m < METRIC_COUNT; m++) {
+            selected[m] = metrics == null || containsString(metrics, METRICS[m]);
+        }
+
+        JSONArray offsets = new JSONArray();
+        JSONArray[] series = new JSONArray[METRIC_COUNT];
+        for (int m = 0; m < METRIC_COUNT; m++) {
+            series[m] = new JSONArray();
+        }
+
+        long t0 = -1;
+        int first = (tier.next - tier.size + tier.capacity) % tier.capacity;
+        for (int i = 0; i < tier.size; i++) {
+            int index = (first + i) % tier.capacity;
+            long time = tier.times[index];
+            if (time < from || time > to) {
+                continue;
+            }
+            if (t0 < 0) {
+                t0 = time;
+            }
+            offsets.put((time - t0) / 1000);
+            for (int m = 0; m < METRIC_COUNT; m++) {
+                if (selected[m]) {
+                    series[m].put(tier.values[index * METRIC_COUNT + m]);
+                }
+            }
+        }
+
+        JSONObject values = new JSONObject();
+        JSONObject units = new JSONObject();
+        for (int m = 0; m < METRIC_COUNT; m++) {
+            if (selected[m]) {
+                values.put(METRICS[m], series[m]);
+                units.put(METRICS[m], METRIC_UNITS[m]);
+            }
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("tier", tier.name);
+        result.put("interval_ms", tier.intervalMs);
+        result.put("count", offsets.length());
+        result.put("t0", Math.max(t0, 0));
+        result.put("t", offsets);
+        result.put("values", values);
+        result.put("units", units);
+        return result;
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_VERSION || in.readInt() != METRIC_COUNT) {
+                return;
+            }
+            for (Tier tier : tiers) {
+                if (in.readInt() != tier.capacity) {
+                    throw new IOException("Capacity of tier " + tier.name + " changed");
+                }
+                tier.next = in.readInt();
+                tier.size = in.readInt();
+                for (int i = 0; i < tier.capacity; i++) {
+                    tier.times[i] = in.readLong();
+                }
+                for (int i = 0; i < tier.values.length; i++) {
+                    tier.values[i] = in.readInt();
+                }
+                for (int m = 0; m < METRIC_COUNT; m++) {
+                    tier.sums[m] = in.readLong();
+                }
+                tier.sumCount = in.readInt();
+                tier.sumBucket = in.readLong();
+            }
+        } catch (IOException e) {
+            AppLog.w(TAG, "Discarding unreadable sample file: {}", e);
+            for (Tier tier : tiers) {
+                tier.next = 0;
+                tier.size = 0;
+                tier.sumCount = 0;
+                tier.sumBucket = -1;
+                Arrays.fill(tier.sums, 0);
+            }
+        }
+    }
+
+    private synchronized void saveQuietly() {
+        dirty = false;
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(FILE_VERSION);
+                out.writeInt(METRIC_COUNT);
+                for (Tier tier : tiers) {
+                    out.writeInt(tier.capacity);
+                    out.writeInt(tier.next);
+                    out.writeInt(tier.size);
+                    for (long time : tier.times) {
+                        out.writeLong(time);
+                    }
+                    for (int value : tier.values) {
+                        out.writeInt(value);
+                    }
+                    for (long sum : tier.sums) {
+                        out.writeLong(sum);
+                    }
+                    out.writeInt(tier.sumCount);
+                    out.writeLong(tier.sumBucket);
+                }
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("Failed to replace " + file);
+            }
+        } catch (IOException e) {
+            AppLog.e(TAG, "Failed to save samples", e);
+        }
+    }
+
+    private static boolean containsString(JSONArray array, String value) {
+        for (int i = 0; i < array.length(); i++) {
+            if (value.equals(array.optString(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
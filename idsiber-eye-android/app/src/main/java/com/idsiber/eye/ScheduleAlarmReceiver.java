@@ -0,0 +1,22 @@
+package com.idsiber.eye;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Menerima alarm dari CommandScheduler dan menjalankan command terjadwal
+ * yang sudah jatuh tempo, termasuk saat service tidak berjalan.
+ */
+public class ScheduleAlarmReceiver extends BroadcastReceiver {
+    private static final String TAG = "ScheduleAlarmReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!CommandScheduler.ACTION_ALARM.equals(intent.getAction())) {
+            return;
+        }
+        AppLog.d(TAG, "Schedule alarm received");
+        CommandScheduler.getInstance(context).onAlarm(goAsync());
+    }
+}
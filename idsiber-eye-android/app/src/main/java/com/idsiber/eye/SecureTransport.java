@@ -0,0 +1,224 @@
+package com.idsiber.eye;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import io.socket.client.IO;
+import okhttp3.CertificatePinner;
+import okhttp3.OkHttpClient;
+
+/**
+ * OkHttpClient bersama untuk koneksi socket.io (polling dan websocket).
+ *
+ * Semua socket memakai satu SSLContext, sehingga session cache TLS-nya
+ * bertahan antar reconnect dan pindah endpoint: handshake berikutnya ke
+ * server yang sama memakai session resumption (session ID / ticket)
+ * dan tidak perlu pertukaran sertifikat serta key exchange penuh.
+ * OkHttpClient dibuat ulang hanya jika daftar endpoint atau pin di
+ * ServerConfig berubah; SSLContext tidak pernah dibuat ulang.
+ */
+public class SecureTransport {
+    private static final String TAG = "SecureTransport";
+    private static final int SESSION_CACHE_SIZE = 16;
+    private static final int SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+    private static final int BENCHMARK_TIMEOUT_MS = 5000;
+    private static final int MAX_BENCHMARK_ROUNDS = 20;
+    // Batas total satu benchmark; ronde yang belum jalan saat batas lewat dilewati
+    private static final long BENCHMARK_BUDGET_MS = 60000;
+
+    private static SecureTransport instance;
+
+    private final ServerConfig serverConfig;
+    private final X509TrustManager trustManager;
+    private final SSLContext sslContext;
+
+    private OkHttpClient client;
+    private String clientKey;
+
+    private SecureTransport(Context context) throws Exception {
+        this.serverConfig = new ServerConfig(context);
+        this.trustManager = systemTrustManager();
+        this.sslContext = newSslContext(trustManager);
+        // Default session timeout platform bisa pendek; device sering reconnect
+        // setelah Doze sehingga session perlu bertahan lebih lama
+        sslContext.getClientSessionContext().setSessionCacheSize(SESSION_CACHE_SIZE);
+        sslContext.getClientSessionContext().setSessionTimeout(SESSION_TIMEOUT_SECONDS);
+    }
+
+    public static synchronized SecureTransport getInstance(Context context) {
+        if (instance == null) {
+            try {
+                instance = new SecureTransport(context.getApplicationContext());
+            } catch (Exception e) {
+                throw new IllegalStateException("TLS unavailable: " + e.getMessage(), e);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Pasang client bersama ke options socket.io
+     */
+    public void configure(IO.Options options) {
+        OkHttpClient shared = getClient();
+        options.callFactory = shared;
+        options.webSocketFactory = shared;
+    }
+
+    public synchronized OkHttpClient getClient() {
+        List<String> urls = serverConfig.getEndpointUrls();
+        List<String> pins = serverConfig.getCertificatePins();
+        String key = urls + "|" + pins;
+        if (client != null && key.equals(clientKey)) {
+            return client;
+        }
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+            // Sama dengan default engine.io: long-polling menunggu hingga 1 menit
+            .readTimeout(1, TimeUnit.MINUTES)
+            .sslSocketFactory(sslContext.getSocketFactory(), trustManager);
+        if (!pins.isEmpty()) {
+            CertificatePinner.Builder pinner = new CertificatePinner.Builder();
+            String[] pinArray = pins.toArray(new String[0]);
+            for (String url : urls) {
+                pinner.add(Uri.parse(url).getHost(), pinArray);
+            }
+            builder.certificatePinner(pinner.build());
+        }
+        client = builder.build();
+        clientKey = key;
+        AppLog.d(TAG, "Built transport for {} endpoint(s), {} pin(s)", urls.size(), pins.size());
+        return client;
+    }
+
+    /**
+     * Ukur latensi reconnect TLS (TCP connect + handshake) ke endpoint url:
+     * dengan SSLContext bersama (resumption) dan dengan SSLContext baru per
+     * koneksi (handshake penuh, seperti sebelum client bersama dipakai).
+     * Memblokir sampai BENCHMARK_BUDGET_MS; jangan dipanggil dari EventThread.
+     *
+     * resumed_sessions dihitung dari session ID yang sama dengan koneksi
+     * pertama. TLS 1.3 melakukan resumption lewat PSK/ticket dan session ID
+     * tidak bisa dijadikan acuan, jadi untuk TLS 1.3 nilainya null dan
+     * median_saving_ms yang dipakai sebagai indikator.
+     */
+    public JSONObject benchmarkReconnect(String url, int rounds) throws Exception {
+        Uri uri = Uri.parse(url);
+        if (!"https".equals(uri.getScheme())) {
+            throw new IllegalStateException("TLS is not enabled for " + url);
+        }
+        String host = uri.getHost();
+        int port = uri.getPort();
+        rounds = Math.max(1, Math.min(rounds, MAX_BENCHMARK_ROUNDS));
+
+        long deadline = SystemClock.elapsedRealtime() + BENCHMARK_BUDGET_MS;
+
+        // Koneksi pertama mengisi session cache; tidak ikut dihitung
+        SSLSession primed = handshake(sslContext.getSocketFactory(), host, port);
+        byte[] primedId = primed.getId();
+        boolean idComparable = !"TLSv1.3".equals(primed.getProtocol()) && primedId.length > 0;
+
+        List<Long> resumed = new ArrayList<>();
+        List<Long> full = new ArrayList<>();
+        int resumedCount = 0;
+        for (int i = 0; i < rounds && SystemClock.elapsedRealtime() < deadline; i++) {
+            long start = SystemClock.elapsedRealtime();
+            SSLSession session = handshake(sslContext.getSocketFactory(), host, port);
+            resumed.add(SystemClock.elapsedRealtime() - start);
+            if (Arrays.equals(session.getId(), primedId)) {
+                resumedCount++;
+            }
+
+            SSLContext fresh = newSslContext(trustManager);
+            start = SystemClock.elapsedRealtime();
+            handshake(fresh.getSocketFactory(), host, port);
+            full.add(SystemClock.elapsedRealtime() - start);
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("endpoint", url);
+        result.put("protocol", primed.getProtocol());
+        result.put("rounds", resumed.size());
+        result.put("truncated", resumed.size() < rounds);
+        result.put("resumed_sessions", idComparable ? resumedCount : JSONObject.NULL);
+        result.put("shared_context", stats(resumed));
+        result.put("fresh_context", stats(full));
+        result.put("median_saving_ms", percentile(full, 50) - percentile(resumed, 50));
+        return result;
+    }
+
+    /**
+     * Satu koneksi TLS; return session hasil handshake
+     */
+    private static SSLSession handshake(SSLSocketFactory factory, String host, int port) throws Exception {
+        Socket plain = new Socket();
+        SSLSocket socket = null;
+        try {
+            plain.connect(new InetSocketAddress(host, port), BENCHMARK_TIMEOUT_MS);
+            plain.setSoTimeout(BENCHMARK_TIMEOUT_MS);
+            // Wrap dengan host supaya SNI terkirim dan session dicache per host:port
+            socket = (SSLSocket) factory.createSocket(plain, host, port, true);
+            socket.startHandshake();
+            return socket.getSession();
+        } finally {
+            if (socket != null) {
+                socket.close();
+            } else {
+                plain.close();
+            }
+        }
+    }
+
+    private static JSONObject stats(List<Long> samples) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("median_ms", percentile(samples, 50));
+        json.put("p95_ms", percentile(samples, 95));
+        json.put("min_ms", Collections.min(samples));
+        json.put("max_ms", Collections.max(samples));
+        return json;
+    }
+
+    private static long percentile(List<Long> samples, int percentile) {
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    private static X509TrustManager systemTrustManager() throws Exception {
+        TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init((KeyStore) null);
+        TrustManager[] managers = factory.getTrustManagers();
+        if (managers.length != 1 || !(managers[0] instanceof X509TrustManager)) {
+            throw new IllegalStateException("Unexpected trust managers: " + Arrays.toString(managers));
+        }
+        return (X509TrustManager) managers[0];
+    }
+
+    private static SSLContext newSslContext(X509TrustManager trustManager) throws Exception {
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, new TrustManager[]{trustManager}, null);
+        return context;
+    }
+}
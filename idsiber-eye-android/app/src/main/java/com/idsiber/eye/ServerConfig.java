@@ -3,24 +3,61 @@ package com.idsiber.eye;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArraySet;
+
 /**
  * Utility class untuk menyimpan dan mendapatkan konfigurasi server
+ *
+ * Selain server utama (IP/port), bisa menyimpan endpoint cadangan.
+ * Urutan daftar adalah prioritas; pemilihan endpoint aktif berdasarkan
+ * RTT dan kesehatan dilakukan EndpointSelector.
+ *
+ * Setiap perubahan (dari instance mana pun) dikirim ke ChangeListener,
+ * sehingga koneksi bisa pindah endpoint tanpa membuat ulang client.
  */
 public class ServerConfig {
     private static final String PREFS_NAME = "IdSiberEyeConfig";
     private static final String KEY_SERVER_IP = "server_ip";
     private static final String KEY_SERVER_PORT = "server_port";
+    // Endpoint tambahan "host:port" dipisah koma, setelah server utama
+    private static final String KEY_EXTRA_ENDPOINTS = "extra_endpoints";
+    // TLS (https/wss) untuk semua endpoint, dengan pin "sha256/<base64>" opsional
+    private static final String KEY_USE_TLS = "use_tls";
+    private static final String KEY_CERT_PINS = "cert_pins";
+    private static final String PIN_PREFIX = "sha256/";
     
     // Default values dari Constants
     private static final String DEFAULT_IP = Constants.SERVER_PUBLIC_IP;
     private static final int DEFAULT_PORT = Constants.PORT;
     
+    private static final CopyOnWriteArraySet<ChangeListener> listeners = new CopyOnWriteArraySet<>();
+    
     private final SharedPreferences prefs;
     
+    public interface ChangeListener {
+        void onServerConfigChanged(ServerConfig config);
+    }
+    
     public ServerConfig(Context context) {
         prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
     }
     
+    public static void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+    
+    public static void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+    
+    private void notifyChanged() {
+        for (ChangeListener listener : listeners) {
+            listener.onServerConfigChanged(this);
+        }
+    }
+    
     /**
      * Simpan konfigurasi server
      */
@@ -29,6 +66,7 @@ public class ServerConfig {
         editor.putString(KEY_SERVER_IP, ip);
         editor.putInt(KEY_SERVER_PORT, port);
         editor.apply();
+        notifyChanged();
     }
     
     /**
@@ -49,7 +87,109 @@ public class ServerConfig {
      * Dapatkan URL server lengkap
      */
     public String getServerUrl() {
-        return "http://" + getServerIp() + ":" + getServerPort();
+        return getScheme() + getServerIp() + ":" + getServerPort();
+    }
+    
+    public boolean isTlsEnabled() {
+        return prefs.getBoolean(KEY_USE_TLS, false);
+    }
+    
+    private String getScheme() {
+        return isTlsEnabled() ? "https://" : "http://";
+    }
+    
+    /**
+     * Pin public key sertifikat server ("sha256/<base64>"); kosong = tanpa pinning
+     */
+    public List<String> getCertificatePins() {
+        List<String> pins = new ArrayList<>();
+        for (String pin : prefs.getString(KEY_CERT_PINS, "").split(",")) {
+            if (!pin.trim().isEmpty()) {
+                pins.add(pin.trim());
+            }
+        }
+        return pins;
+    }
+    
+    /**
+     * Aktifkan/nonaktifkan TLS dan ganti daftar pin
+     */
+    public void saveTls(boolean enabled, List<String> pins) {
+        StringBuilder joined = new StringBuilder();
+        for (String pin : pins) {
+            String value = pin.trim();
+            if (!value.startsWith(PIN_PREFIX) || value.length() <= PIN_PREFIX.length()) {
+                throw new IllegalArgumentException("Invalid pin (expected sha256/<base64>): " + pin);
+            }
+            if (joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(value);
+        }
+        
+        SharedPreferences.Editor editor = prefs.edit();
+        editor.putBoolean(KEY_USE_TLS, enabled);
+        editor.putString(KEY_CERT_PINS, joined.toString());
+        editor.apply();
+        notifyChanged();
+    }
+    
+    /**
+     * Semua endpoint sebagai URL, server utama lebih dulu
+     */
+    public List<String> getEndpointUrls() {
+        List<String> urls = new ArrayList<>();
+        urls.add(getServerUrl());
+        String extra = prefs.getString(KEY_EXTRA_ENDPOINTS, "");
+        for (String hostPort : extra.split(",")) {
+            hostPort = hostPort.trim();
+            if (!hostPort.isEmpty()) {
+                String url = getScheme() + hostPort;
+                if (!urls.contains(url)) {
+                    urls.add(url);
+                }
+            }
+        }
+        return urls;
+    }
+    
+    /**
+     * Simpan daftar endpoint "host:port" berurutan; yang pertama menjadi server utama
+     */
+    public void saveEndpoints(List<String> hostPorts) {
+        if (hostPorts.isEmpty()) {
+            throw new IllegalArgumentException("At least one endpoint is required");
+        }
+        String[] primary = parseHostPort(hostPorts.get(0));
+        StringBuilder extra = new StringBuilder();
+        for (int i = 1; i < hostPorts.size(); i++) {
+            String[] endpoint = parseHostPort(hostPorts.get(i));
+            if (extra.length() > 0) {
+                extra.append(',');
+            }
+            extra.append(endpoint[0]).append(':').append(endpoint[1]);
+        }
+        
+        SharedPreferences.Editor editor = prefs.edit();
+        editor.putString(KEY_SERVER_IP, primary[0]);
+        editor.putInt(KEY_SERVER_PORT, Integer.parseInt(primary[1]));
+        editor.putString(KEY_EXTRA_ENDPOINTS, extra.toString());
+        editor.apply();
+        notifyChanged();
+    }
+    
+    /**
+     * Validasi "host" atau "host:port" (port default DEFAULT_PORT)
+     */
+    private static String[] parseHostPort(String hostPort) {
+        String value = hostPort.trim();
+        int separator = value.lastIndexOf(':');
+        String host = separator > 0 ? value.substring(0, separator) : value;
+        int port = separator > 0 ? Integer.parseInt(value.substring(separator + 1)) : DEFAULT_PORT;
+        if (host.isEmpty() || port <= 0 || port > 65535) {
+            throw new IllegalArgumentException("Invalid endpoint: " + hostPort);
+        }
+        return new String[]{host, String.valueOf(port)};
     }
     
     /**
@@ -59,7 +199,11 @@ public class ServerConfig {
         SharedPreferences.Editor editor = prefs.edit();
         editor.putString(KEY_SERVER_IP, DEFAULT_IP);
         editor.putInt(KEY_SERVER_PORT, DEFAULT_PORT);
+        editor.remove(KEY_EXTRA_ENDPOINTS);
+        editor.remove(KEY_USE_TLS);
+        editor.remove(KEY_CERT_PINS);
         editor.apply();
+        notifyChanged();
     }
     
     /**
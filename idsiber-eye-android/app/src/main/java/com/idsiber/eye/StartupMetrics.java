@@ -0,0 +1,88 @@
+package com.idsiber.eye;
+
+import android.os.Process;
+import android.os.SystemClock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Catatan waktu startup proses: kapan tiap tahap tercapai (relatif ke
+ * process start) dan berapa lama inisialisasi komponen berjalan.
+ */
+public final class StartupMetrics {
+    private static final Map<String, Long> marks = new LinkedHashMap<>();
+    private static final Map<String, Double> durations = new LinkedHashMap<>();
+    private static long bootReceivedElapsed = -1;
+
+    private StartupMetrics() {
+    }
+
+    /**
+     * Catat tahap startup. Hanya kemunculan pertama yang disimpan.
+     */
+    public static synchronized void mark(String name) {
+        if (!marks.containsKey(name)) {
+            marks.put(name, SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime());
+        }
+    }
+
+    /**
+     * Catat durasi inisialisasi sebuah komponen
+     */
+    public static synchronized void recordDuration(String name, long nanos) {
+        durations.put(name, nanos / 1000000.0);
+    }
+
+    /**
+     * Catat waktu BootReceiver menerima BOOT_COMPLETED (SystemClock.elapsedRealtime)
+     */
+    public static synchronized void markBootReceived(long elapsedRealtime) {
+        if (bootReceivedElapsed < 0) {
+            bootReceivedElapsed = elapsedRealtime;
+        }
+    }
+
+    /**
+     * Kosongkan semua catatan; hanya untuk test
+     */
+    static synchronized void reset() {
+        marks.clear();
+        durations.clear();
+        bootReceivedElapsed = -1;
+    }
+
+    public static synchronized Long getMark(String name) {
+        return marks.get(name);
+    }
+
+    public static synchronized JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+
+        JSONObject marksJson = new JSONObject();
+        for (Map.Entry<String, Long> entry : marks.entrySet()) {
+            marksJson.put(entry.getKey(), entry.getValue());
+        }
+        json.put("marks_ms_since_process_start", marksJson);
+
+        JSONObject durationsJson = new JSONObject();
+        for (Map.Entry<String, Double> entry : durations.entrySet()) {
+            durationsJson.put(entry.getKey(), entry.getValue());
+        }
+        json.put("init_durations_ms", durationsJson);
+
+        // elapsedRealtime dihitung sejak boot, jadi waktu registrasi dalam
+        // elapsedRealtime adalah boot-to-registered
+        Long registered = marks.get("device_registered");
+        if (registered != null && bootReceivedElapsed > 0) {
+            long registeredElapsed = Process.getStartElapsedRealtime() + registered;
+            json.put("boot_to_registered_ms", registeredElapsed);
+            json.put("boot_received_to_registered_ms", registeredElapsed - bootReceivedElapsed);
+        }
+
+        return json;
+    }
+}
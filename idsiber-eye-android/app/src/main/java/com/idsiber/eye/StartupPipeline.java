@@ -0,0 +1,127 @@
+package com.idsiber.eye;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pipeline startup bertahap untuk WebSocketService.
+ *
+ * Tahap critical (buat client, connect, register) dijalankan lebih dulu di
+ * thread startup sendiri, bukan di main thread. Tahap deferred (heartbeat,
+ * prewarm handler, dll) baru dijalankan setelah device terdaftar, atau
+ * setelah DEFERRED_FALLBACK_MS jika registrasi belum juga terjadi (offline).
+ *
+ * Tahap deferred berjalan di HandlerThread background sendiri, jadi tahap
+ * critical yang datang belakangan (mis. "connect" dari onStartCommand
+ * berikutnya) tetap berjalan dengan prioritas foreground.
+ */
+public class StartupPipeline {
+    private static final String TAG = "StartupPipeline";
+    private static final long DEFERRED_FALLBACK_MS = 15000;
+
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final HandlerThread deferredThread;
+    private final Handler deferredHandler;
+    private final List<Stage> deferredStages = new ArrayList<>();
+    private final AtomicBoolean deferredStarted = new AtomicBoolean(false);
+
+    private static class Stage {
+        final String name;
+        final Runnable task;
+
+        Stage(String name, Runnable task) {
+            this.name = name;
+            this.task = task;
+        }
+    }
+
+    public StartupPipeline() {
+        thread = new HandlerThread("StartupPipeline", Process.THREAD_PRIORITY_FOREGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        deferredThread = new HandlerThread("StartupPipeline-deferred", Process.THREAD_PRIORITY_BACKGROUND);
+        deferredThread.start();
+        deferredHandler = new Handler(deferredThread.getLooper());
+        handler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                if (!deferredStarted.get()) {
+                    AppLog.w(TAG, "Registration not reached in time, running deferred stages");
+                }
+                onCriticalPathComplete();
+            }
+        }, DEFERRED_FALLBACK_MS);
+    }
+
+    /**
+     * Jalankan tahap critical secepatnya, berurutan sesuai urutan pemanggilan
+     */
+    public void runCritical(String name, Runnable task) {
+        handler.post(timed("stage_" + name, task));
+    }
+
+    /**
+     * Daftarkan tahap yang boleh ditunda sampai critical path selesai
+     */
+    public synchronized void defer(String name, Runnable task) {
+        if (deferredStarted.get()) {
+            deferredHandler.post(timed("deferred_" + name, task));
+        } else {
+            deferredStages.add(new Stage(name, task));
+        }
+    }
+
+    /**
+     * Dipanggil saat device sudah terdaftar: semua tahap deferred dijadwalkan
+     * di thread background. Aman dipanggil lebih dari sekali.
+     */
+    public void onCriticalPathComplete() {
+        if (!deferredStarted.compareAndSet(false, true)) {
+            return;
+        }
+
+        final List<Stage> stages;
+        synchronized (this) {
+            stages = new ArrayList<>(deferredStages);
+            deferredStages.clear();
+        }
+
+        deferredHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                StartupMetrics.mark("deferred_stages_started");
+            }
+        });
+        for (Stage stage : stages) {
+            deferredHandler.post(timed("deferred_" + stage.name, stage.task));
+        }
+    }
+
+    public void shutdown() {
+        handler.removeCallbacksAndMessages(null);
+        deferredHandler.removeCallbacksAndMessages(null);
+        thread.quitSafely();
+        deferredThread.quitSafely();
+    }
+
+    private Runnable timed(final String name, final Runnable task) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    AppLog.e(TAG, "Startup stage failed: " + name, e);
+                }
+                StartupMetrics.recordDuration(name, System.nanoTime() - start);
+            }
+        };
+    }
+}
@@ -0,0 +1,464 @@
+package com.idsiber.eye;
+
+import android.app.usage.StorageStats;
+import android.app.usage.StorageStatsManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.storage.StorageManager;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Indeks ukuran storage per aplikasi (app, data, cache) dari StorageStatsManager.
+ *
+ * Query get_app_storage dijawab dari indeks di memori. Indeks diperbarui di
+ * background: paket yang baru di-install/update langsung diindeks ulang,
+ * sedangkan pass penuh hanya dijalankan saat charging atau layar mati, dalam
+ * potongan kecil supaya tidak menahan CPU lama. Indeks disimpan ke file agar
+ * langsung tersedia setelah restart. Butuh Android 8.0+ dan usage access.
+ */
+public class StorageIndexer {
+    private static final String TAG = "StorageIndexer";
+    private static final String FILE_NAME = "storage_index.bin";
+    private static final int FILE_VERSION = 1;
+
+    private static final long CHECK_INTERVAL_MS = 30 * 60 * 1000L;
+    private static final long MAX_DEFER_MS = 6 * 60 * 60 * 1000L;
+    private static final long FULL_PASS_MAX_AGE_MS = 6 * 60 * 60 * 1000L;
+    private static final int CHUNK_SIZE = 20;
+    private static final long CHUNK_DELAY_MS = 500;
+
+    private static StorageIndexer instance;
+
+    private final Context context;
+    private final File file;
+
+    // Indeks: array paralel, terurut berdasarkan nama paket
+    private String[] packages = new String[0];
+    private long[] appBytes = new long[0];
+    private long[] dataBytes = new long[0];
+    private long[] cacheBytes = new long[0];
+    private long lastFullPassAt;
+
+    private final Set<String> dirtyPackages = new LinkedHashSet<>();
+    private List<String> pendingFullPass;
+
+    private HandlerThread thread;
+    private volatile Handler handler;
+    private BroadcastReceiver packageReceiver;
+
+    private final Runnable checkTask = new Runnable() {
+        @Override
+        public void run() {
+            check();
+        }
+    };
+    // Dipanggil WorkScheduler; pengecekan dan chunk tetap di thread indexer
+    private final Runnable scheduleTask = new Runnable() {
+        @Override
+        public void run() {
+            Handler current = handler;
+            if (current != null) {
+                current.post(checkTask);
+            }
+        }
+    };
+
+    private final Runnable chunkTask = new Runnable() {
+        @Override
+        public void run() {
+            indexNextChunk();
+        }
+    };
+
+    private StorageIndexer(Context context) {
+        this.context = context;
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        load();
+    }
+
+    public static synchronized StorageIndexer getInstance(Context context) {
+        if (instance == null) {
+            instance = new StorageIndexer(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O;
+    }
+
+    public synchronized void start() {
+        if (thread != null || !isSupported()) {
+            return;
+        }
+        thread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_DATA_CLEARED);
+        filter.addDataScheme("package");
+        packageReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (intent.getData() != null) {
+                    onPackageChanged(intent.getData().getSchemeSpecificPart());
+                }
+            }
+        };
+        context.registerReceiver(packageReceiver, filter, null, handler);
+
+        WorkScheduler.getInstance(context).scheduleDeferrable(TAG, 0, CHECK_INTERVAL_MS, MAX_DEFER_MS, scheduleTask);
+    }
+
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        WorkScheduler.getInstance(context).cancel(TAG);
+        context.unregisterReceiver(packageReceiver);
+        handler.removeCallbacksAndMessages(null);
+        thread.quitSafely();
+        thread = null;
+        handler = null;
+        packageReceiver = null;
+    }
+
+    private void onPackageChanged(String packageName) {
+        synchronized (this) {
+            dirtyPackages.add(packageName);
+        }
+        // Satu paket hanya butuh satu binder call, tidak perlu menunggu idle
+        indexDirtyPackages();
+    }
+
+    /**
+     * Dijalankan berkala: indeks ulang paket yang berubah, dan mulai pass
+     * penuh jika indeks sudah tua dan device sedang charging/tidak dipakai
+     */
+    private void check() {
+        if (!DeviceCapabilities.getInstance(context).hasUsageAccess()) {
+            return;
+        }
+        indexDirtyPackages();
+
+        synchronized (this) {
+            if (pendingFullPass != null) {
+                return;
+            }
+            boolean neverIndexed = lastFullPassAt == 0;
+            boolean stale = System.currentTimeMillis() - lastFullPassAt > FULL_PASS_MAX_AGE_MS;
+            if (!neverIndexed && !(stale && isGoodTimeToIndex())) {
+                return;
+            }
+
+            List<ApplicationInfo> installed = context.getPackageManager().getInstalledApplications(0);
+            pendingFullPass = new ArrayList<>(installed.size());
+            for (ApplicationInfo info : installed) {
+                pendingFullPass.add(info.packageName);
+            }
+            AppLog.i(TAG, "Starting full storage index of {} packages", pendingFullPass.size());
+        }
+        Handler current = handler;
+        if (current != null) {
+            current.post(chunkTask);
+        }
+    }
+
+    private void indexNextChunk() {
+        StorageStatsManager statsManager = (StorageStatsManager) context.getSystemService(Context.STORAGE_STATS_SERVICE);
+        List<String> chunk;
+        synchronized (this) {
+            if (pendingFullPass == null) {
+                return;
+            }
+            // Pass pertama tetap jalan; pass berikutnya ditunda jika user mulai memakai device
+            if (lastFullPassAt > 0 && !isGoodTimeToIndex()) {
+                AppLog.d(TAG, "Device busy, pausing storage index ({} left)", pendingFullPass.size());
+                pendingFullPass = null;
+                return;
+            }
+            int end = Math.min(CHUNK_SIZE, pendingFullPass.size());
+            chunk = new ArrayList<>(pendingFullPass.subList(0, end));
+            pendingFullPass.subList(0, end).clear();
+        }
+
+        for (String packageName : chunk) {
+            indexPackage(statsManager, packageName);
+        }
+
+        synchronized (this) {
+            if (!pendingFullPass.isEmpty()) {
+                Handler current = handler;
+                if (current != null) {
+                    current.postDelayed(chunkTask, CHUNK_DELAY_MS);
+                }
+                return;
+            }
+            pendingFullPass = null;
+            lastFullPassAt = System.currentTimeMillis();
+            removeUninstalled();
+            save();
+            AppLog.i(TAG, "Storage index complete: {} packages", packages.length);
+        }
+    }
+
+    private void indexDirtyPackages() {
+        List<String> dirty;
+        synchronized (this) {
+            if (dirtyPackages.isEmpty()) {
+                return;
+            }
+            dirty = new ArrayList<>(dirtyPackages);
+            dirtyPackages.clear();
+        }
+        StorageStatsManager statsManager = (StorageStatsManager) context.getSystemService(Context.STORAGE_STATS_SERVICE);
+        for (String packageName : dirty) {
+            indexPackage(statsManager, packageName);
+        }
+        synchronized (this) {
+            save();
+        }
+    }
+
+    private void indexPackage(StorageStatsManager statsManager, String packageName) {
+        if (!DeviceCapabilities.getInstance(context).hasUsageAccess()) {
+            return;
+        }
+        try {
+            StorageStats stats = statsManager.queryStatsForPackage(
+                StorageManager.UUID_DEFAULT, packageName, Process.myUserHandle());
+            synchronized (this) {
+                put(packageName, stats.getAppBytes(), stats.getDataBytes(), stats.getCacheBytes());
+            }
+        } catch (PackageManager.NameNotFoundException e) {
+            synchronized (this) {
+                remove(packageName);
+            }
+        } catch (Exception e) {
+            AppLog.w(TAG, "Failed to query storage for {}", packageName);
+        }
+    }
+
+    private boolean isGoodTimeToIndex() {
+        BatteryManager battery = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+        if (battery != null && battery.isCharging()) {
+            return true;
+        }
+        PowerManager power = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        return power != null && !power.isInteractive();
+    }
+
+    private void put(String packageName, long app, long data, long cache) {
+        int index = Arrays.binarySearch(packages, packageName);
+        if (index < 0) {
+            index = -index - 1;
+            int size = packages.length;
+            packages = insert(packages, index, packageName);
+            appBytes = insert(appBytes, size, index);
+            dataBytes = insert(dataBytes, size, index);
+            cacheBytes = insert(cacheBytes, size, index);
+        }
+        appBytes[index] = app;
+        dataBytes[index] = data;
+        cacheBytes[index] = cache;
+    }
+
+    private void remove(String packageName) {
+        int index = Arrays.binarySearch(packages, packageName);
+        if (index < 0) {
+            return;
+        }
+        int tail = packages.length - index - 1;
+        String[] newPackages = Arrays.copyOf(packages, packages.length - 1);
+        System.arraycopy(packages, index + 1, newPackages, index, tail);
+        packages = newPackages;
+        appBytes = removeAt(appBytes, index);
+        dataBytes = removeAt(dataBytes, index);
+        cacheBytes = removeAt(cacheBytes, index);
+    }
+
+    private void removeUninstalled() {
+        PackageManager pm = context.getPackageManager();
+        for (String packageName : packages.clone()) {
+            try {
+                pm.getApplicationInfo(packageName, 0);
+            } catch (PackageManager.NameNotFoundException e) {
+                remove(packageName);
+            }
+        }
+    }
+
+    private static String[] insert(String[] array, int index, String value) {
+        String[] result = new String[array.length + 1];
+        System.arraycopy(array, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        return result;
+    }
+
+    private static long[] insert(long[] array, int size, int index) {
+        long[] result = new long[size + 1];
+        System.arraycopy(array, 0, result, 0, index);
+        System.arraycopy(array, index, result, index + 1, size - index);
+        return result;
+    }
+
+    private static long[] removeAt(long[] array, int index) {
+        long[] result = new long[array.length - 1];
+        System.arraycopy(array, 0, result, 0, index);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    /**
+     * Top-N aplikasi berdasarkan ukuran, langsung dari indeks
+     *
+     * @param sortBy "total", "app", "data" atau "cache"
+     */
+    public synchronized JSONObject query(int limit, String sortBy) throws JSONException {
+        final long[] key = new long[packages.length];
+        long totalApp = 0;
+        long totalData = 0;
+        long totalCache = 0;
+        for (int i = 0; i < packages.length; i++) {
+            switch (sortBy) {
+                case "app": key[i] = appBytes[i]; break;
+                case "data": key[i] = dataBytes[i]; break;
+                case "cache": key[i] = cacheBytes[i]; break;
+                // getDataBytes sudah termasuk cache
+                default: key[i] = appBytes[i] + dataBytes[i]; break;
+            }
+            totalApp += appBytes[i];
+            totalData += dataBytes[i];
+            totalCache += cacheBytes[i];
+        }
+
+        Integer[] order = new Integer[packages.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(key[b], key[a]);
+            }
+        });
+
+        PackageManager pm = context.getPackageManager();
+        JSONArray apps = new JSONArray();
+        for (int i = 0; i < Math.min(limit, order.length); i++) {
+            int index = order[i];
+            JSONObject app = new JSONObject();
+            app.put("package_name", packages[index]);
+            try {
+                ApplicationInfo info = pm.getApplicationInfo(packages[index], 0);
+                app.put("app_name", pm.getApplicationLabel(info).toString());
+            } catch (PackageManager.NameNotFoundException e) {
+                app.put("app_name", packages[index]);
+            }
+            app.put("app_bytes", appBytes[index]);
+            app.put("data_bytes", dataBytes[index]);
+            app.put("cache_bytes", cacheBytes[index]);
+            app.put("total_bytes", appBytes[index] + dataBytes[index]);
+            apps.put(app);
+        }
+
+        JSONObject totals = new JSONObject();
+        totals.put("app_bytes", totalApp);
+        totals.put("data_bytes", totalData);
+        totals.put("cache_bytes", totalCache);
+
+        JSONObject result = new JSONObject();
+        result.put("apps", apps);
+        result.put("totals", totals);
+        result.put("indexed_packages", packages.length);
+        result.put("last_full_index_at", lastFullPassAt);
+        result.put("indexing", pendingFullPass != null);
+        if (pendingFullPass != null) {
+            result.put("pending_packages", pendingFullPass.size());
+        }
+        return result;
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_VERSION) {
+                return;
+            }
+            lastFullPassAt = in.readLong();
+            int count = in.readInt();
+            String[] loadedPackages = new String[count];
+            long[] loadedApp = new long[count];
+            long[] loadedData = new long[count];
+            long[] loadedCache = new long[count];
+            for (int i = 0; i < count; i++) {
+                loadedPackages[i] = in.readUTF();
+                loadedApp[i] = in.readLong();
+                loadedData[i] = in.readLong();
+                loadedCache[i] = in.readLong();
+            }
+            packages = loadedPackages;
+            appBytes = loadedApp;
+            dataBytes = loadedData;
+            cacheBytes = loadedCache;
+        } catch (IOException e) {
+            AppLog.w(TAG, "Discarding unreadable storage index: {}", e);
+        }
+    }
+
+    private void save() {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeLong(lastFullPassAt);
+            out.writeInt(packages.length);
+            for (int i = 0; i < packages.length; i++) {
+                out.writeUTF(packages[i]);
+                out.writeLong(appBytes[i]);
+                out.writeLong(dataBytes[i]);
+                out.writeLong(cacheBytes[i]);
+            }
+        } catch (IOException e) {
+            AppLog.e(TAG, "Failed to save storage index", e);
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            AppLog.w(TAG, "Failed to replace storage index file");
+        }
+    }
+}
@@ -2,10 +2,19 @@ package com.idsiber.eye;
 
 import android.content.Context;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.provider.Settings;
-import android.util.Log;
 
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import io.socket.client.IO;
 import io.socket.client.Socket;
@@ -16,30 +25,88 @@ import org.json.JSONObject;
 
 public class WebSocketClient {
     private static final String TAG = "WebSocketClient";
+    private static final long DEFAULT_DEFERRED_COMMAND_DELAY_MS = 15 * 60 * 1000L;
+    // Batas tunggu response command yang masih berjalan saat pindah endpoint
+    private static final long DRAIN_TIMEOUT_MS = 30000;
+    // Command yang bisa memblokir puluhan detik (I/O jaringan berurutan); tidak
+    // dijalankan di EventThread socket.io supaya event lain dan ping tetap jalan
+    private static final Set<String> BLOCKING_ACTIONS = new HashSet<>(Arrays.asList(
+        "benchmark_reconnect"
+    ));
     
-    private Socket socket;
+    // Diganti switchEndpoint (synchronized) dan dibaca dari thread lain
+    private volatile Socket socket;
     private Context context;
     private CommandHandler commandHandler;
     private StatusCallback statusCallback;
+    private RegistrationListener registrationListener;
     private boolean isConnected = false;
-    private ServerConfig serverConfig;
+    private final EndpointSelector endpointSelector;
+    private final CommandRecorder commandRecorder;
+    private volatile String currentUrl;
+    // Command yang sedang dieksekusi per socket asalnya; socket lama ditutup
+    // setelah hitungannya nol (lihat retireSocket)
+    private final Map<Socket, Integer> inFlight = new HashMap<>();
+    private final Map<Socket, Runnable> draining = new HashMap<>();
+    private final Handler drainHandler = new Handler(Looper.getMainLooper());
+    private final ClockOffsetEstimator clockOffset = new ClockOffsetEstimator();
+    // Command deferrable dan BLOCKING_ACTIONS dieksekusi di sini; thread
+    // WorkScheduler dan EventThread hanya menyerahkannya, supaya command lambat
+    // tidak menahan heartbeat, sampler atau event socket lain
+    private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "BackgroundCommands");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private volatile long lastHeartbeatSentAt = 0;
+    private final DeviceCapabilities capabilities;
+    private final NetworkStateMonitor networkMonitor;
+    private final NetworkStateMonitor.Listener networkListener = new NetworkStateMonitor.Listener() {
+        @Override
+        public void onNetworkChanged(NetworkStateMonitor.State previous, NetworkStateMonitor.State current) {
+            handleNetworkChange(previous, current);
+        }
+    };
+    private final DeviceCapabilities.ChangeListener capabilitiesListener = new DeviceCapabilities.ChangeListener() {
+        @Override
+        public void onCapabilitiesChanged(DeviceCapabilities changed) {
+            sendCapabilities(changed);
+        }
+    };
+    private final EndpointSelector.Listener endpointListener = new EndpointSelector.Listener() {
+        @Override
+        public void onPreferredEndpointChanged(String previousUrl, String url) {
+            switchEndpoint(url);
+        }
+    };
     
     public interface StatusCallback {
         void onStatusChange(String status);
         void onError(String error);
     }
     
+    public interface RegistrationListener {
+        void onRegistered();
+    }
+    
     public WebSocketClient(Context context, StatusCallback callback) {
         this.context = context;
         this.statusCallback = callback;
         this.commandHandler = new CommandHandler(context);
-        this.serverConfig = new ServerConfig(context);
+        this.endpointSelector = EndpointSelector.getInstance(context);
+        this.commandRecorder = CommandRecorder.getInstance(context);
+        this.capabilities = DeviceCapabilities.getInstance(context);
+        this.networkMonitor = NetworkStateMonitor.getInstance(context);
         initSocket();
     }
     
     private void initSocket() {
         try {
-            String serverUrl = serverConfig.getServerUrl();
+            String serverUrl = endpointSelector.select();
+            currentUrl = serverUrl;
             
             IO.Options options = new IO.Options();
             options.timeout = Constants.SOCKET_TIMEOUT;
@@ -48,25 +115,36 @@ public class WebSocketClient {
             options.reconnectionDelay = Constants.RECONNECTION_DELAY;
             options.forceNew = true;
             options.transports = new String[]{"websocket", "polling"}; // Try both transport methods
+            // OkHttpClient bersama: pinning dan TLS session resumption antar reconnect
+            SecureTransport.getInstance(context).configure(options);
             
-            Log.d(TAG, "Attempting to connect to: " + serverUrl);
+            AppLog.i(TAG, "Attempting to connect to: {}", serverUrl);
             socket = IO.socket(serverUrl, options);
             setupSocketListeners();
             
         } catch (URISyntaxException e) {
-            Log.e(TAG, "Socket initialization error", e);
+            AppLog.e(TAG, "Socket initialization error", e);
             if (statusCallback != null) {
                 statusCallback.onError("Failed to initialize: " + e.getMessage());
             }
+        } catch (IllegalStateException e) {
+            AppLog.e(TAG, "Transport initialization error", e);
+            if (statusCallback != null) {
+                statusCallback.onError("Failed to initialize TLS: " + e.getMessage());
+            }
         }
     }
     
     private void setupSocketListeners() {
+        final Socket origin = socket;
+        
         // Connection events
         socket.on(Socket.EVENT_CONNECT, new Emitter.Listener() {
             @Override
             public void call(Object... args) {
-                Log.d(TAG, "Connected to server");
+                AppLog.d(TAG, "Connected to server");
+                StartupMetrics.mark("socket_connected");
+                endpointSelector.reportSuccess(currentUrl);
                 isConnected = true;
                 if (statusCallback != null) {
                     statusCallback.onStatusChange("Connected - Registering device...");
@@ -78,7 +156,7 @@ public class WebSocketClient {
         socket.on(Socket.EVENT_DISCONNECT, new Emitter.Listener() {
             @Override
             public void call(Object... args) {
-                Log.d(TAG, "Disconnected from server");
+                AppLog.d(TAG, "Disconnected from server");
                 isConnected = false;
                 if (statusCallback != null) {
                     statusCallback.onStatusChange("Disconnected");
@@ -93,8 +171,9 @@ public class WebSocketClient {
                 if (args.length > 0 && args[0] != null) {
                     errorMsg = args[0].toString();
                 }
-                Log.e(TAG, "Connection error: " + errorMsg);
+                AppLog.e(TAG, "Connection error: {}", errorMsg);
                 isConnected = false;
+                endpointSelector.reportFailure(currentUrl);
                 if (statusCallback != null) {
                     statusCallback.onError("Connection failed: " + errorMsg);
                     statusCallback.onStatusChange("Connection Failed - Check Network");
@@ -103,20 +182,24 @@ public class WebSocketClient {
         });
         
         // Registration events
-        socket.on("registration_success", new Emitter.Listener() {
+        socket.on(DeviceProtocol.EVENT_REGISTRATION_SUCCESS, new Emitter.Listener() {
             @Override
             public void call(Object... args) {
-                Log.d(TAG, "Device registered successfully");
+                AppLog.d(TAG, "Device registered successfully");
+                StartupMetrics.mark("device_registered");
                 if (statusCallback != null) {
                     statusCallback.onStatusChange("Connected & Registered ✓");
                 }
+                if (registrationListener != null) {
+                    registrationListener.onRegistered();
+                }
             }
         });
         
-        socket.on("registration_error", new Emitter.Listener() {
+        socket.on(DeviceProtocol.EVENT_REGISTRATION_ERROR, new Emitter.Listener() {
             @Override
             public void call(Object... args) {
-                Log.e(TAG, "Registration failed");
+                AppLog.e(TAG, "Registration failed");
                 if (statusCallback != null) {
                     statusCallback.onError("Registration failed");
                     statusCallback.onStatusChange("Registration Failed");
@@ -125,41 +208,40 @@ public class WebSocketClient {
         });
         
         // Command handling
-        socket.on("command", new Emitter.Listener() {
+        socket.on(DeviceProtocol.EVENT_COMMAND, new Emitter.Listener() {
             @Override
             public void call(Object... args) {
                 try {
-                    JSONObject command = (JSONObject) args[0];
-                    Log.d(TAG, "Received command: " + command.toString());
-                    handleCommand(command);
+                    DeviceProtocol.Command command = DeviceProtocol.parseCommand((JSONObject) args[0],
+                        DEFAULT_DEFERRED_COMMAND_DELAY_MS);
+                    AppLog.d(TAG, "Received command {} ({})", command.action, command.commandId);
+                    handleCommand(origin, command);
                 } catch (Exception e) {
-                    Log.e(TAG, "Error handling command", e);
+                    AppLog.e(TAG, "Error handling command", e);
                 }
             }
         });
         
         // Heartbeat
-        socket.on("heartbeat_response", new Emitter.Listener() {
+        socket.on(DeviceProtocol.EVENT_HEARTBEAT_RESPONSE, new Emitter.Listener() {
             @Override
             public void call(Object... args) {
-                Log.d(TAG, "Heartbeat received");
+                DeviceProtocol.onHeartbeatResponse(args, lastHeartbeatSentAt, System.currentTimeMillis(), clockOffset);
+                AppLog.v(TAG, "Heartbeat received");
             }
         });
     }
     
     private void registerDevice() {
         try {
-            JSONObject deviceInfo = new JSONObject();
-            deviceInfo.put("device_id", getDeviceId());
-            deviceInfo.put("device_name", Build.MODEL);
-            deviceInfo.put("device_model", Build.DEVICE);
-            deviceInfo.put("android_version", Build.VERSION.RELEASE);
+            JSONObject deviceInfo = DeviceProtocol.registration(getDeviceId(), Build.MODEL, Build.DEVICE,
+                Build.VERSION.RELEASE, capabilities.toJson(), CommandScheduler.getInstance(context).getVersion());
             
-            socket.emit("register_device", deviceInfo);
-            Log.d(TAG, "Sending device registration: " + deviceInfo.toString());
+            socket.emit(DeviceProtocol.EVENT_REGISTER_DEVICE, deviceInfo);
+            AppLog.d(TAG, "Sending device registration: {}", deviceInfo);
             
         } catch (JSONException e) {
-            Log.e(TAG, "Error creating device info", e);
+            AppLog.e(TAG, "Error creating device info", e);
             if (statusCallback != null) {
                 statusCallback.onError("Failed to create device info");
             }
@@ -171,44 +253,120 @@ public class WebSocketClient {
                                        Settings.Secure.ANDROID_ID);
     }
     
-    private void handleCommand(JSONObject command) {
-        try {
-            String commandId = command.getString("commandId");
-            String action = command.getString("action");
-            JSONObject params = command.optJSONObject("params");
-            
-            Log.d(TAG, "Executing command: " + action);
-            
-            // Execute command
-            CommandResult result = commandHandler.executeCommand(action, params);
-            
-            // Send response
-            sendCommandResponse(commandId, action, result);
-            
-        } catch (JSONException e) {
-            Log.e(TAG, "Error parsing command", e);
+    private void handleCommand(final Socket origin, final DeviceProtocol.Command command) {
+        // Command biasa (urgent) langsung dijalankan. Command yang ditandai
+        // server "deferrable" ikut batch WorkScheduler berikutnya.
+        final Runnable execute = new Runnable() {
+            @Override
+            public void run() {
+                executeAndRespond(origin, command);
+            }
+        };
+        if (command.deferrable) {
+            WorkScheduler.getInstance(context).runDeferred("command_" + command.commandId, command.maxDelayMs, new Runnable() {
+                @Override
+                public void run() {
+                    backgroundExecutor.execute(execute);
+                }
+            });
+            return;
         }
+        if (BLOCKING_ACTIONS.contains(command.action)) {
+            // Response dikirim begitu selesai, dari thread background
+            backgroundExecutor.execute(execute);
+            return;
+        }
+        execute.run();
     }
     
-    private void sendCommandResponse(String commandId, String action, CommandResult result) {
+    private void executeAndRespond(Socket origin, DeviceProtocol.Command command) {
+        beginCommand(origin);
         try {
-            JSONObject response = new JSONObject();
-            response.put("commandId", commandId);
-            response.put("action", action);
-            response.put("success", result.isSuccess());
-            response.put("message", result.getMessage());
-            response.put("result", result.getData());
-            
-            socket.emit("command_response", response);
-            Log.d(TAG, "Sent command response: " + response.toString());
-            
+            JSONObject response = DeviceProtocol.execute(command, commandHandler, clockOffset);
+            responseSocket(origin).emit(DeviceProtocol.EVENT_COMMAND_RESPONSE, response);
+            commandRecorder.record(command, response);
+            AppLog.d(TAG, "Sent command response {} success={}", command.commandId, response.optBoolean("success"));
         } catch (JSONException e) {
-            Log.e(TAG, "Error creating command response", e);
+            AppLog.e(TAG, "Error creating command response", e);
+        } finally {
+            endCommand(origin);
         }
     }
     
-    public void connect() {
-        if (socket != null && !socket.connected()) {
+    /**
+     * Response dikirim lewat socket asal command (server yang menunggu),
+     * kecuali socket itu sudah ditutup
+     */
+    private synchronized Socket responseSocket(Socket origin) {
+        return origin == socket || draining.containsKey(origin) ? origin : socket;
+    }
+    
+    private synchronized void beginCommand(Socket origin) {
+        Integer count = inFlight.get(origin);
+        inFlight.put(origin, count == null ? 1 : count + 1);
+    }
+    
+    private synchronized void endCommand(Socket origin) {
+        Integer count = inFlight.get(origin);
+        if (count == null || count <= 1) {
+            inFlight.remove(origin);
+            Runnable close = draining.get(origin);
+            if (close != null) {
+                close.run();
+            }
+        } else {
+            inFlight.put(origin, count - 1);
+        }
+    }
+    
+    /**
+     * Reconnect langsung saat jaringan kembali, tanpa menunggu backoff
+     * socket.io (yang bisa sudah menyerah setelah RECONNECTION_ATTEMPTS).
+     * Jika default network berpindah (misal WiFi ke seluler), koneksi lama
+     * terikat ke network yang sudah mati, jadi diputus dan dibuka ulang.
+     */
+    private void handleNetworkChange(NetworkStateMonitor.State previous, NetworkStateMonitor.State current) {
+        Socket active = socket;
+        if (active == null) {
+            return;
+        }
+        if (!current.connected) {
+            AppLog.i(TAG, "Network lost, waiting for connectivity");
+            if (statusCallback != null) {
+                statusCallback.onStatusChange("Waiting for network...");
+            }
+            return;
+        }
+        
+        if (!active.connected()) {
+            AppLog.i(TAG, "Network available ({}), reconnecting", current.transport);
+            active.connect();
+        } else if (previous.connected && previous.network != null && !previous.network.equals(current.network)) {
+            AppLog.i(TAG, "Default network switched to {}, reopening connection", current.transport);
+            active.disconnect();
+            active.connect();
+            // RTT tiap endpoint berubah mengikuti network baru
+            endpointSelector.probeAsync();
+        }
+    }
+    
+    /**
+     * Pindah ke endpoint lain (failover, rebalance atau ServerConfig berubah).
+     * Hanya socket yang dibuat ulang; CommandHandler dan listener tetap
+     * dipakai. Socket lama berhenti menerima command tetapi tetap terbuka
+     * sampai response command yang sedang berjalan terkirim.
+     */
+    private synchronized void switchEndpoint(String url) {
+        if (url.equals(currentUrl)) {
+            return;
+        }
+        AppLog.i(TAG, "Switching endpoint {} -> {}", currentUrl, url);
+        if (socket != null) {
+            retireSocket(socket);
+        }
+        isConnected = false;
+        initSocket();
+        if (socket != null) {
             socket.connect();
             if (statusCallback != null) {
                 statusCallback.onStatusChange("Connecting...");
@@ -216,26 +374,122 @@ public class WebSocketClient {
         }
     }
     
+    private void retireSocket(final Socket old) {
+        old.off();
+        if (!inFlight.containsKey(old)) {
+            old.close();
+            return;
+        }
+        
+        final Runnable close = new Runnable() {
+            private boolean closed;
+            
+            @Override
+            public void run() {
+                synchronized (WebSocketClient.this) {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    draining.remove(old);
+                    drainHandler.removeCallbacks(this);
+                }
+                AppLog.d(TAG, "Drained old connection");
+                // close() engine.io menunggu write buffer terkirim
+                old.close();
+            }
+        };
+        draining.put(old, close);
+        drainHandler.postDelayed(close, DRAIN_TIMEOUT_MS);
+        AppLog.i(TAG, "Draining {} in-flight command(s) on old connection", inFlight.get(old));
+    }
+    
+    public void setRegistrationListener(RegistrationListener listener) {
+        this.registrationListener = listener;
+    }
+    
+    public CommandHandler getCommandHandler() {
+        return commandHandler;
+    }
+    
+    public void connect() {
+        capabilities.addListener(capabilitiesListener);
+        networkMonitor.addListener(networkListener);
+        endpointSelector.addListener(endpointListener);
+        // Config bisa berubah saat client belum terhubung
+        String preferred = endpointSelector.select();
+        if (!preferred.equals(currentUrl)) {
+            switchEndpoint(preferred);
+            return;
+        }
+        Socket active = socket;
+        if (active != null && !active.connected()) {
+            active.connect();
+            if (statusCallback != null) {
+                statusCallback.onStatusChange("Connecting...");
+            }
+        }
+    }
+    
     public void disconnect() {
-        if (socket != null && socket.connected()) {
-            socket.disconnect();
+        capabilities.removeListener(capabilitiesListener);
+        networkMonitor.removeListener(networkListener);
+        endpointSelector.removeListener(endpointListener);
+        Socket active = socket;
+        if (active != null && active.connected()) {
+            active.disconnect();
         }
         isConnected = false;
     }
     
     public boolean isConnected() {
-        return socket != null && socket.connected() && isConnected;
+        Socket active = socket;
+        return active != null && active.connected() && isConnected;
     }
     
-    public void sendHeartbeat() {
-        if (socket != null && socket.connected()) {
-            socket.emit("heartbeat");
+    /**
+     * Payload diambil dari encoder milik pemanggil yang dipakai ulang setiap heartbeat
+     */
+    public void sendHeartbeat(DeviceStatusEncoder encoder) {
+        Socket active = socket;
+        if (active != null && active.connected()) {
+            try {
+                lastHeartbeatSentAt = System.currentTimeMillis();
+                active.emit(DeviceProtocol.EVENT_HEARTBEAT, encoder.heartbeat(lastHeartbeatSentAt));
+            } catch (JSONException e) {
+                AppLog.e(TAG, "Error creating heartbeat", e);
+            }
         }
     }
     
     public void sendStatusUpdate(JSONObject status) {
-        if (socket != null && socket.connected()) {
-            socket.emit("status_update", status);
+        Socket active = socket;
+        if (active != null && active.connected()) {
+            active.emit(DeviceProtocol.EVENT_STATUS_UPDATE, status);
+        }
+    }
+    
+    /**
+     * Kirim manifest kemampuan terbaru saat izin/status admin berubah
+     */
+    private void sendCapabilities(DeviceCapabilities changed) {
+        Socket active = socket;
+        if (active != null && active.connected()) {
+            try {
+                active.emit(DeviceProtocol.EVENT_CAPABILITIES_UPDATE, changed.toJson());
+            } catch (JSONException e) {
+                AppLog.e(TAG, "Error creating capabilities update", e);
+            }
+        }
+    }
+    
+    /**
+     * Kirim hasil pengukuran startup (boot-to-registered, durasi tiap tahap)
+     */
+    public void sendStartupMetrics(JSONObject metrics) {
+        Socket active = socket;
+        if (active != null && active.connected()) {
+            active.emit(DeviceProtocol.EVENT_STARTUP_METRICS, metrics);
         }
     }
     
@@ -243,9 +497,10 @@ public class WebSocketClient {
      * Send notification data to server
      */
     public void sendNotification(JSONObject notificationData) {
-        if (socket != null && socket.connected()) {
-            socket.emit("notification_event", notificationData);
-            Log.d(TAG, "Sent notification data to server");
+        Socket active = socket;
+        if (active != null && active.connected()) {
+            active.emit(DeviceProtocol.EVENT_NOTIFICATION, notificationData);
+            AppLog.d(TAG, "Sent notification data to server");
         }
     }
 }
\ No newline at end of file
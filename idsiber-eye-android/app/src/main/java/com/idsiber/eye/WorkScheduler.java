@@ -0,0 +1,317 @@
+package com.idsiber.eye;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Penjadwal kerja berkala di dalam client (heartbeat, sampler, indeks).
+ *
+ * Task "urgent" selalu jalan tepat waktu. Task "deferrable" ditunda selama
+ * kondisi tidak mendukung (Doze, battery saver, baterai lemah tanpa
+ * charging) sampai kondisi membaik atau batas maxDefer terlewati. Saat
+ * satu task jalan, task deferrable lain yang jatuh tempo dalam FLEX_RATIO
+ * interval ikut dijalankan di tick yang sama. Perubahan kondisi
+ * (charger dipasang, keluar dari Doze) langsung menjalankan task yang
+ * tertunda dalam satu batch.
+ *
+ * Tick memakai Handler.postDelayed (jam uptime) dan tidak membangunkan
+ * device yang tidur: selama CPU tidur tidak ada task yang jalan, dan task
+ * yang terlewat digabung menjadi satu run di tick berikutnya. Statistik
+ * "ticks" menghitung tick Handler, bukan wakeup device.
+ *
+ * Semua task dijalankan di satu thread; task berat sebaiknya mem-post
+ * pekerjaannya ke thread komponen sendiri.
+ */
+public class WorkScheduler {
+    private static final String TAG = "WorkScheduler";
+    // Task deferrable boleh jalan lebih awal maksimal 1/4 interval untuk ikut batch
+    private static final int FLEX_RATIO = 4;
+    private static final int LOW_BATTERY_PERCENT = 15;
+
+    private static WorkScheduler instance;
+
+    private static class Task {
+        final String name;
+        final long intervalMs;
+        final long maxDeferMs;
+        final Runnable runnable;
+        long dueAt;
+        int runs;
+        int deferredRuns;
+
+        Task(String name, long intervalMs, long maxDeferMs, Runnable runnable) {
+            this.name = name;
+            this.intervalMs = intervalMs;
+            this.maxDeferMs = maxDeferMs;
+            this.runnable = runnable;
+        }
+
+        boolean isUrgent() {
+            return maxDeferMs == 0;
+        }
+
+        boolean isOneShot() {
+            return intervalMs == 0;
+        }
+    }
+
+    private final Context context;
+    private final PowerManager powerManager;
+    private final BatteryManager batteryManager;
+    private final List<Task> tasks = new ArrayList<>();
+
+    private HandlerThread thread;
+    private Handler handler;
+    private BroadcastReceiver conditionReceiver;
+
+    // Statistik sejak start()
+    private int ticks;
+    private int taskRuns;
+    private int skippedIntervals;
+    private boolean favorable = true;
+
+    private final Runnable tick = new Runnable() {
+        @Override
+        public void run() {
+            runDueTasks();
+        }
+    };
+
+    private WorkScheduler(Context context) {
+        this.context = context;
+        this.powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        this.batteryManager = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+    }
+
+    public static synchronized WorkScheduler getInstance(Context context) {
+        if (instance == null) {
+            instance = new WorkScheduler(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_POWER_CONNECTED);
+        filter.addAction(Intent.ACTION_POWER_DISCONNECTED);
+        filter.addAction(Intent.ACTION_BATTERY_LOW);
+        filter.addAction(Intent.ACTION_BATTERY_OKAY);
+        filter.addAction(PowerManager.ACTION_DEVICE_IDLE_MODE_CHANGED);
+        filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        conditionReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                // Jendela maintenance/charging: jalankan yang tertunda sekaligus
+                runDueTasks();
+            }
+        };
+        context.registerReceiver(conditionReceiver, filter, null, handler);
+        reschedule();
+    }
+
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        context.unregisterReceiver(conditionReceiver);
+        handler.removeCallbacksAndMessages(null);
+        thread.quitSafely();
+        thread = null;
+        handler = null;
+        conditionReceiver = null;
+    }
+
+    /**
+     * Task berkala yang selalu jalan tepat waktu
+     */
+    public void scheduleUrgent(String name, long initialDelayMs, long intervalMs, Runnable task) {
+        add(new Task(name, intervalMs, 0, task), initialDelayMs);
+    }
+
+    /**
+     * Task berkala yang boleh ditunda sampai maxDeferMs setelah jatuh tempo
+     * selama kondisi tidak mendukung
+     */
+    public void scheduleDeferrable(String name, long initialDelayMs, long intervalMs, long maxDeferMs, Runnable task) {
+        add(new Task(name, intervalMs, Math.max(maxDeferMs, 1), task), initialDelayMs);
+    }
+
+    /**
+     * Task sekali jalan yang ikut batch berikutnya, paling lambat maxDelayMs
+     */
+    public void runDeferred(String name, long maxDelayMs, Runnable task) {
+        add(new Task(name, 0, Math.max(maxDelayMs, 1), task), 0);
+    }
+
+    public synchronized void cancel(String name) {
+        Iterator<Task> iterator = tasks.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().name.equals(name)) {
+                iterator.remove();
+            }
+        }
+        reschedule();
+    }
+
+    private synchronized void add(Task task, long initialDelayMs) {
+        for (Task existing : tasks) {
+            if (existing.name.equals(task.name)) {
+                tasks.remove(existing);
+                break;
+            }
+        }
+        task.dueAt = SystemClock.elapsedRealtime() + initialDelayMs;
+        tasks.add(task);
+        reschedule();
+    }
+
+    /**
+     * Kondisi baik untuk kerja yang bisa ditunda: sedang charging, atau
+     * tidak Doze, tidak battery saver dan baterai tidak lemah
+     */
+    private boolean isFavorable() {
+        if (batteryManager != null && batteryManager.isCharging()) {
+            return true;
+        }
+        if (powerManager != null && (powerManager.isDeviceIdleMode() || powerManager.isPowerSaveMode())) {
+            return false;
+        }
+        int level = batteryManager != null
+            ? batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY) : 100;
+        return level <= 0 || level > LOW_BATTERY_PERCENT;
+    }
+
+    private void runDueTasks() {
+        List<Task> batch = new ArrayList<>();
+        synchronized (this) {
+            if (handler == null) {
+                return;
+            }
+            long now = SystemClock.elapsedRealtime();
+            favorable = isFavorable();
+
+            boolean anyDue = false;
+            for (Task task : tasks) {
+                if (isDue(task, now)) {
+                    batch.add(task);
+                    anyDue = true;
+                }
+            }
+            // Tick sudah terjadi: ikutkan task deferrable yang hampir jatuh tempo
+            if (anyDue && favorable) {
+                for (Task task : tasks) {
+                    if (!batch.contains(task) && !task.isUrgent() && !task.isOneShot()
+                            && now >= task.dueAt - task.intervalMs / FLEX_RATIO) {
+                        batch.add(task);
+                    }
+                }
+            }
+
+            for (Task task : batch) {
+                if (task.isOneShot()) {
+                    tasks.remove(task);
+                    continue;
+                }
+                // Interval yang terlewat selama ditunda digabung menjadi satu run
+                long late = now - task.dueAt;
+                if (late >= task.intervalMs) {
+                    int missed = (int) (late / task.intervalMs);
+                    skippedIntervals += missed;
+                    task.deferredRuns++;
+                    task.dueAt += (long) missed * task.intervalMs;
+                }
+                task.dueAt += task.intervalMs;
+                task.runs++;
+            }
+            if (!batch.isEmpty()) {
+                ticks++;
+                taskRuns += batch.size();
+            }
+        }
+
+        for (Task task : batch) {
+            try {
+                task.runnable.run();
+            } catch (Exception e) {
+                AppLog.e(TAG, "Task " + task.name + " failed", e);
+            }
+        }
+
+        reschedule();
+    }
+
+    private boolean isDue(Task task, long now) {
+        if (task.isUrgent() || favorable) {
+            return now >= task.dueAt;
+        }
+        return now >= task.dueAt + task.maxDeferMs;
+    }
+
+    /**
+     * Pasang satu tick untuk task terdekat sesuai kondisi saat ini
+     */
+    private synchronized void reschedule() {
+        if (handler == null) {
+            return;
+        }
+        handler.removeCallbacks(tick);
+        if (tasks.isEmpty()) {
+            return;
+        }
+        long next = Long.MAX_VALUE;
+        for (Task task : tasks) {
+            long at = task.isUrgent() || favorable ? task.dueAt : task.dueAt + task.maxDeferMs;
+            next = Math.min(next, at);
+        }
+        handler.postDelayed(tick, Math.max(0, next - SystemClock.elapsedRealtime()));
+    }
+
+    public synchronized JSONObject toJson() throws JSONException {
+        long now = SystemClock.elapsedRealtime();
+        JSONArray list = new JSONArray();
+        for (Task task : tasks) {
+            JSONObject json = new JSONObject();
+            json.put("name", task.name);
+            json.put("urgent", task.isUrgent());
+            json.put("interval_ms", task.intervalMs);
+            json.put("max_defer_ms", task.maxDeferMs);
+            json.put("due_in_ms", task.dueAt - now);
+            json.put("runs", task.runs);
+            json.put("deferred_runs", task.deferredRuns);
+            list.put(json);
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("tasks", list);
+        result.put("favorable", favorable);
+        result.put("ticks", ticks);
+        result.put("task_runs", taskRuns);
+        // Tanpa batching setiap run butuh tick sendiri, dan setiap interval
+        // yang digabung saat ditunda juga akan menjadi run
+        result.put("ticks_saved", taskRuns - ticks + skippedIntervals);
+        return result;
+    }
+}
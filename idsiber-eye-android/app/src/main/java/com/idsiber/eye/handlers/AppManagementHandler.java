@@ -8,13 +8,19 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.util.Log;
 
+import com.idsiber.eye.AppCategoryIndex;
+import com.idsiber.eye.AppLog;
 import com.idsiber.eye.CommandResult;
+import com.idsiber.eye.DeviceCapabilities;
 import com.idsiber.eye.IdSiberDeviceAdminReceiver;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Handler untuk manajemen aplikasi - install, uninstall, enable, disable, block, dll
@@ -22,106 +28,180 @@ import java.util.List;
 public class AppManagementHandler {
     private static final String TAG = "AppManagementHandler";
     private Context context;
+    private DeviceCapabilities capabilities;
     private DevicePolicyManager devicePolicyManager;
     private ComponentName deviceAdminReceiver;
 
     public AppManagementHandler(Context context) {
         this.context = context;
+        this.capabilities = DeviceCapabilities.getInstance(context);
         this.devicePolicyManager = (DevicePolicyManager) 
             context.getSystemService(Context.DEVICE_POLICY_SERVICE);
         this.deviceAdminReceiver = new ComponentName(context, IdSiberDeviceAdminReceiver.class);
     }
 
-    public CommandResult getInstalledApps() {
+    public CommandResult blockApps(JSONObject params) {
+        return setAppsHidden(params, true);
+    }
+    
+    public CommandResult unblockApps(JSONObject params) {
+        return setAppsHidden(params, false);
+    }
+    
+    /**
+     * Block/unblock banyak aplikasi sekaligus berdasarkan "packages" dan/atau
+     * "category" (lihat AppCategoryIndex). Paket yang statusnya sudah sesuai
+     * tidak ditulis ulang. Jika rollback aktif (default), kegagalan pertama
+     * menghentikan proses dan perubahan yang sudah diterapkan dikembalikan,
+     * sehingga hasilnya semua atau tidak sama sekali.
+     */
+    private CommandResult setAppsHidden(JSONObject params, boolean hidden) {
+        String verb = hidden ? "block" : "unblock";
         try {
-            PackageManager pm = context.getPackageManager();
-            List<ApplicationInfo> apps = pm.getInstalledApplications(PackageManager.GET_META_DATA);
+            if (!capabilities.isAdminActive()) {
+                return new CommandResult(false, "Device admin permission required", null);
+            }
             
-            JSONArray appList = new JSONArray();
-            int userApps = 0;
+            AppCategoryIndex categoryIndex = AppCategoryIndex.getInstance(context);
+            boolean includeSystem = params.optBoolean("include_system", false);
+            boolean rollback = params.optBoolean("rollback", true);
             
-            for (ApplicationInfo app : apps) {
-                try {
-                    JSONObject appInfo = new JSONObject();
-                    appInfo.put("package_name", app.packageName);
-                    appInfo.put("app_name", pm.getApplicationLabel(app).toString());
-                    appInfo.put("is_system", (app.flags & ApplicationInfo.FLAG_SYSTEM) != 0);
-                    appInfo.put("enabled", app.enabled);
-                    appInfo.put("uid", app.uid);
-                    appInfo.put("target_sdk", app.targetSdkVersion);
-                    
-                    try {
-                        String versionName = pm.getPackageInfo(app.packageName, 0).versionName;
-                        int versionCode = pm.getPackageInfo(app.packageName, 0).versionCode;
-                        appInfo.put("version_name", versionName != null ? versionName : "Unknown");
-                        appInfo.put("version_code", versionCode);
-                    } catch (Exception e) {
-                        appInfo.put("version_name", "Unknown");
-                        appInfo.put("version_code", 0);
-                    }
-                    
-                    appList.put(appInfo);
-                    
-                    if ((app.flags & ApplicationInfo.FLAG_SYSTEM) == 0) {
-                        userApps++;
+            Set<String> targets = new LinkedHashSet<>();
+            JSONArray packageList = params.optJSONArray("packages");
+            if (packageList != null) {
+                for (int i = 0; i < packageList.length(); i++) {
+                    targets.add(packageList.getString(i));
+                }
+            }
+            JSONArray categoryList = params.optJSONArray("category");
+            if (categoryList == null && params.has("category")) {
+                categoryList = new JSONArray().put(params.getString("category"));
+            }
+            if (categoryList != null) {
+                for (int i = 0; i < categoryList.length(); i++) {
+                    String category = categoryList.getString(i);
+                    if (!AppCategoryIndex.isKnownCategory(category)) {
+                        return new CommandResult(false, "Unknown category: " + category, null);
                     }
-                } catch (Exception appError) {
-                    Log.w(TAG, "Error processing app: " + app.packageName);
+                    targets.addAll(categoryIndex.resolve(category, includeSystem));
                 }
             }
+            JSONArray excludeList = params.optJSONArray("exclude");
+            if (excludeList != null) {
+                for (int i = 0; i < excludeList.length(); i++) {
+                    targets.remove(excludeList.getString(i));
+                }
+            }
+            // Jangan pernah menyembunyikan aplikasi ini sendiri
+            targets.remove(context.getPackageName());
             
-            JSONObject result = new JSONObject();
-            result.put("apps", appList);
-            result.put("total_apps", appList.length());
-            result.put("user_apps", userApps);
-            result.put("system_apps", appList.length() - userApps);
-            
-            return new CommandResult(true, "Found " + appList.length() + " installed apps", result.toString());
+            if (targets.isEmpty()) {
+                return new CommandResult(false, "No packages matched the selector", null);
+            }
             
-        } catch (Exception e) {
-            return new CommandResult(false, "Failed to get installed apps: " + e.getMessage(), null);
-        }
-    }
-
-    public CommandResult blockApp(JSONObject params) {
-        try {
-            String packageName = params.getString("package_name");
+            String[] packages = targets.toArray(new String[0]);
+            String[] statuses = new String[packages.length];
+            String[] errors = new String[packages.length];
+            List<Integer> applied = new ArrayList<>();
+            int failed = 0;
+            int unchanged = 0;
             
-            if (devicePolicyManager.isAdminActive(deviceAdminReceiver)) {
+            for (int i = 0; i < packages.length; i++) {
+                if (failed > 0 && rollback) {
+                    statuses[i] = "skipped";
+                    continue;
+                }
+                if (categoryIndex.getCategory(packages[i]) == null) {
+                    statuses[i] = "not_installed";
+                    continue;
+                }
                 try {
-                    // Try to disable the application
-                    devicePolicyManager.setApplicationHidden(deviceAdminReceiver, packageName, true);
-                    return new CommandResult(true, "App blocked: " + packageName, null);
+                    if (devicePolicyManager.isApplicationHidden(deviceAdminReceiver, packages[i]) == hidden) {
+                        statuses[i] = "unchanged";
+                        unchanged++;
+                    } else if (devicePolicyManager.setApplicationHidden(deviceAdminReceiver, packages[i], hidden)) {
+                        statuses[i] = hidden ? "blocked" : "unblocked";
+                        applied.add(i);
+                    } else {
+                        statuses[i] = "failed";
+                        failed++;
+                    }
+                } catch (SecurityException e) {
+                    statuses[i] = "failed";
+                    errors[i] = "Requires device owner permissions";
+                    failed++;
                 } catch (Exception e) {
-                    Log.w(TAG, "Device admin block failed, app may require device owner permissions");
-                    return new CommandResult(false, "App blocking requires device owner permissions", null);
+                    statuses[i] = "failed";
+                    errors[i] = e.getMessage();
+                    failed++;
                 }
-            } else {
-                return new CommandResult(false, "Device admin permission required", null);
             }
+            
+            int rolledBack = 0;
+            int rollbackFailed = 0;
+            if (failed > 0 && rollback) {
+                // Kembalikan dalam urutan terbalik
+                for (int j = applied.size() - 1; j >= 0; j--) {
+                    int i = applied.get(j);
+                    try {
+                        if (devicePolicyManager.setApplicationHidden(deviceAdminReceiver, packages[i], !hidden)) {
+                            statuses[i] = "rolled_back";
+                            rolledBack++;
+                        } else {
+                            statuses[i] = "rollback_failed";
+                            rollbackFailed++;
+                        }
+                    } catch (Exception e) {
+                        statuses[i] = "rollback_failed";
+                        errors[i] = e.getMessage();
+                        rollbackFailed++;
+                    }
+                }
+            }
+            
+            JSONArray results = new JSONArray();
+            for (int i = 0; i < packages.length; i++) {
+                JSONObject entry = new JSONObject();
+                entry.put("package_name", packages[i]);
+                entry.put("status", statuses[i]);
+                if (errors[i] != null) {
+                    entry.put("error", errors[i]);
+                }
+                results.put(entry);
+            }
+            
+            JSONObject result = new JSONObject();
+            result.put("results", results);
+            result.put("matched", packages.length);
+            result.put("changed", applied.size() - rolledBack);
+            result.put("unchanged", unchanged);
+            result.put("failed", failed);
+            result.put("rolled_back", rolledBack);
+            result.put("rollback_failed", rollbackFailed);
+            
+            if (failed > 0) {
+                AppLog.w(TAG, "Bulk {} failed for {} packages", verb, failed);
+                String message = rollback
+                    ? "Bulk " + verb + " failed, " + rolledBack + " changes rolled back"
+                        + (rollbackFailed > 0 ? ", " + rollbackFailed + " could not be rolled back" : "")
+                    : "Bulk " + verb + " partially applied (" + failed + " failed)";
+                return new CommandResult(false, message, result.toString());
+            }
+            return new CommandResult(true, "Bulk " + verb + ": " + applied.size() + " changed, "
+                + unchanged + " unchanged", result.toString());
         } catch (Exception e) {
-            return new CommandResult(false, "Failed to block app: " + e.getMessage(), null);
+            return new CommandResult(false, "Failed to " + verb + " apps: " + e.getMessage(), null);
         }
     }
     
-    public CommandResult unblockApp(JSONObject params) {
+    public CommandResult getAppCategories(JSONObject params) {
         try {
-            String packageName = params.getString("package_name");
-            
-            if (devicePolicyManager.isAdminActive(deviceAdminReceiver)) {
-                try {
-                    // Try to enable the application
-                    devicePolicyManager.setApplicationHidden(deviceAdminReceiver, packageName, false);
-                    return new CommandResult(true, "App unblocked: " + packageName, null);
-                } catch (Exception e) {
-                    Log.w(TAG, "Device admin unblock failed");
-                    return new CommandResult(false, "App unblocking requires device owner permissions", null);
-                }
-            } else {
-                return new CommandResult(false, "Device admin permission required", null);
-            }
+            boolean includePackages = params != null && params.optBoolean("include_packages", false);
+            JSONObject result = new JSONObject();
+            result.put("categories", AppCategoryIndex.getInstance(context).getSummaryJson(includePackages));
+            return new CommandResult(true, "App categories retrieved", result.toString());
         } catch (Exception e) {
-            return new CommandResult(false, "Failed to unblock app: " + e.getMessage(), null);
+            return new CommandResult(false, "Failed to get app categories: " + e.getMessage(), null);
         }
     }
 
@@ -148,7 +228,7 @@ public class AppManagementHandler {
         try {
             String packageName = params.getString("package_name");
             
-            if (devicePolicyManager.isAdminActive(deviceAdminReceiver)) {
+            if (capabilities.isAdminActive()) {
                 try {
                     // Use device admin to force stop
                     ActivityManager activityManager = (ActivityManager) 
@@ -180,7 +260,7 @@ public class AppManagementHandler {
         try {
             String packageName = params.getString("package_name");
             
-            if (devicePolicyManager.isAdminActive(deviceAdminReceiver)) {
+            if (capabilities.isAdminActive()) {
                 try {
                     PackageManager pm = context.getPackageManager();
                     pm.setApplicationEnabledSetting(packageName,
@@ -203,7 +283,7 @@ public class AppManagementHandler {
         try {
             String packageName = params.getString("package_name");
             
-            if (devicePolicyManager.isAdminActive(deviceAdminReceiver)) {
+            if (capabilities.isAdminActive()) {
                 try {
                     PackageManager pm = context.getPackageManager();
                     pm.setApplicationEnabledSetting(packageName,
@@ -226,7 +306,7 @@ public class AppManagementHandler {
         try {
             String packageName = params.getString("package_name");
             
-            if (devicePolicyManager.isAdminActive(deviceAdminReceiver)) {
+            if (capabilities.isAdminActive()) {
                 try {
                     // This requires device owner permissions
                     return new CommandResult(false, "Clear app data requires device owner permissions", null);
@@ -243,7 +323,7 @@ public class AppManagementHandler {
 
     public CommandResult wipeDevice(JSONObject params) {
         try {
-            if (!devicePolicyManager.isAdminActive(deviceAdminReceiver)) {
+            if (!capabilities.isAdminActive()) {
                 return new CommandResult(false, "Device admin permission required", null);
             }
             
@@ -3,16 +3,15 @@ package com.idsiber.eye.handlers;
 import android.app.admin.DevicePolicyManager;
 import android.content.ComponentName;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
 import android.media.AudioManager;
-import android.os.BatteryManager;
 import android.os.Build;
 import android.provider.Settings;
 import android.util.Log;
 import android.view.WindowManager;
 
 import com.idsiber.eye.CommandResult;
+import com.idsiber.eye.DeviceCapabilities;
+import com.idsiber.eye.DeviceProfiles;
 import com.idsiber.eye.IdSiberDeviceAdminReceiver;
 
 import org.json.JSONObject;
@@ -23,44 +22,25 @@ import org.json.JSONObject;
 public class DeviceControlHandler {
     private static final String TAG = "DeviceControlHandler";
     private Context context;
+    private DeviceCapabilities capabilities;
     private DevicePolicyManager devicePolicyManager;
     private ComponentName deviceAdminReceiver;
 
     public DeviceControlHandler(Context context) {
         this.context = context;
+        this.capabilities = DeviceCapabilities.getInstance(context);
         this.devicePolicyManager = (DevicePolicyManager) 
             context.getSystemService(Context.DEVICE_POLICY_SERVICE);
         this.deviceAdminReceiver = new ComponentName(context, IdSiberDeviceAdminReceiver.class);
     }
 
-    public CommandResult lockScreen(JSONObject params) {
-        try {
-            if (devicePolicyManager.isAdminActive(deviceAdminReceiver)) {
-                devicePolicyManager.lockNow();
-                
-                int duration = 0;
-                if (params != null && params.has("duration")) {
-                    duration = params.getInt("duration");
-                    Log.d(TAG, "Screen locked for " + duration + " minutes");
-                }
-                
-                return new CommandResult(true, "Screen locked successfully" + 
-                    (duration > 0 ? " for " + duration + " minutes" : ""), null);
-            } else {
-                return new CommandResult(false, "Device admin permission required", null);
-            }
-        } catch (Exception e) {
-            return new CommandResult(false, "Failed to lock screen: " + e.getMessage(), null);
-        }
-    }
-
     public CommandResult unlockScreen() {
         return new CommandResult(false, "Unlock not supported by Android security policy", null);
     }
 
     public CommandResult rebootDevice() {
         try {
-            if (devicePolicyManager.isAdminActive(deviceAdminReceiver)) {
+            if (capabilities.isAdminActive()) {
                 try {
                     // Try with device admin first
                     devicePolicyManager.reboot(deviceAdminReceiver);
@@ -171,7 +151,7 @@ public class DeviceControlHandler {
 
             // Check if we can modify system settings
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                if (!Settings.System.canWrite(context)) {
+                if (!capabilities.canWriteSettings()) {
                     return new CommandResult(false, "Write settings permission required", null);
                 }
             }
@@ -201,7 +181,7 @@ public class DeviceControlHandler {
             int timeoutMs = timeoutMinutes * 60 * 1000; // Convert to milliseconds
 
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                if (!Settings.System.canWrite(context)) {
+                if (!capabilities.canWriteSettings()) {
                     return new CommandResult(false, "Write settings permission required", null);
                 }
             }
@@ -219,39 +199,66 @@ public class DeviceControlHandler {
         }
     }
 
-    public CommandResult getBatteryStatus() {
+    public CommandResult saveProfile(JSONObject params) {
         try {
-            Intent batteryIntent = context.registerReceiver(null,
-                new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+            String name = params.getString("name");
+            DeviceProfiles.getInstance(context).save(name, params.getJSONObject("settings"));
+            return new CommandResult(true, "Profile saved: " + name, null);
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to save profile: " + e.getMessage(), null);
+        }
+    }
 
-            if (batteryIntent == null) {
-                return new CommandResult(false, "Cannot access battery information", null);
+    public CommandResult deleteProfile(JSONObject params) {
+        try {
+            String name = params.getString("name");
+            if (!DeviceProfiles.getInstance(context).delete(name)) {
+                return new CommandResult(false, "Profile not found: " + name, null);
             }
+            return new CommandResult(true, "Profile deleted: " + name, null);
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to delete profile: " + e.getMessage(), null);
+        }
+    }
 
-            int level = batteryIntent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
-            int scale = batteryIntent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
-            int status = batteryIntent.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
-            int health = batteryIntent.getIntExtra(BatteryManager.EXTRA_HEALTH, -1);
-            int temperature = batteryIntent.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, -1);
-            int voltage = batteryIntent.getIntExtra(BatteryManager.EXTRA_VOLTAGE, -1);
-            String technology = batteryIntent.getStringExtra(BatteryManager.EXTRA_TECHNOLOGY);
-
-            float batteryPct = level * 100 / (float) scale;
-            boolean isCharging = status == BatteryManager.BATTERY_STATUS_CHARGING ||
-                               status == BatteryManager.BATTERY_STATUS_FULL;
-
-            JSONObject batteryInfo = new JSONObject();
-            batteryInfo.put("battery_level", (int) batteryPct);
-            batteryInfo.put("is_charging", isCharging);
-            batteryInfo.put("status", getBatteryStatusString(status));
-            batteryInfo.put("health", getBatteryHealthString(health));
-            batteryInfo.put("temperature", temperature / 10.0); // Convert from tenths of degree Celsius
-            batteryInfo.put("voltage", voltage / 1000.0); // Convert from mV to V
-            batteryInfo.put("technology", technology != null ? technology : "Unknown");
-
-            return new CommandResult(true, "Battery status retrieved", batteryInfo.toString());
+    public CommandResult listProfiles() {
+        try {
+            return new CommandResult(true, "Profiles retrieved", DeviceProfiles.getInstance(context).toJson().toString());
         } catch (Exception e) {
-            return new CommandResult(false, "Failed to get battery status: " + e.getMessage(), null);
+            return new CommandResult(false, "Failed to list profiles: " + e.getMessage(), null);
+        }
+    }
+
+    /**
+     * Terapkan profil tersimpan ("name") atau profil inline ("settings") dalam satu command
+     */
+    public CommandResult applyProfile(JSONObject params) {
+        try {
+            DeviceProfiles profiles = DeviceProfiles.getInstance(context);
+            JSONObject profile = params.optJSONObject("settings");
+            String name = params.optString("name", "inline");
+            if (profile == null) {
+                profile = profiles.get(name);
+                if (profile == null) {
+                    return new CommandResult(false, "Profile not found: " + name, null);
+                }
+            }
+
+            JSONObject result = profiles.apply(profile, params.optBoolean("snapshot", true));
+            result.put("profile", name);
+            return new CommandResult(true, "Profile applied: " + name + " ("
+                + result.getJSONArray("changed").length() + " changed)", result.toString());
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to apply profile: " + e.getMessage(), null);
+        }
+    }
+
+    public CommandResult restoreProfile() {
+        try {
+            JSONObject result = DeviceProfiles.getInstance(context).restore();
+            return new CommandResult(true, "Settings restored from snapshot", result.toString());
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to restore settings: " + e.getMessage(), null);
         }
     }
 
@@ -270,7 +277,7 @@ public class DeviceControlHandler {
             deviceInfo.put("fingerprint", Build.FINGERPRINT);
             deviceInfo.put("device_id", Settings.Secure.getString(
                 context.getContentResolver(), Settings.Secure.ANDROID_ID));
-            deviceInfo.put("device_admin_active", devicePolicyManager.isAdminActive(deviceAdminReceiver));
+            deviceInfo.put("device_admin_active", capabilities.isAdminActive());
 
             return new CommandResult(true, "Device info retrieved", deviceInfo.toString());
         } catch (Exception e) {
@@ -297,27 +304,4 @@ public class DeviceControlHandler {
         }
     }
 
-    private String getBatteryStatusString(int status) {
-        switch (status) {
-            case BatteryManager.BATTERY_STATUS_CHARGING: return "Charging";
-            case BatteryManager.BATTERY_STATUS_DISCHARGING: return "Discharging";
-            case BatteryManager.BATTERY_STATUS_FULL: return "Full";
-            case BatteryManager.BATTERY_STATUS_NOT_CHARGING: return "Not Charging";
-            case BatteryManager.BATTERY_STATUS_UNKNOWN: return "Unknown";
-            default: return "Unknown";
-        }
-    }
-
-    private String getBatteryHealthString(int health) {
-        switch (health) {
-            case BatteryManager.BATTERY_HEALTH_GOOD: return "Good";
-            case BatteryManager.BATTERY_HEALTH_OVERHEAT: return "Overheat";
-            case BatteryManager.BATTERY_HEALTH_DEAD: return "Dead";
-            case BatteryManager.BATTERY_HEALTH_OVER_VOLTAGE: return "Over Voltage";
-            case BatteryManager.BATTERY_HEALTH_UNSPECIFIED_FAILURE: return "Unspecified Failure";
-            case BatteryManager.BATTERY_HEALTH_COLD: return "Cold";
-            case BatteryManager.BATTERY_HEALTH_UNKNOWN: return "Unknown";
-            default: return "Unknown";
-        }
-    }
 }
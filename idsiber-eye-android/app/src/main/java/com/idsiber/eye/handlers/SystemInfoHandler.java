@@ -1,16 +1,18 @@
 package com.idsiber.eye.handlers;
 
 import android.app.ActivityManager;
-import android.app.usage.UsageStats;
-import android.app.usage.UsageStatsManager;
 import android.content.Context;
-import android.os.Build;
 import android.os.Environment;
 import android.os.StatFs;
 import android.text.format.Formatter;
 import android.util.Log;
 
 import com.idsiber.eye.CommandResult;
+import com.idsiber.eye.DeviceCapabilities;
+import com.idsiber.eye.ForegroundAppTracker;
+import com.idsiber.eye.ResourceSampler;
+import com.idsiber.eye.RunningProcessesEncoder;
+import com.idsiber.eye.StorageIndexer;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -19,13 +21,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
-import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 /**
  * Handler untuk informasi sistem seperti storage, memory, usage stats, dll
@@ -33,9 +29,11 @@ import java.util.TreeMap;
 public class SystemInfoHandler {
     private static final String TAG = "SystemInfoHandler";
     private Context context;
+    private DeviceCapabilities capabilities;
 
     public SystemInfoHandler(Context context) {
         this.context = context;
+        this.capabilities = DeviceCapabilities.getInstance(context);
     }
 
     public CommandResult getStorageInfo() {
@@ -134,83 +132,68 @@ public class SystemInfoHandler {
         }
     }
 
-    public CommandResult getUsageStats(JSONObject params) {
+    public CommandResult getAppStorage(JSONObject params) {
         try {
-            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
-                return new CommandResult(false, "Usage stats require Android 5.0+", null);
+            if (!StorageIndexer.isSupported()) {
+                return new CommandResult(false, "Per-app storage requires Android 8.0+", null);
             }
-
-            UsageStatsManager usageStatsManager = (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
-            if (usageStatsManager == null) {
-                return new CommandResult(false, "Usage stats manager not available", null);
+            if (!capabilities.hasUsageAccess()) {
+                return new CommandResult(false, "Usage access permission not granted", null);
             }
 
-            // Get time range (default: last 24 hours)
-            int days = params.optInt("days", 1);
-            Calendar calendar = Calendar.getInstance();
-            long endTime = calendar.getTimeInMillis();
-            calendar.add(Calendar.DAY_OF_YEAR, -days);
-            long startTime = calendar.getTimeInMillis();
-
-            List<UsageStats> usageStatsList = usageStatsManager.queryUsageStats(
-                UsageStatsManager.INTERVAL_DAILY, startTime, endTime);
-
-            if (usageStatsList.isEmpty()) {
-                return new CommandResult(false, "No usage stats available. Please grant usage access permission.", null);
+            int limit = 20;
+            String sortBy = "total";
+            if (params != null) {
+                limit = params.optInt("limit", limit);
+                sortBy = params.optString("sort_by", sortBy);
             }
 
-            // Sort by total time in foreground
-            SortedMap<Long, UsageStats> sortedStats = new TreeMap<>();
-            for (UsageStats usageStats : usageStatsList) {
-                if (usageStats.getTotalTimeInForeground() > 0) {
-                    sortedStats.put(usageStats.getTotalTimeInForeground(), usageStats);
-                }
+            JSONObject storage = StorageIndexer.getInstance(context).query(limit, sortBy);
+            return new CommandResult(true, "App storage retrieved", storage.toString());
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to get app storage: " + e.getMessage(), null);
+        }
+    }
+
+    public CommandResult getResourceHistory(JSONObject params) {
+        try {
+            String tier = "minute";
+            long from = 0;
+            long to = Long.MAX_VALUE;
+            JSONArray metrics = null;
+            if (params != null) {
+                tier = params.optString("tier", tier);
+                from = params.optLong("from", from);
+                to = params.optLong("to", to);
+                metrics = params.optJSONArray("metrics");
             }
 
-            JSONArray usageArray = new JSONArray();
-            long totalUsageTime = 0;
-            int maxApps = params.optInt("max_apps", 20);
-            int count = 0;
+            JSONObject history = ResourceSampler.getInstance(context).query(tier, from, to, metrics);
+            return new CommandResult(true, "Resource history retrieved", history.toString());
+        } catch (IllegalArgumentException e) {
+            return new CommandResult(false, e.getMessage(), null);
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to get resource history: " + e.getMessage(), null);
+        }
+    }
 
-            // Iterate in reverse order (most used first)
-            for (Map.Entry<Long, UsageStats> entry : sortedStats.entrySet()) {
-                if (count >= maxApps) break;
-                
-                UsageStats stats = entry.getValue();
-                JSONObject appUsage = new JSONObject();
-                
-                try {
-                    String appName = context.getPackageManager().getApplicationLabel(
-                        context.getPackageManager().getApplicationInfo(stats.getPackageName(), 0)).toString();
-                    appUsage.put("app_name", appName);
-                } catch (Exception e) {
-                    appUsage.put("app_name", stats.getPackageName());
-                }
-                
-                appUsage.put("package_name", stats.getPackageName());
-                appUsage.put("total_time_foreground", stats.getTotalTimeInForeground());
-                appUsage.put("total_time_readable", formatDuration(stats.getTotalTimeInForeground()));
-                appUsage.put("last_time_used", stats.getLastTimeUsed());
-                appUsage.put("last_time_used_readable", new Date(stats.getLastTimeUsed()).toString());
-                appUsage.put("first_time_stamp", stats.getFirstTimeStamp());
-                
-                usageArray.put(appUsage);
-                totalUsageTime += stats.getTotalTimeInForeground();
-                count++;
+    public CommandResult getAppSessions(JSONObject params) {
+        try {
+            if (!capabilities.hasUsageAccess()) {
+                return new CommandResult(false, "Usage access permission not granted", null);
             }
 
-            JSONObject result = new JSONObject();
-            result.put("usage_stats", usageArray);
-            result.put("total_apps", count);
-            result.put("total_usage_time", totalUsageTime);
-            result.put("total_usage_time_readable", formatDuration(totalUsageTime));
-            result.put("period_days", days);
-            result.put("start_time", startTime);
-            result.put("end_time", endTime);
+            int limit = 50;
+            long since = 0;
+            if (params != null) {
+                limit = params.optInt("limit", limit);
+                since = params.optLong("since", since);
+            }
 
-            return new CommandResult(true, "Usage stats retrieved for " + count + " apps", result.toString());
+            JSONObject sessions = ForegroundAppTracker.getInstance(context).getSessionsJson(limit, since);
+            return new CommandResult(true, "App sessions retrieved", sessions.toString());
         } catch (Exception e) {
-            return new CommandResult(false, "Failed to get usage stats: " + e.getMessage(), null);
+            return new CommandResult(false, "Failed to get app sessions: " + e.getMessage(), null);
         }
     }
 
@@ -223,58 +206,22 @@ public class SystemInfoHandler {
 
             List<ActivityManager.RunningAppProcessInfo> runningApps = activityManager.getRunningAppProcesses();
             
-            JSONArray processArray = new JSONArray();
+            RunningProcessesEncoder encoder = new RunningProcessesEncoder();
             
             if (runningApps != null) {
                 for (ActivityManager.RunningAppProcessInfo processInfo : runningApps) {
-                    JSONObject processObj = new JSONObject();
-                    processObj.put("process_name", processInfo.processName);
-                    processObj.put("pid", processInfo.pid);
-                    processObj.put("uid", processInfo.uid);
-                    processObj.put("importance", getImportanceString(processInfo.importance));
-                    processObj.put("importance_value", processInfo.importance);
-                    
-                    // Package names in this process
-                    JSONArray packageArray = new JSONArray();
-                    for (String pkg : processInfo.pkgList) {
-                        packageArray.put(pkg);
-                    }
-                    processObj.put("packages", packageArray);
-                    
-                    processArray.put(processObj);
+                    encoder.add(processInfo.processName, processInfo.pid, processInfo.uid,
+                        getImportanceString(processInfo.importance), processInfo.importance,
+                        processInfo.pkgList);
                 }
             }
 
-            JSONObject result = new JSONObject();
-            result.put("running_processes", processArray);
-            result.put("total_processes", processArray.length());
-
-            return new CommandResult(true, "Found " + processArray.length() + " running processes", result.toString());
+            return new CommandResult(true, "Found " + encoder.size() + " running processes", encoder.toJson().toString());
         } catch (Exception e) {
             return new CommandResult(false, "Failed to get running processes: " + e.getMessage(), null);
         }
     }
 
-    private String formatDuration(long milliseconds) {
-        long seconds = milliseconds / 1000;
-        long minutes = seconds / 60;
-        long hours = minutes / 60;
-        long days = hours / 24;
-        
-        if (days > 0) {
-            return String.format(Locale.getDefault(), "%dd %dh %dm %ds", 
-                days, hours % 24, minutes % 60, seconds % 60);
-        } else if (hours > 0) {
-            return String.format(Locale.getDefault(), "%dh %dm %ds", 
-                hours, minutes % 60, seconds % 60);
-        } else if (minutes > 0) {
-            return String.format(Locale.getDefault(), "%dm %ds", 
-                minutes, seconds % 60);
-        } else {
-            return String.format(Locale.getDefault(), "%ds", seconds);
-        }
-    }
-
     private String getImportanceString(int importance) {
         switch (importance) {
             case ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND:
@@ -0,0 +1,68 @@
+package com.idsiber.eye.platform;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+
+/**
+ * BatteryProvider dari sticky broadcast ACTION_BATTERY_CHANGED
+ */
+public class AndroidBatteryProvider implements BatteryProvider {
+    private static final IntentFilter BATTERY_FILTER = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+
+    private final Context context;
+
+    public AndroidBatteryProvider(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public BatteryState getBatteryState() {
+        Intent batteryIntent = context.registerReceiver(null, BATTERY_FILTER);
+        if (batteryIntent == null) {
+            return null;
+        }
+
+        int level = batteryIntent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = batteryIntent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        int status = batteryIntent.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        int health = batteryIntent.getIntExtra(BatteryManager.EXTRA_HEALTH, -1);
+        int temperature = batteryIntent.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, -1);
+        int voltage = batteryIntent.getIntExtra(BatteryManager.EXTRA_VOLTAGE, -1);
+
+        float batteryPct = level * 100 / (float) scale;
+        boolean isCharging = status == BatteryManager.BATTERY_STATUS_CHARGING ||
+                           status == BatteryManager.BATTERY_STATUS_FULL;
+
+        return new BatteryState((int) batteryPct, isCharging,
+            getBatteryStatusString(status), getBatteryHealthString(health),
+            temperature / 10.0, // Convert from tenths of degree Celsius
+            voltage / 1000.0, // Convert from mV to V
+            batteryIntent.getStringExtra(BatteryManager.EXTRA_TECHNOLOGY));
+    }
+
+    private String getBatteryStatusString(int status) {
+        switch (status) {
+            case BatteryManager.BATTERY_STATUS_CHARGING: return "Charging";
+            case BatteryManager.BATTERY_STATUS_DISCHARGING: return "Discharging";
+            case BatteryManager.BATTERY_STATUS_FULL: return "Full";
+            case BatteryManager.BATTERY_STATUS_NOT_CHARGING: return "Not Charging";
+            case BatteryManager.BATTERY_STATUS_UNKNOWN: return "Unknown";
+            default: return "Unknown";
+        }
+    }
+
+    private String getBatteryHealthString(int health) {
+        switch (health) {
+            case BatteryManager.BATTERY_HEALTH_GOOD: return "Good";
+            case BatteryManager.BATTERY_HEALTH_OVERHEAT: return "Overheat";
+            case BatteryManager.BATTERY_HEALTH_DEAD: return "Dead";
+            case BatteryManager.BATTERY_HEALTH_OVER_VOLTAGE: return "Over Voltage";
+            case BatteryManager.BATTERY_HEALTH_UNSPECIFIED_FAILURE: return "Unspecified Failure";
+            case BatteryManager.BATTERY_HEALTH_COLD: return "Cold";
+            case BatteryManager.BATTERY_HEALTH_UNKNOWN: return "Unknown";
+            default: return "Unknown";
+        }
+    }
+}
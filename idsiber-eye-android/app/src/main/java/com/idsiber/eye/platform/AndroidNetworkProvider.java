@@ -0,0 +1,21 @@
+package com.idsiber.eye.platform;
+
+import android.content.Context;
+
+import com.idsiber.eye.NetworkStateMonitor;
+
+/**
+ * NetworkProvider dari status yang dijaga NetworkStateMonitor, tanpa query sistem
+ */
+public class AndroidNetworkProvider implements NetworkProvider {
+    private final Context context;
+
+    public AndroidNetworkProvider(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public String getNetworkInfoJson() throws Exception {
+        return NetworkStateMonitor.getInstance(context).getNetworkInfoJson();
+    }
+}
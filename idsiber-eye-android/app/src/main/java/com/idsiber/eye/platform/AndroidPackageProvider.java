@@ -0,0 +1,60 @@
+package com.idsiber.eye.platform;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PackageProvider di atas PackageManager
+ */
+public class AndroidPackageProvider implements PackageProvider {
+    private static final String TAG = "AndroidPackageProvider";
+    private final Context context;
+
+    public AndroidPackageProvider(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public List<InstalledApp> getInstalledApps() {
+        PackageManager pm = context.getPackageManager();
+        List<ApplicationInfo> apps = pm.getInstalledApplications(PackageManager.GET_META_DATA);
+        List<InstalledApp> result = new ArrayList<>(apps.size());
+
+        for (ApplicationInfo app : apps) {
+            try {
+                String versionName = null;
+                int versionCode = 0;
+                try {
+                    PackageInfo info = pm.getPackageInfo(app.packageName, 0);
+                    versionName = info.versionName;
+                    versionCode = info.versionCode;
+                } catch (Exception e) {
+                    // Tetap dilaporkan dengan versi "Unknown"
+                }
+
+                result.add(new InstalledApp(app.packageName, pm.getApplicationLabel(app).toString(),
+                    (app.flags & ApplicationInfo.FLAG_SYSTEM) != 0, app.enabled, app.uid,
+                    app.targetSdkVersion, versionName, versionCode));
+            } catch (Exception appError) {
+                Log.w(TAG, "Error processing app: " + app.packageName);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String getAppLabel(String packageName) {
+        try {
+            PackageManager pm = context.getPackageManager();
+            return pm.getApplicationLabel(pm.getApplicationInfo(packageName, 0)).toString();
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.idsiber.eye.platform;
+
+import android.app.admin.DevicePolicyManager;
+import android.content.ComponentName;
+import android.content.Context;
+
+import com.idsiber.eye.DeviceCapabilities;
+import com.idsiber.eye.IdSiberDeviceAdminReceiver;
+
+/**
+ * PolicyProvider di atas DevicePolicyManager. Service diambil saat dipakai,
+ * bukan di constructor, supaya CommandHandler tetap murah dibuat saat boot.
+ */
+public class AndroidPolicyProvider implements PolicyProvider {
+    private final Context context;
+    private final ComponentName deviceAdminReceiver;
+
+    public AndroidPolicyProvider(Context context) {
+        this.context = context;
+        this.deviceAdminReceiver = new ComponentName(context, IdSiberDeviceAdminReceiver.class);
+    }
+
+    @Override
+    public boolean isAdminActive() {
+        return DeviceCapabilities.getInstance(context).isAdminActive();
+    }
+
+    @Override
+    public void lockNow() {
+        devicePolicyManager().lockNow();
+    }
+
+    @Override
+    public boolean setApplicationHidden(String packageName, boolean hidden) {
+        return devicePolicyManager().setApplicationHidden(deviceAdminReceiver, packageName, hidden);
+    }
+
+    private DevicePolicyManager devicePolicyManager() {
+        return (DevicePolicyManager) context.getSystemService(Context.DEVICE_POLICY_SERVICE);
+    }
+}
@@ -0,0 +1,43 @@
+package com.idsiber.eye.platform;
+
+import android.app.usage.UsageStats;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+
+import com.idsiber.eye.DeviceCapabilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UsageProvider di atas UsageStatsManager
+ */
+public class AndroidUsageProvider implements UsageProvider {
+    private final Context context;
+
+    public AndroidUsageProvider(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public boolean hasUsageAccess() {
+        return DeviceCapabilities.getInstance(context).hasUsageAccess();
+    }
+
+    @Override
+    public List<AppUsage> queryDailyUsage(long startTime, long endTime) {
+        UsageStatsManager usageStatsManager = (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+        if (usageStatsManager == null) {
+            throw new IllegalStateException("Usage stats manager not available");
+        }
+
+        List<UsageStats> stats = usageStatsManager.queryUsageStats(
+            UsageStatsManager.INTERVAL_DAILY, startTime, endTime);
+        List<AppUsage> result = new ArrayList<>(stats.size());
+        for (UsageStats usageStats : stats) {
+            result.add(new AppUsage(usageStats.getPackageName(), usageStats.getTotalTimeInForeground(),
+                usageStats.getLastTimeUsed(), usageStats.getFirstTimeStamp()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+// Benchmark JVM untuk kode di :protocol, dengan data fixture rekaman
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(17))
+    }
+}
+
+sourceSets {
+    main {
+        // Fixture yang sama dipakai JMH dan alat replay
+        resources.srcDir("src/jmh/resources")
+    }
+}
+
+dependencies {
+    implementation(project(":protocol"))
+    implementation(testFixtures(project(":protocol")))
+    implementation("org.json:json:20231013")
+
+    jmh(project(":protocol"))
+    jmh(testFixtures(project(":protocol")))
+    jmh("org.json:json:20231013")
+}
+
+jmh {
+    benchmarkMode.set(listOf("avgt"))
+    timeUnit.set("us")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    // Alokasi per operasi ikut dilaporkan (gc.alloc.rate.norm)
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    // ./gradlew :benchmark:jmh -PjmhIncludes=HandlerJsonBenchmark
+    findProperty("jmhIncludes")?.let { includes.set(listOf(it.toString())) }
+}
+
+// Replay log dari get_command_recording:
+// ./gradlew :benchmark:replay -PreplayArgs="--log device.log --out new.json --baseline release.json"
+tasks.register<JavaExec>("replay") {
+    group = "verification"
+    description = "Replay a recorded command log through the JVM command pipeline"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.idsiber.eye.benchmark.CommandReplay")
+    // Heap dan GC tetap supaya profil antar build sebanding
+    jvmArgs("-Xms512m", "-Xmx512m", "-XX:+UseSerialGC")
+    workingDir = rootDir
+    args((findProperty("replayArgs") as String? ?: "").split(" ").filter { it.isNotBlank() })
+}
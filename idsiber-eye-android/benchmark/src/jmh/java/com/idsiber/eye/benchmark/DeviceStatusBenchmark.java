@@ -0,0 +1,52 @@
+package com.idsiber.eye.benchmark;
+
+import com.idsiber.eye.DeviceStatusEncoder;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Payload status_update yang dibangun WebSocketService setiap heartbeat
+ */
+@State(Scope.Benchmark)
+public class DeviceStatusBenchmark {
+
+    private int batteryLevel;
+    private boolean charging;
+    private boolean adminActive;
+    private boolean screenOn;
+    private String currentApp;
+    private long timestamp;
+    private final DeviceStatusEncoder encoder = new DeviceStatusEncoder();
+
+    @Setup
+    public void setup() {
+        JSONObject status = new JSONObject(Fixtures.read("device_status.json"));
+        batteryLevel = status.getInt("battery_level");
+        charging = status.getBoolean("is_charging");
+        adminActive = status.getBoolean("device_admin_active");
+        screenOn = status.getBoolean("screen_on");
+        currentApp = status.getString("current_app");
+        timestamp = status.getLong("timestamp");
+    }
+
+    @Benchmark
+    public String deviceStatus() {
+        return encoder.status(batteryLevel, charging, adminActive, screenOn,
+            currentApp, timestamp).toString();
+    }
+
+    /**
+     * Tanpa toString: hanya biaya menyiapkan payload (emit socket.io yang
+     * menyerialisasi)
+     */
+    @Benchmark
+    public void heartbeatPayloads(Blackhole blackhole) {
+        blackhole.consume(encoder.heartbeat(timestamp));
+        blackhole.consume(encoder.status(batteryLevel, charging, adminActive, screenOn, currentApp, timestamp));
+    }
+}
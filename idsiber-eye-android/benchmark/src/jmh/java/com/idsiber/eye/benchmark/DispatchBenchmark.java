@@ -0,0 +1,113 @@
+package com.idsiber.eye.benchmark;
+
+import com.idsiber.eye.ClockOffsetEstimator;
+import com.idsiber.eye.CommandExecutor;
+import com.idsiber.eye.CommandResult;
+import com.idsiber.eye.DeviceProtocol;
+import com.idsiber.eye.core.CoreCommandHandler;
+import com.idsiber.eye.platform.FakePackageProvider;
+import com.idsiber.eye.platform.FakePlatform;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Jalur command dari payload event "command" sampai string yang dikirim
+ * sebagai command_response: parseCommand, dispatch ke executor,
+ * commandResponse + trace, lalu serialisasi seperti socket.emit.
+ *
+ * Executor mengembalikan data rekaman tanpa kerja handler, jadi yang
+ * terukur hanya overhead di sekitar handler.
+ */
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+    private JSONObject[] commands;
+    private JSONObject installedAppsCommand;
+    private CommandExecutor executor;
+    private CoreCommandHandler core;
+    private ClockOffsetEstimator clock;
+    private int next;
+
+    @Setup
+    public void setup() {
+        JSONArray array = Fixtures.commands();
+        commands = new JSONObject[array.length()];
+        for (int i = 0; i < commands.length; i++) {
+            commands[i] = array.getJSONObject(i);
+            if ("get_installed_apps".equals(commands[i].getString("action"))) {
+                installedAppsCommand = commands[i];
+            }
+        }
+
+        final String installedApps = Fixtures.response("installed_apps.json").getString("result");
+        final String runningProcesses = Fixtures.response("running_processes.json").getString("result");
+        final String status = Fixtures.read("device_status.json");
+        // Switch string seperti CommandHandler.executeCommand
+        executor = new CommandExecutor() {
+            @Override
+            public CommandResult executeCommand(String action, JSONObject params) {
+                switch (action) {
+                    case "get_installed_apps":
+                        return new CommandResult(true, "Found 181 installed apps", installedApps);
+                    case "get_running_processes":
+                        return new CommandResult(true, "Found 60 running processes", runningProcesses);
+                    case "get_battery_status":
+                    case "get_device_info":
+                    case "get_location":
+                        return new CommandResult(true, "OK", status);
+                    case "lock_screen":
+                        return new CommandResult(true, "Screen locked", null);
+                    case "set_volume":
+                        return new CommandResult(true, "Volume set to " + params.optInt("level"), null);
+                    case "list_files":
+                        return new CommandResult(false, "Permission denied: " + params.optString("path"), null);
+                    default:
+                        return new CommandResult(false, "Unknown command: " + action, null);
+                }
+            }
+        };
+
+        // Handler asli di atas provider palsu berisi aplikasi dari fixture
+        core = new FakePlatform(FakePackageProvider.fromJson(Fixtures.result("installed_apps.json")))
+            .newCommandHandler();
+
+        clock = new ClockOffsetEstimator();
+        clock.addSample(1728000000000L, 1728000000040L, 1728000000060L);
+    }
+
+    /**
+     * Campuran command kecil dari fixture, bergiliran
+     */
+    @Benchmark
+    public String dispatchMixed() {
+        JSONObject payload = commands[next];
+        next = (next + 1) % commands.length;
+        DeviceProtocol.Command command = DeviceProtocol.parseCommand(payload, 0);
+        return DeviceProtocol.execute(command, executor, clock).toString();
+    }
+
+    /**
+     * Response besar: data get_installed_apps di-escape sebagai string
+     * di dalam command_response
+     */
+    @Benchmark
+    public String dispatchInstalledApps() {
+        DeviceProtocol.Command command = DeviceProtocol.parseCommand(installedAppsCommand, 0);
+        return DeviceProtocol.execute(command, executor, clock).toString();
+    }
+
+    /**
+     * get_installed_apps lewat CoreCommandHandler: logika handler ikut
+     * terukur, hanya PackageManager yang diganti fixture
+     */
+    @Benchmark
+    public String dispatchInstalledAppsCore() {
+        DeviceProtocol.Command command = DeviceProtocol.parseCommand(installedAppsCommand, 0);
+        return DeviceProtocol.execute(command, core, clock).toString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.idsiber.eye.benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Data fixture hasil rekaman command_response device sungguhan
+ * (src/jmh/resources/fixtures). Field "result" berisi string JSON persis
+ * seperti yang dikirim CommandResult.getData().
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static String read(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Fixture not found: " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static JSONObject response(String name) {
+        return new JSONObject(read(name));
+    }
+
+    /**
+     * Isi "result" dari response rekaman, sebagai objek
+     */
+    static JSONObject result(String name) {
+        return new JSONObject(response(name).getString("result"));
+    }
+
+    static JSONArray commands() {
+        return new JSONArray(read("commands.json"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.idsiber.eye.benchmark;
+
+import com.idsiber.eye.InstalledAppsEncoder;
+import com.idsiber.eye.RunningProcessesEncoder;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Pembangunan JSON get_installed_apps dan get_running_processes dari data
+ * yang sudah diambil (PackageManager/ActivityManager tidak ikut diukur),
+ * termasuk toString() yang dilakukan handler sebelum membuat CommandResult.
+ */
+@State(Scope.Benchmark)
+public class HandlerJsonBenchmark {
+
+    private App[] apps;
+    private Process[] processes;
+
+    private static final class App {
+        String packageName;
+        String appName;
+        boolean system;
+        boolean enabled;
+        int uid;
+        int targetSdk;
+        String versionName;
+        int versionCode;
+    }
+
+    private static final class Process {
+        String processName;
+        int pid;
+        int uid;
+        String importance;
+        int importanceValue;
+        String[] packages;
+    }
+
+    @Setup
+    public void setup() {
+        JSONArray appArray = Fixtures.result("installed_apps.json").getJSONArray("apps");
+        apps = new App[appArray.length()];
+        for (int i = 0; i < apps.length; i++) {
+            JSONObject json = appArray.getJSONObject(i);
+            App app = new App();
+            app.packageName = json.getString("package_name");
+            app.appName = json.getString("app_name");
+            app.system = json.getBoolean("is_system");
+            app.enabled = json.getBoolean("enabled");
+            app.uid = json.getInt("uid");
+            app.targetSdk = json.getInt("target_sdk");
+            app.versionName = json.getString("version_name");
+            app.versionCode = json.getInt("version_code");
+            apps[i] = app;
+        }
+
+        JSONArray processArray = Fixtures.result("running_processes.json").getJSONArray("running_processes");
+        processes = new Process[processArray.length()];
+        for (int i = 0; i < processes.length; i++) {
+            JSONObject json = processArray.getJSONObject(i);
+            Process process = new Process();
+            process.processName = json.getString("process_name");
+            process.pid = json.getInt("pid");
+            process.uid = json.getInt("uid");
+            process.importance = json.getString("importance");
+            process.importanceValue = json.getInt("importance_value");
+            JSONArray packages = json.getJSONArray("packages");
+            process.packages = new String[packages.length()];
+            for (int p = 0; p < process.packages.length; p++) {
+                process.packages[p] = packages.getString(p);
+            }
+            processes[i] = process;
+        }
+    }
+
+    @Benchmark
+    public String installedApps() {
+        InstalledAppsEncoder encoder = new InstalledAppsEncoder();
+        for (App app : apps) {
+            encoder.add(app.packageName, app.appName, app.system, app.enabled, app.uid,
+                app.targetSdk, app.versionName, app.versionCode);
+        }
+        return encoder.toJson().toString();
+    }
+
+    @Benchmark
+    public String runningProcesses() {
+        RunningProcessesEncoder encoder = new RunningProcessesEncoder();
+        for (Process process : processes) {
+            encoder.add(process.processName, process.pid, process.uid,
+                process.importance, process.importanceValue, process.packages);
+        }
+        return encoder.toJson().toString();
+    }
+}
@@ -0,0 +1,199 @@
+package com.idsiber.eye.benchmark;
+
+import com.idsiber.eye.ClockOffsetEstimator;
+import com.idsiber.eye.CommandLog;
+import com.idsiber.eye.DeviceProtocol;
+import com.idsiber.eye.core.CoreCommandHandler;
+import com.idsiber.eye.platform.FakePackageProvider;
+import com.idsiber.eye.platform.FakePlatform;
+import com.idsiber.eye.platform.PackageProvider;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * Replay deterministik log command rekaman (start_command_recording) lewat
+ * pipeline yang sama dengan device: parseCommand, CoreCommandHandler di
+ * atas provider palsu, command_response, toString. Urutan dan params sama
+ * persis dengan log; dengan --pace recorded jarak antar command juga.
+ *
+ * Per action diukur latency dan byte yang dialokasikan thread replay,
+ * lalu disimpan sebagai profil JSON dan/atau dibandingkan dengan profil
+ * build sebelumnya (exit code 1 jika ada regresi).
+ *
+ *   ./gradlew :benchmark:replay -PreplayArgs="--log device.log --out new.json --baseline release.json"
+ */
+public class CommandReplay {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        String logPath = options.get("log");
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "10"));
+        boolean paced = "recorded".equals(options.getOrDefault("pace", "max"));
+        double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+        double threshold = Double.parseDouble(options.getOrDefault("threshold", "10"));
+
+        List<CommandLog.Entry> entries = CommandLog.read(new StringReader(readLog(logPath)));
+        if (entries.isEmpty()) {
+            System.err.println("Command log is empty");
+            System.exit(2);
+        }
+
+        FakePlatform platform = newPlatform();
+        CoreCommandHandler handler = platform.newCommandHandler();
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+
+        for (int i = 0; i < warmup; i++) {
+            run(entries, handler, clock, null, false, speed);
+        }
+        ReplayProfile profile = new ReplayProfile();
+        profile.log = logPath != null ? logPath : "fixtures/command_log.txt";
+        profile.commands = entries.size();
+        profile.iterations = iterations;
+        for (int i = 0; i < iterations; i++) {
+            run(entries, handler, clock, profile, paced, speed);
+        }
+        for (CommandLog.Entry entry : entries) {
+            ReplayProfile.ActionStats stats = profile.actions.get(entry.action);
+            if (stats != null && entry.executeMicros >= 0) {
+                stats.deviceMicrosTotal += entry.executeMicros;
+                stats.deviceCount++;
+            }
+        }
+        profile.finish();
+
+        System.out.printf("Replayed %d commands x %d iterations (%s)%n", entries.size(), iterations,
+            paced ? "recorded pacing x" + speed : "max speed");
+        profile.print(System.out);
+
+        String out = options.get("out");
+        if (out != null) {
+            Files.write(Paths.get(out), profile.toJson().toString(2).getBytes(StandardCharsets.UTF_8));
+            System.out.println("Profile written to " + out);
+        }
+
+        String baselinePath = options.get("baseline");
+        if (baselinePath != null) {
+            ReplayProfile baseline = ReplayProfile.fromJson(new JSONObject(
+                new String(Files.readAllBytes(Paths.get(baselinePath)), StandardCharsets.UTF_8)));
+            System.out.println();
+            System.out.println("Compared with " + baselinePath + " (threshold " + threshold + "%)");
+            int regressions = profile.compare(baseline, threshold, System.out);
+            if (regressions > 0) {
+                System.out.println(regressions + " action(s) regressed");
+                System.exit(1);
+            }
+        }
+    }
+
+    private static void run(List<CommandLog.Entry> entries, CoreCommandHandler handler, ClockOffsetEstimator clock,
+                            ReplayProfile profile, boolean paced, double speed) throws InterruptedException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long startNanos = System.nanoTime();
+        int sequence = 0;
+        for (CommandLog.Entry entry : entries) {
+            if (!CoreCommandHandler.ACTIONS.contains(entry.action)) {
+                if (profile != null) {
+                    profile.skip(entry.action);
+                }
+                continue;
+            }
+            if (paced) {
+                long due = startNanos + (long) (entry.offsetMs * 1_000_000L / speed);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                }
+            }
+
+            JSONObject payload = new JSONObject()
+                .put("commandId", "replay-" + sequence++)
+                .put("action", entry.action)
+                .put("params", entry.params);
+
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long begin = System.nanoTime();
+            DeviceProtocol.Command command = DeviceProtocol.parseCommand(payload, 0);
+            String response = DeviceProtocol.execute(command, handler, clock).toString();
+            long elapsed = System.nanoTime() - begin;
+            long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+            if (profile != null) {
+                profile.stats(entry.action).add(elapsed, allocated);
+            }
+            if (response.isEmpty()) {
+                throw new IllegalStateException("Empty response for " + entry.action);
+            }
+        }
+    }
+
+    /**
+     * Provider palsu dengan data tetap: aplikasi dari fixture rekaman dan
+     * usage stats turunan dari daftar itu, sehingga setiap replay sama
+     */
+    private static FakePlatform newPlatform() {
+        JSONObject installedApps = new JSONObject(new JSONObject(resource("/fixtures/installed_apps.json"))
+            .getString("result"));
+        FakePlatform platform = new FakePlatform(FakePackageProvider.fromJson(installedApps));
+        long base = 1728000000000L;
+        for (PackageProvider.InstalledApp app : platform.packages.getInstalledApps()) {
+            if (!app.system) {
+                long foreground = (Math.floorMod(app.packageName.hashCode(), 180) + 1) * 60_000L;
+                platform.usage.add(app.packageName, foreground, base + foreground);
+            }
+        }
+        return platform;
+    }
+
+    /**
+     * Log mentah, atau JSON hasil get_command_recording (field "log")
+     */
+    private static String readLog(String path) throws IOException {
+        String content = path != null
+            ? new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8)
+            : resource("/fixtures/command_log.txt");
+        String trimmed = content.trim();
+        if (trimmed.startsWith("{")) {
+            JSONObject json = new JSONObject(trimmed);
+            // Response command_response utuh atau hanya isi "result"
+            if (json.has("result") && !json.has("log")) {
+                json = new JSONObject(json.getString("result"));
+            }
+            return json.getString("log");
+        }
+        return content;
+    }
+
+    private static String resource(String name) {
+        InputStream in = CommandReplay.class.getResourceAsStream(name);
+        if (in == null) {
+            throw new IllegalStateException("Resource not found: " + name);
+        }
+        try (Scanner scanner = new Scanner(in, "UTF-8")) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,181 @@
+package com.idsiber.eye.benchmark;
+
+import org.json.JSONObject;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Profil latency dan alokasi per action dari satu replay, disimpan sebagai
+ * JSON supaya bisa dibandingkan dengan profil build lain.
+ */
+public class ReplayProfile {
+
+    public static final class ActionStats {
+        long[] nanos = new long[64];
+        long allocatedBytes;
+        int count;
+        long deviceMicrosTotal;
+        int deviceCount;
+
+        // Terisi dari JSON profil lama
+        double p50Micros = Double.NaN;
+        double p99Micros = Double.NaN;
+        double meanMicros = Double.NaN;
+        double allocPerOp = Double.NaN;
+
+        void add(long elapsedNanos, long allocated) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = elapsedNanos;
+            allocatedBytes += allocated;
+        }
+
+        void finish() {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            long sum = 0;
+            for (long value : sorted) {
+                sum += value;
+            }
+            p50Micros = percentile(sorted, 50) / 1000.0;
+            p99Micros = percentile(sorted, 99) / 1000.0;
+            meanMicros = count > 0 ? sum / (double) count / 1000.0 : Double.NaN;
+            allocPerOp = count > 0 ? allocatedBytes / (double) count : Double.NaN;
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    final Map<String, ActionStats> actions = new TreeMap<>();
+    final Map<String, Integer> skipped = new TreeMap<>();
+    String log;
+    int iterations;
+    int commands;
+
+    ActionStats stats(String action) {
+        ActionStats stats = actions.get(action);
+        if (stats == null) {
+            stats = new ActionStats();
+            actions.put(action, stats);
+        }
+        return stats;
+    }
+
+    void skip(String action) {
+        Integer count = skipped.get(action);
+        skipped.put(action, count == null ? 1 : count + 1);
+    }
+
+    void finish() {
+        for (ActionStats stats : actions.values()) {
+            stats.finish();
+        }
+    }
+
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("log", log);
+        json.put("commands", commands);
+        json.put("iterations", iterations);
+        JSONObject actionJson = new JSONObject();
+        for (Map.Entry<String, ActionStats> entry : actions.entrySet()) {
+            ActionStats stats = entry.getValue();
+            JSONObject item = new JSONObject();
+            item.put("count", stats.count);
+            item.put("p50_us", round(stats.p50Micros));
+            item.put("p99_us", round(stats.p99Micros));
+            item.put("mean_us", round(stats.meanMicros));
+            item.put("alloc_bytes_per_op", Math.round(stats.allocPerOp));
+            if (stats.deviceCount > 0) {
+                item.put("device_mean_us", stats.deviceMicrosTotal / stats.deviceCount);
+            }
+            actionJson.put(entry.getKey(), item);
+        }
+        json.put("actions", actionJson);
+        json.put("skipped", new JSONObject(skipped));
+        return json;
+    }
+
+    public static ReplayProfile fromJson(JSONObject json) {
+        ReplayProfile profile = new ReplayProfile();
+        profile.log = json.optString("log", null);
+        profile.commands = json.optInt("commands");
+        profile.iterations = json.optInt("iterations");
+        JSONObject actionJson = json.getJSONObject("actions");
+        for (String action : actionJson.keySet()) {
+            JSONObject item = actionJson.getJSONObject(action);
+            ActionStats stats = profile.stats(action);
+            stats.count = item.getInt("count");
+            stats.p50Micros = item.getDouble("p50_us");
+            stats.p99Micros = item.getDouble("p99_us");
+            stats.meanMicros = item.getDouble("mean_us");
+            stats.allocPerOp = item.getDouble("alloc_bytes_per_op");
+        }
+        return profile;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%-24s %7s %10s %10s %10s %14s%n", "action", "count", "p50 us", "p99 us", "mean us", "alloc B/op");
+        for (Map.Entry<String, ActionStats> entry : actions.entrySet()) {
+            ActionStats stats = entry.getValue();
+            out.printf(Locale.ROOT, "%-24s %7d %10.1f %10.1f %10.1f %14.0f%n", entry.getKey(), stats.count,
+                stats.p50Micros, stats.p99Micros, stats.meanMicros, stats.allocPerOp);
+        }
+        if (!skipped.isEmpty()) {
+            out.println("Skipped (Android-only handlers): " + skipped);
+        }
+    }
+
+    /**
+     * Bandingkan dengan profil baseline. Latency p50 dan alokasi per
+     * operasi yang naik lebih dari thresholdPercent dianggap regresi.
+     *
+     * @return jumlah action yang regresi
+     */
+    public int compare(ReplayProfile baseline, double thresholdPercent, PrintStream out) {
+        out.printf("%-24s %10s %10s %8s %12s %12s %8s%n",
+            "action", "base p50", "p50 us", "delta", "base alloc", "alloc B/op", "delta");
+        int regressions = 0;
+        for (Map.Entry<String, ActionStats> entry : actions.entrySet()) {
+            ActionStats base = baseline.actions.get(entry.getKey());
+            if (base == null) {
+                out.printf("%-24s (not in baseline)%n", entry.getKey());
+                continue;
+            }
+            ActionStats current = entry.getValue();
+            double latencyDelta = delta(base.p50Micros, current.p50Micros);
+            double allocDelta = delta(base.allocPerOp, current.allocPerOp);
+            boolean regressed = latencyDelta > thresholdPercent || allocDelta > thresholdPercent;
+            if (regressed) {
+                regressions++;
+            }
+            out.printf(Locale.ROOT, "%-24s %10.1f %10.1f %+7.1f%% %12.0f %12.0f %+7.1f%%%s%n", entry.getKey(),
+                base.p50Micros, current.p50Micros, latencyDelta,
+                base.allocPerOp, current.allocPerOp, allocDelta,
+                regressed ? "  REGRESSION" : "");
+        }
+        return regressions;
+    }
+
+    private static double delta(double base, double current) {
+        if (base <= 0 || Double.isNaN(base) || Double.isNaN(current)) {
+            return 0;
+        }
+        return (current - base) * 100.0 / base;
+    }
+
+    private static double round(double value) {
+        return Double.isNaN(value) ? 0 : Math.round(value * 10) / 10.0;
+    }
+}
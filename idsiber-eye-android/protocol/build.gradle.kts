@@ -0,0 +1,20 @@
+plugins {
+    `java-library`
+    // Provider palsu (src/testFixtures) dipakai ulang oleh modul JVM lain
+    `java-test-fixtures`
+}
+
+// Dipakai app (Android, Java 8) dan modul JVM (simulator, benchmark)
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    // org.json bagian dari platform Android; modul JVM menambahkan sendiri
+    compileOnly("org.json:json:20231013")
+
+    testFixturesImplementation("org.json:json:20231013")
+    testImplementation("org.json:json:20231013")
+    testImplementation("junit:junit:4.13.2")
+}
@@ -0,0 +1,66 @@
+package com.idsiber.eye;
+
+/**
+ * Estimasi selisih jam server dan device dari heartbeat (gaya NTP).
+ *
+ * offset = server_time - (client_sent + client_received) / 2
+ *
+ * Dari beberapa sampel terakhir dipakai sampel dengan RTT terkecil,
+ * karena sampel itu paling sedikit terpengaruh antrian jaringan.
+ */
+public class ClockOffsetEstimator {
+    private static final int MAX_SAMPLES = 8;
+
+    private final long[] offsets = new long[MAX_SAMPLES];
+    private final long[] rtts = new long[MAX_SAMPLES];
+    private int count = 0;
+    private int next = 0;
+
+    private long bestOffset = 0;
+    private long bestRtt = -1;
+
+    /**
+     * Tambahkan satu sampel heartbeat.
+     *
+     * @param clientSentAt     waktu device saat heartbeat dikirim
+     * @param serverTimestamp  waktu server saat membalas
+     * @param clientReceivedAt waktu device saat balasan diterima
+     */
+    public synchronized void addSample(long clientSentAt, long serverTimestamp, long clientReceivedAt) {
+        long rtt = clientReceivedAt - clientSentAt;
+        if (clientSentAt <= 0 || serverTimestamp <= 0 || rtt < 0) {
+            return;
+        }
+
+        offsets[next] = serverTimestamp - (clientSentAt + clientReceivedAt) / 2;
+        rtts[next] = rtt;
+        next = (next + 1) % MAX_SAMPLES;
+        if (count < MAX_SAMPLES) {
+            count++;
+        }
+
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (rtts[i] < rtts[best]) {
+                best = i;
+            }
+        }
+        bestOffset = offsets[best];
+        bestRtt = rtts[best];
+    }
+
+    public synchronized boolean hasEstimate() {
+        return count > 0;
+    }
+
+    /**
+     * Selisih jam server dikurangi jam device, dalam ms
+     */
+    public synchronized long getOffsetMs() {
+        return bestOffset;
+    }
+
+    public synchronized long getRttMs() {
+        return bestRtt;
+    }
+}
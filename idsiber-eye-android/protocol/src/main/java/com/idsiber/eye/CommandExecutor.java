@@ -0,0 +1,11 @@
+package com.idsiber.eye;
+
+import org.json.JSONObject;
+
+/**
+ * Eksekutor command dari server. Di device diimplementasikan CommandHandler;
+ * di simulator diganti handler palsu.
+ */
+public interface CommandExecutor {
+    CommandResult executeCommand(String action, JSONObject params);
+}
@@ -0,0 +1,94 @@
+package com.idsiber.eye;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Format log command rekaman (CommandRecorder di app) yang dibaca ulang
+ * oleh alat replay. Satu baris teks per command, dipisah tab:
+ *
+ *   offset_ms  action  execute_us  ok  result_chars  params
+ *
+ * offset_ms dihitung dari started_at di header, params berupa JSON satu
+ * baris (atau "-" jika kosong). Baris diawali "#" adalah header/komentar.
+ */
+public final class CommandLog {
+    public static final String MAGIC = "#idsiber-command-log v1";
+
+    public static final class Entry {
+        public final long offsetMs;
+        public final String action;
+        public final long executeMicros;
+        public final boolean success;
+        public final int resultChars;
+        public final JSONObject params;
+
+        public Entry(long offsetMs, String action, long executeMicros, boolean success,
+                     int resultChars, JSONObject params) {
+            this.offsetMs = offsetMs;
+            this.action = action;
+            this.executeMicros = executeMicros;
+            this.success = success;
+            this.resultChars = resultChars;
+            this.params = params;
+        }
+    }
+
+    private CommandLog() {
+    }
+
+    public static String header(long startedAt) {
+        return MAGIC + " started_at=" + startedAt;
+    }
+
+    /**
+     * Satu baris tanpa newline
+     */
+    public static String format(long offsetMs, String action, long executeMicros, boolean success,
+                                int resultChars, JSONObject params) {
+        StringBuilder line = new StringBuilder(64);
+        line.append(offsetMs).append('\t')
+            .append(action).append('\t')
+            .append(executeMicros).append('\t')
+            .append(success ? '1' : '0').append('\t')
+            .append(resultChars).append('\t');
+        // JSONObject.toString meng-escape tab dan newline di dalam string
+        line.append(params != null && params.length() > 0 ? params.toString() : "-");
+        return line.toString();
+    }
+
+    public static List<Entry> read(Reader reader) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        List<Entry> entries = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t", 6);
+            if (fields.length != 6) {
+                throw new IOException("Malformed command log line " + lineNumber);
+            }
+            try {
+                entries.add(new Entry(
+                    Long.parseLong(fields[0]),
+                    fields[1],
+                    Long.parseLong(fields[2]),
+                    "1".equals(fields[3]),
+                    Integer.parseInt(fields[4]),
+                    "-".equals(fields[5]) ? new JSONObject() : new JSONObject(fields[5])));
+            } catch (NumberFormatException | JSONException e) {
+                throw new IOException("Malformed command log line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,107 @@
+package com.idsiber.eye;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.UUID;
+
+/**
+ * Trace context untuk satu command, dari diterima sampai response dikirim.
+ *
+ * Semua timestamp device memakai jam device (epoch ms). Jarak antar titik
+ * dihitung dari System.nanoTime supaya tidak terpengaruh perubahan jam,
+ * lalu ditempelkan ke timestamp saat command diterima.
+ */
+public class CommandTrace {
+    private final String traceId;
+    private final long serverSentAt;
+    private final long receivedAt;
+    private final long receivedNanos;
+    private long dispatchStartNanos = -1;
+    private long executeEndNanos = -1;
+    private long emitNanos = -1;
+
+    private CommandTrace(String traceId, long serverSentAt) {
+        this.traceId = traceId;
+        this.serverSentAt = serverSentAt;
+        this.receivedAt = System.currentTimeMillis();
+        this.receivedNanos = System.nanoTime();
+    }
+
+    /**
+     * Buat trace dari payload command. Jika server tidak mengirim trace,
+     * trace_id baru dibuat di device.
+     */
+    public static CommandTrace fromCommand(JSONObject command) {
+        JSONObject trace = command.optJSONObject("trace");
+        String traceId = null;
+        long serverSentAt = -1;
+        if (trace != null) {
+            traceId = trace.optString("trace_id", null);
+            serverSentAt = trace.optLong("server_sent_at", -1);
+        }
+        if (traceId == null || traceId.isEmpty()) {
+            traceId = UUID.randomUUID().toString();
+        }
+        return new CommandTrace(traceId, serverSentAt);
+    }
+
+    public void markDispatchStart() {
+        dispatchStartNanos = System.nanoTime();
+    }
+
+    public void markExecuteEnd() {
+        executeEndNanos = System.nanoTime();
+    }
+
+    public void markEmit() {
+        emitNanos = System.nanoTime();
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    /**
+     * Durasi eksekusi handler (dispatch start sampai execute end), atau -1
+     */
+    public long getExecuteNanos() {
+        if (dispatchStartNanos < 0 || executeEndNanos < 0) {
+            return -1;
+        }
+        return executeEndNanos - dispatchStartNanos;
+    }
+
+    private long toDeviceTime(long nanos) {
+        if (nanos < 0) {
+            return -1;
+        }
+        return receivedAt + (nanos - receivedNanos) / 1000000L;
+    }
+
+    /**
+     * Serialisasi trace untuk command_response, termasuk estimasi clock offset
+     * (server - device) supaya server bisa memecah latency per hop.
+     */
+    public JSONObject toJson(ClockOffsetEstimator clock) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("trace_id", traceId);
+        if (serverSentAt > 0) {
+            json.put("server_sent_at", serverSentAt);
+        }
+        json.put("device_received_at", receivedAt);
+        json.put("device_dispatch_start_at", toDeviceTime(dispatchStartNanos));
+        json.put("device_execute_end_at", toDeviceTime(executeEndNanos));
+        json.put("device_emit_at", toDeviceTime(emitNanos));
+
+        if (clock != null && clock.hasEstimate()) {
+            json.put("clock_offset_ms", clock.getOffsetMs());
+            json.put("clock_rtt_ms", clock.getRttMs());
+        }
+        return json;
+    }
+}
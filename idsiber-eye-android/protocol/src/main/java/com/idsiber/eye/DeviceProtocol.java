@@ -0,0 +1,120 @@
+package com.idsiber.eye;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Protokol socket.io antara device dan server: nama event dan bentuk
+ * payload. Tidak bergantung pada Android, sehingga dipakai bersama oleh
+ * WebSocketClient dan fleet simulator.
+ */
+public final class DeviceProtocol {
+    // Device -> server
+    public static final String EVENT_REGISTER_DEVICE = "register_device";
+    public static final String EVENT_HEARTBEAT = "heartbeat";
+    public static final String EVENT_STATUS_UPDATE = "status_update";
+    public static final String EVENT_COMMAND_RESPONSE = "command_response";
+    public static final String EVENT_CAPABILITIES_UPDATE = "capabilities_update";
+    public static final String EVENT_STARTUP_METRICS = "startup_metrics";
+    public static final String EVENT_NOTIFICATION = "notification_event";
+
+    // Server -> device
+    public static final String EVENT_REGISTRATION_SUCCESS = "registration_success";
+    public static final String EVENT_REGISTRATION_ERROR = "registration_error";
+    public static final String EVENT_COMMAND = "command";
+    public static final String EVENT_HEARTBEAT_RESPONSE = "heartbeat_response";
+
+    // Payload heartbeat (dibangun DeviceStatusEncoder); di-echo server untuk estimasi clock offset
+    public static final String KEY_CLIENT_SENT_AT = "client_sent_at";
+
+    private DeviceProtocol() {
+    }
+
+    /**
+     * Command dari server yang sudah di-parse
+     */
+    public static final class Command {
+        public final String commandId;
+        public final String action;
+        public final JSONObject params;
+        // Command non-urgent boleh ditunda device sampai maxDelayMs
+        public final boolean deferrable;
+        public final long maxDelayMs;
+        public final CommandTrace trace;
+
+        private Command(String commandId, String action, JSONObject params, boolean deferrable,
+                        long maxDelayMs, CommandTrace trace) {
+            this.commandId = commandId;
+            this.action = action;
+            this.params = params;
+            this.deferrable = deferrable;
+            this.maxDelayMs = maxDelayMs;
+            this.trace = trace;
+        }
+    }
+
+    public static JSONObject registration(String deviceId, String deviceName, String deviceModel,
+                                          String androidVersion, JSONObject capabilities,
+                                          int scheduleVersion) throws JSONException {
+        JSONObject deviceInfo = new JSONObject();
+        deviceInfo.put("device_id", deviceId);
+        deviceInfo.put("device_name", deviceName);
+        deviceInfo.put("device_model", deviceModel);
+        deviceInfo.put("android_version", androidVersion);
+        deviceInfo.put("capabilities", capabilities);
+        // Server mengirim ulang set_schedule jika versinya lebih baru
+        deviceInfo.put("schedule_version", scheduleVersion);
+        return deviceInfo;
+    }
+
+    /**
+     * Masukkan balasan heartbeat ke estimator clock offset
+     */
+    public static void onHeartbeatResponse(Object[] args, long lastSentAt, long receivedAt,
+                                           ClockOffsetEstimator clock) {
+        if (args.length > 0 && args[0] instanceof JSONObject) {
+            JSONObject response = (JSONObject) args[0];
+            long sentAt = response.optLong(KEY_CLIENT_SENT_AT, lastSentAt);
+            clock.addSample(sentAt, response.optLong("timestamp", 0), receivedAt);
+        }
+    }
+
+    /**
+     * Parse payload event "command"; trace dimulai saat ini juga
+     */
+    public static Command parseCommand(JSONObject command, long defaultMaxDelayMs) throws JSONException {
+        CommandTrace trace = CommandTrace.fromCommand(command);
+        return new Command(
+            command.getString("commandId"),
+            command.getString("action"),
+            command.optJSONObject("params"),
+            command.optBoolean("deferrable", false),
+            command.optLong("max_delay_ms", defaultMaxDelayMs),
+            trace);
+    }
+
+    /**
+     * Jalankan command lewat executor dan bangun payload command_response
+     */
+    public static JSONObject execute(Command command, CommandExecutor executor,
+                                     ClockOffsetEstimator clock) throws JSONException {
+        command.trace.markDispatchStart();
+        CommandResult result = executor.executeCommand(command.action, command.params);
+        command.trace.markExecuteEnd();
+        return commandResponse(command.commandId, command.action, result, command.trace, clock);
+    }
+
+    public static JSONObject commandResponse(String commandId, String action, CommandResult result,
+                                             CommandTrace trace, ClockOffsetEstimator clock) throws JSONException {
+        JSONObject response = new JSONObject();
+        response.put("commandId", commandId);
+        response.put("action", action);
+        response.put("success", result.isSuccess());
+        response.put("message", result.getMessage());
+        response.put("result", result.getData());
+
+        trace.markEmit();
+        response.put("trace", trace.toJson(clock));
+        return response;
+    }
+}
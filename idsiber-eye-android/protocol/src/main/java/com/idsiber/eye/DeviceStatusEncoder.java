@@ -0,0 +1,52 @@
+package com.idsiber.eye;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Payload heartbeat dan status_update yang dikirim setiap interval
+ * heartbeat (WebSocketService, fleet simulator).
+ *
+ * Setiap panggilan mengembalikan JSONObject baru. socket.emit hanya
+ * mengantre paket; serialisasi terjadi belakangan di EventThread socket.io
+ * (bisa tertahan command yang sedang berjalan, atau di buffer selama
+ * terputus), jadi objek yang sudah di-emit tidak boleh diubah lagi.
+ * Alokasinya dibatasi HeartbeatAllocationTest.
+ */
+public final class DeviceStatusEncoder {
+    public static final int UNKNOWN_BATTERY = -1;
+
+    private static final String KEY_BATTERY_LEVEL = "battery_level";
+    private static final String KEY_IS_CHARGING = "is_charging";
+    private static final String KEY_ADMIN_ACTIVE = "device_admin_active";
+    private static final String KEY_SCREEN_ON = "screen_on";
+    private static final String KEY_CURRENT_APP = "current_app";
+    private static final String KEY_TIMESTAMP = "timestamp";
+
+    /**
+     * Payload event heartbeat; client_sent_at di-echo server di heartbeat_response
+     */
+    public JSONObject heartbeat(long clientSentAt) throws JSONException {
+        JSONObject heartbeat = new JSONObject();
+        heartbeat.put(DeviceProtocol.KEY_CLIENT_SENT_AT, clientSentAt);
+        return heartbeat;
+    }
+
+    /**
+     * @param batteryLevel persen baterai, atau UNKNOWN_BATTERY jika sticky
+     *                     broadcast baterai tidak tersedia
+     */
+    public JSONObject status(int batteryLevel, boolean charging, boolean adminActive,
+                             boolean screenOn, String currentApp, long timestamp) throws JSONException {
+        JSONObject status = new JSONObject();
+        if (batteryLevel != UNKNOWN_BATTERY) {
+            status.put(KEY_BATTERY_LEVEL, batteryLevel);
+            status.put(KEY_IS_CHARGING, charging);
+        }
+        status.put(KEY_ADMIN_ACTIVE, adminActive);
+        status.put(KEY_SCREEN_ON, screenOn);
+        status.put(KEY_CURRENT_APP, currentApp);
+        status.put(KEY_TIMESTAMP, timestamp);
+        return status;
+    }
+}
@@ -0,0 +1,46 @@
+package com.idsiber.eye;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Bentuk JSON hasil get_installed_apps. Data diambil AppManagementHandler
+ * dari PackageManager; encoder ini tidak bergantung pada Android sehingga
+ * bisa diukur di modul benchmark dengan data fixture.
+ */
+public class InstalledAppsEncoder {
+    private final JSONArray apps = new JSONArray();
+    private int userApps = 0;
+
+    public void add(String packageName, String appName, boolean system, boolean enabled, int uid,
+                    int targetSdk, String versionName, int versionCode) throws JSONException {
+        JSONObject appInfo = new JSONObject();
+        appInfo.put("package_name", packageName);
+        appInfo.put("app_name", appName);
+        appInfo.put("is_system", system);
+        appInfo.put("enabled", enabled);
+        appInfo.put("uid", uid);
+        appInfo.put("target_sdk", targetSdk);
+        appInfo.put("version_name", versionName != null ? versionName : "Unknown");
+        appInfo.put("version_code", versionCode);
+        apps.put(appInfo);
+
+        if (!system) {
+            userApps++;
+        }
+    }
+
+    public int size() {
+        return apps.length();
+    }
+
+    public JSONObject toJson() throws JSONException {
+        JSONObject result = new JSONObject();
+        result.put("apps", apps);
+        result.put("total_apps", apps.length());
+        result.put("user_apps", userApps);
+        result.put("system_apps", apps.length() - userApps);
+        return result;
+    }
+}
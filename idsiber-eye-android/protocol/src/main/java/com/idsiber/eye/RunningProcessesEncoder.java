@@ -0,0 +1,41 @@
+package com.idsiber.eye;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Bentuk JSON hasil get_running_processes (lihat SystemInfoHandler)
+ */
+public class RunningProcessesEncoder {
+    private final JSONArray processes = new JSONArray();
+
+    public void add(String processName, int pid, int uid, String importance, int importanceValue,
+                    String[] packages) throws JSONException {
+        JSONObject process = new JSONObject();
+        process.put("process_name", processName);
+        process.put("pid", pid);
+        process.put("uid", uid);
+        process.put("importance", importance);
+        process.put("importance_value", importanceValue);
+
+        // Package names in this process
+        JSONArray packageArray = new JSONArray();
+        for (String pkg : packages) {
+            packageArray.put(pkg);
+        }
+        process.put("packages", packageArray);
+        processes.put(process);
+    }
+
+    public int size() {
+        return processes.length();
+    }
+
+    public JSONObject toJson() throws JSONException {
+        JSONObject result = new JSONObject();
+        result.put("running_processes", processes);
+        result.put("total_processes", processes.length());
+        return result;
+    }
+}
@@ -0,0 +1,273 @@
+package com.idsiber.eye.core;
+
+import com.idsiber.eye.CommandExecutor;
+import com.idsiber.eye.CommandResult;
+import com.idsiber.eye.InstalledAppsEncoder;
+import com.idsiber.eye.platform.BatteryProvider;
+import com.idsiber.eye.platform.NetworkProvider;
+import com.idsiber.eye.platform.PackageProvider;
+import com.idsiber.eye.platform.PolicyProvider;
+import com.idsiber.eye.platform.UsageProvider;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Logika command yang hanya bergantung pada provider platform, bukan
+ * Context. Di device provider-nya membungkus system service Android
+ * (com.idsiber.eye.platform di app); di JVM dipakai provider palsu
+ * sehingga pipeline command bisa dijalankan di JUnit dan benchmark.
+ *
+ * CommandHandler meneruskan action di bawah ini ke sini; action lain
+ * dijawab "Unknown command".
+ */
+public class CoreCommandHandler implements CommandExecutor {
+    public static final Set<String> ACTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "lock_screen", "get_battery_status", "get_network_info", "get_usage_stats",
+        "get_installed_apps", "block_app", "unblock_app")));
+
+    private final PackageProvider packages;
+    private final UsageProvider usage;
+    private final BatteryProvider battery;
+    private final NetworkProvider network;
+    private final PolicyProvider policy;
+
+    public CoreCommandHandler(PackageProvider packages, UsageProvider usage, BatteryProvider battery,
+                              NetworkProvider network, PolicyProvider policy) {
+        this.packages = packages;
+        this.usage = usage;
+        this.battery = battery;
+        this.network = network;
+        this.policy = policy;
+    }
+
+    @Override
+    public CommandResult executeCommand(String action, JSONObject params) {
+        switch (action) {
+            case "lock_screen":
+                return lockScreen(params);
+            case "get_battery_status":
+                return getBatteryStatus();
+            case "get_network_info":
+                return getNetworkInfo();
+            case "get_usage_stats":
+                return getUsageStats(params);
+            case "get_installed_apps":
+                return getInstalledApps();
+            case "block_app":
+                return blockApp(params);
+            case "unblock_app":
+                return unblockApp(params);
+            default:
+                return new CommandResult(false, "Unknown command: " + action, null);
+        }
+    }
+
+    public CommandResult lockScreen(JSONObject params) {
+        try {
+            if (!policy.isAdminActive()) {
+                return new CommandResult(false, "Device admin permission required", null);
+            }
+            policy.lockNow();
+
+            int duration = 0;
+            if (params != null && params.has("duration")) {
+                duration = params.getInt("duration");
+            }
+
+            return new CommandResult(true, "Screen locked successfully" +
+                (duration > 0 ? " for " + duration + " minutes" : ""), null);
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to lock screen: " + e.getMessage(), null);
+        }
+    }
+
+    public CommandResult getBatteryStatus() {
+        try {
+            BatteryProvider.BatteryState state = battery.getBatteryState();
+            if (state == null) {
+                return new CommandResult(false, "Cannot access battery information", null);
+            }
+
+            JSONObject batteryInfo = new JSONObject();
+            batteryInfo.put("battery_level", state.level);
+            batteryInfo.put("is_charging", state.charging);
+            batteryInfo.put("status", state.status);
+            batteryInfo.put("health", state.health);
+            batteryInfo.put("temperature", state.temperatureCelsius);
+            batteryInfo.put("voltage", state.voltage);
+            batteryInfo.put("technology", state.technology != null ? state.technology : "Unknown");
+
+            return new CommandResult(true, "Battery status retrieved", batteryInfo.toString());
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to get battery status: " + e.getMessage(), null);
+        }
+    }
+
+    public CommandResult getNetworkInfo() {
+        try {
+            return new CommandResult(true, "Network info retrieved", network.getNetworkInfoJson());
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to get network info: " + e.getMessage(), null);
+        }
+    }
+
+    public CommandResult getUsageStats(JSONObject params) {
+        try {
+            // Tanpa usage access query tetap jalan tapi selalu kosong
+            if (!usage.hasUsageAccess()) {
+                return new CommandResult(false, "Usage access permission not granted", null);
+            }
+
+            // Get time range (default: last 24 hours)
+            int days = params != null ? params.optInt("days", 1) : 1;
+            Calendar calendar = Calendar.getInstance();
+            long endTime = calendar.getTimeInMillis();
+            calendar.add(Calendar.DAY_OF_YEAR, -days);
+            long startTime = calendar.getTimeInMillis();
+
+            List<UsageProvider.AppUsage> usageStatsList = usage.queryDailyUsage(startTime, endTime);
+
+            if (usageStatsList.isEmpty()) {
+                return new CommandResult(false, "No usage stats available. Please grant usage access permission.", null);
+            }
+
+            // Paling lama dipakai dulu; waktu sama diurutkan per package supaya tidak saling menimpa
+            List<UsageProvider.AppUsage> sortedStats = new ArrayList<>();
+            for (UsageProvider.AppUsage usageStats : usageStatsList) {
+                if (usageStats.totalTimeInForeground > 0) {
+                    sortedStats.add(usageStats);
+                }
+            }
+            Collections.sort(sortedStats, new Comparator<UsageProvider.AppUsage>() {
+                @Override
+                public int compare(UsageProvider.AppUsage a, UsageProvider.AppUsage b) {
+                    int byTime = Long.compare(b.totalTimeInForeground, a.totalTimeInForeground);
+                    return byTime != 0 ? byTime : a.packageName.compareTo(b.packageName);
+                }
+            });
+
+            JSONArray usageArray = new JSONArray();
+            long totalUsageTime = 0;
+            int maxApps = params != null ? params.optInt("max_apps", 20) : 20;
+            int count = 0;
+
+            for (UsageProvider.AppUsage stats : sortedStats) {
+                if (count >= maxApps) break;
+
+                JSONObject appUsage = new JSONObject();
+
+                String appName = packages.getAppLabel(stats.packageName);
+                appUsage.put("app_name", appName != null ? appName : stats.packageName);
+                appUsage.put("package_name", stats.packageName);
+                appUsage.put("total_time_foreground", stats.totalTimeInForeground);
+                appUsage.put("total_time_readable", formatDuration(stats.totalTimeInForeground));
+                appUsage.put("last_time_used", stats.lastTimeUsed);
+                appUsage.put("last_time_used_readable", new Date(stats.lastTimeUsed).toString());
+                appUsage.put("first_time_stamp", stats.firstTimeStamp);
+
+                usageArray.put(appUsage);
+                totalUsageTime += stats.totalTimeInForeground;
+                count++;
+            }
+
+            JSONObject result = new JSONObject();
+            result.put("usage_stats", usageArray);
+            result.put("total_apps", count);
+            result.put("total_usage_time", totalUsageTime);
+            result.put("total_usage_time_readable", formatDuration(totalUsageTime));
+            result.put("period_days", days);
+            result.put("start_time", startTime);
+            result.put("end_time", endTime);
+
+            return new CommandResult(true, "Usage stats retrieved for " + count + " apps", result.toString());
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to get usage stats: " + e.getMessage(), null);
+        }
+    }
+
+    public CommandResult getInstalledApps() {
+        try {
+            InstalledAppsEncoder encoder = new InstalledAppsEncoder();
+            for (PackageProvider.InstalledApp app : packages.getInstalledApps()) {
+                encoder.add(app.packageName, app.appName, app.system, app.enabled, app.uid,
+                    app.targetSdk, app.versionName, app.versionCode);
+            }
+
+            return new CommandResult(true, "Found " + encoder.size() + " installed apps", encoder.toJson().toString());
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to get installed apps: " + e.getMessage(), null);
+        }
+    }
+
+    public CommandResult blockApp(JSONObject params) {
+        try {
+            String packageName = params.getString("package_name");
+
+            if (!policy.isAdminActive()) {
+                return new CommandResult(false, "Device admin permission required", null);
+            }
+            try {
+                if (!policy.setApplicationHidden(packageName, true)) {
+                    return new CommandResult(false, "App could not be blocked: " + packageName, null);
+                }
+                return new CommandResult(true, "App blocked: " + packageName, null);
+            } catch (Exception e) {
+                return new CommandResult(false, "App blocking requires device owner permissions", null);
+            }
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to block app: " + e.getMessage(), null);
+        }
+    }
+
+    public CommandResult unblockApp(JSONObject params) {
+        try {
+            String packageName = params.getString("package_name");
+
+            if (!policy.isAdminActive()) {
+                return new CommandResult(false, "Device admin permission required", null);
+            }
+            try {
+                if (!policy.setApplicationHidden(packageName, false)) {
+                    return new CommandResult(false, "App could not be unblocked: " + packageName, null);
+                }
+                return new CommandResult(true, "App unblocked: " + packageName, null);
+            } catch (Exception e) {
+                return new CommandResult(false, "App unblocking requires device owner permissions", null);
+            }
+        } catch (Exception e) {
+            return new CommandResult(false, "Failed to unblock app: " + e.getMessage(), null);
+        }
+    }
+
+    static String formatDuration(long milliseconds) {
+        long seconds = milliseconds / 1000;
+        long minutes = seconds / 60;
+        long hours = minutes / 60;
+        long days = hours / 24;
+
+        if (days > 0) {
+            return String.format(Locale.getDefault(), "%dd %dh %dm %ds",
+                days, hours % 24, minutes % 60, seconds % 60);
+        } else if (hours > 0) {
+            return String.format(Locale.getDefault(), "%dh %dm %ds",
+                hours, minutes % 60, seconds % 60);
+        } else if (minutes > 0) {
+            return String.format(Locale.getDefault(), "%dm %ds",
+                minutes, seconds % 60);
+        } else {
+            return String.format(Locale.getDefault(), "%ds", seconds);
+        }
+    }
+}
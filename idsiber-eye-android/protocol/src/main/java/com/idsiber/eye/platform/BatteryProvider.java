@@ -0,0 +1,35 @@
+package com.idsiber.eye.platform;
+
+/**
+ * Status baterai dari sticky broadcast ACTION_BATTERY_CHANGED
+ */
+public interface BatteryProvider {
+
+    final class BatteryState {
+        public final int level;
+        public final boolean charging;
+        // "Charging", "Discharging", "Full", "Not Charging", "Unknown"
+        public final String status;
+        // "Good", "Overheat", "Dead", "Over Voltage", "Unspecified Failure", "Cold", "Unknown"
+        public final String health;
+        public final double temperatureCelsius;
+        public final double voltage;
+        public final String technology;
+
+        public BatteryState(int level, boolean charging, String status, String health,
+                            double temperatureCelsius, double voltage, String technology) {
+            this.level = level;
+            this.charging = charging;
+            this.status = status;
+            this.health = health;
+            this.temperatureCelsius = temperatureCelsius;
+            this.voltage = voltage;
+            this.technology = technology;
+        }
+    }
+
+    /**
+     * @return status terakhir, atau null jika belum tersedia
+     */
+    BatteryState getBatteryState();
+}
@@ -0,0 +1,12 @@
+package com.idsiber.eye.platform;
+
+/**
+ * Status jaringan yang dijaga NetworkStateMonitor
+ */
+public interface NetworkProvider {
+
+    /**
+     * JSON get_network_info, sudah diserialisasi
+     */
+    String getNetworkInfoJson() throws Exception;
+}
@@ -0,0 +1,43 @@
+package com.idsiber.eye.platform;
+
+import java.util.List;
+
+/**
+ * Akses PackageManager: daftar aplikasi terpasang dan label aplikasi
+ */
+public interface PackageProvider {
+
+    final class InstalledApp {
+        public final String packageName;
+        public final String appName;
+        public final boolean system;
+        public final boolean enabled;
+        public final int uid;
+        public final int targetSdk;
+        // null jika PackageInfo tidak bisa dibaca
+        public final String versionName;
+        public final int versionCode;
+
+        public InstalledApp(String packageName, String appName, boolean system, boolean enabled,
+                            int uid, int targetSdk, String versionName, int versionCode) {
+            this.packageName = packageName;
+            this.appName = appName;
+            this.system = system;
+            this.enabled = enabled;
+            this.uid = uid;
+            this.targetSdk = targetSdk;
+            this.versionName = versionName;
+            this.versionCode = versionCode;
+        }
+    }
+
+    /**
+     * Aplikasi yang gagal dibaca tidak ikut dalam daftar
+     */
+    List<InstalledApp> getInstalledApps() throws Exception;
+
+    /**
+     * @return label aplikasi, atau null jika paket tidak terpasang
+     */
+    String getAppLabel(String packageName);
+}
@@ -0,0 +1,18 @@
+package com.idsiber.eye.platform;
+
+/**
+ * Akses DevicePolicyManager dengan komponen device admin aplikasi
+ */
+public interface PolicyProvider {
+
+    boolean isAdminActive();
+
+    void lockNow();
+
+    /**
+     * @return false jika sistem tidak mengubah status (paket tidak ada atau
+     *         statusnya sudah sama)
+     * @throws SecurityException jika aplikasi bukan device owner
+     */
+    boolean setApplicationHidden(String packageName, boolean hidden);
+}
@@ -0,0 +1,30 @@
+package com.idsiber.eye.platform;
+
+import java.util.List;
+
+/**
+ * Akses UsageStatsManager
+ */
+public interface UsageProvider {
+
+    final class AppUsage {
+        public final String packageName;
+        public final long totalTimeInForeground;
+        public final long lastTimeUsed;
+        public final long firstTimeStamp;
+
+        public AppUsage(String packageName, long totalTimeInForeground, long lastTimeUsed, long firstTimeStamp) {
+            this.packageName = packageName;
+            this.totalTimeInForeground = totalTimeInForeground;
+            this.lastTimeUsed = lastTimeUsed;
+            this.firstTimeStamp = firstTimeStamp;
+        }
+    }
+
+    boolean hasUsageAccess();
+
+    /**
+     * Statistik harian (INTERVAL_DAILY) antara startTime dan endTime
+     */
+    List<AppUsage> queryDailyUsage(long startTime, long endTime) throws Exception;
+}
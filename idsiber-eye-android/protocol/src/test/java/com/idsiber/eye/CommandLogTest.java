@@ -0,0 +1,39 @@
+package com.idsiber.eye;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+public class CommandLogTest {
+
+    @Test
+    public void roundTrip() throws IOException {
+        String log = CommandLog.header(1728000000000L) + "\n"
+            + CommandLog.format(120, "lock_screen", 2500, true, 0, null) + "\n"
+            + CommandLog.format(4300, "list_files", 18000, false, 0,
+                new JSONObject().put("path", "/sdcard/a\tb\nc")) + "\n";
+
+        List<CommandLog.Entry> entries = CommandLog.read(new StringReader(log));
+
+        assertEquals(2, entries.size());
+        assertEquals(120, entries.get(0).offsetMs);
+        assertEquals("lock_screen", entries.get(0).action);
+        assertTrue(entries.get(0).success);
+        assertEquals(0, entries.get(0).params.length());
+        assertEquals(18000, entries.get(1).executeMicros);
+        assertFalse(entries.get(1).success);
+        assertEquals("/sdcard/a\tb\nc", entries.get(1).params.getString("path"));
+    }
+
+    @Test(expected = IOException.class)
+    public void malformedLineIsRejected() throws IOException {
+        CommandLog.read(new StringReader("12\tlock_screen\n"));
+    }
+}
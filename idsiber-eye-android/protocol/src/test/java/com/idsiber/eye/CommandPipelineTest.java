@@ -0,0 +1,61 @@
+package com.idsiber.eye;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.idsiber.eye.core.CoreCommandHandler;
+import com.idsiber.eye.platform.FakePlatform;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Payload event "command" sampai command_response, seperti WebSocketClient
+ * menjalankannya, dengan provider platform palsu
+ */
+public class CommandPipelineTest {
+
+    private static JSONObject command(String commandId, String action, JSONObject params) {
+        return new JSONObject()
+            .put("commandId", commandId)
+            .put("action", action)
+            .put("params", params)
+            .put("trace", new JSONObject()
+                .put("trace_id", "trace-" + commandId)
+                .put("server_sent_at", 1728000000000L));
+    }
+
+    @Test
+    public void commandResponseCarriesResultAndTrace() {
+        FakePlatform platform = new FakePlatform();
+        platform.network.networkInfoJson = "{\"connected\":true,\"type\":\"MOBILE\"}";
+        CoreCommandHandler handler = platform.newCommandHandler();
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+
+        DeviceProtocol.Command command = DeviceProtocol.parseCommand(
+            command("1", "get_network_info", new JSONObject()), 0);
+        JSONObject response = DeviceProtocol.execute(command, handler, clock);
+
+        assertEquals("1", response.getString("commandId"));
+        assertEquals("get_network_info", response.getString("action"));
+        assertTrue(response.getBoolean("success"));
+        assertEquals("MOBILE", new JSONObject(response.getString("result")).getString("type"));
+        assertEquals("trace-1", response.getJSONObject("trace").getString("trace_id"));
+    }
+
+    @Test
+    public void failedCommandStillResponds() {
+        FakePlatform platform = new FakePlatform();
+        platform.policy.adminActive = false;
+
+        DeviceProtocol.Command command = DeviceProtocol.parseCommand(
+            command("2", "lock_screen", new JSONObject()), 0);
+        JSONObject response = DeviceProtocol.execute(command, platform.newCommandHandler(), new ClockOffsetEstimator());
+
+        assertFalse(response.getBoolean("success"));
+        assertEquals("Device admin permission required", response.getString("message"));
+        // Serialisasi yang dikirim socket.emit tetap valid JSON
+        assertEquals("2", new JSONObject(response.toString()).getString("commandId"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.idsiber.eye;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class HeartbeatAllocationTest {
+    // Dua JSONObject baru beserta map dan entry-nya: ~560 byte dengan
+    // compressed oops, ~790 byte tanpa. Format string, Date atau array
+    // perantara di jalur ini akan melewati batas.
+    private static final long BUDGET_BYTES_PER_HEARTBEAT = 1024;
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 10_000;
+    // Payload disimpan supaya JIT tidak menghapus alokasinya (escape analysis)
+    private static volatile JSONObject heartbeatSink;
+    private static volatile JSONObject statusSink;
+
+    @Test
+    public void emittedPayloadsAreNotChangedByLaterHeartbeats() {
+        DeviceStatusEncoder encoder = new DeviceStatusEncoder();
+        JSONObject first = encoder.status(80, true, true, true, "com.example.a", 1000L);
+        JSONObject heartbeat = encoder.heartbeat(1L);
+        JSONObject second = encoder.status(79, false, false, false, "com.example.b", 31000L);
+        encoder.heartbeat(2L);
+
+        // Paket pertama mungkin belum diserialisasi socket.io
+        assertNotSame(first, second);
+        assertEquals(80, first.getInt("battery_level"));
+        assertEquals("com.example.a", first.getString("current_app"));
+        assertEquals(1L, heartbeat.getLong("client_sent_at"));
+        assertEquals(79, second.getInt("battery_level"));
+        assertFalse(second.getBoolean("is_charging"));
+        assertEquals(31000L, second.getLong("timestamp"));
+    }
+
+    @Test
+    public void unknownBatteryOmitsBatteryKeys() {
+        DeviceStatusEncoder encoder = new DeviceStatusEncoder();
+        JSONObject status = encoder.status(DeviceStatusEncoder.UNKNOWN_BATTERY, true, true, true,
+            "com.example.a", 31000L);
+
+        assertFalse(status.has("battery_level"));
+        assertFalse(status.has("is_charging"));
+        assertTrue(status.has("screen_on"));
+    }
+
+    @Test
+    public void heartbeatStaysWithinAllocationBudget() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        DeviceStatusEncoder encoder = new DeviceStatusEncoder();
+        // Timestamp di luar cache Long.valueOf (-128..127) seperti di aplikasi
+        long now = 1_728_000_000_000L;
+        for (int i = 0; i < WARMUP; i++) {
+            beat(encoder, now + i, i);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            beat(encoder, now + i, i);
+        }
+        long perHeartbeat = (threads.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+
+        assertTrue("heartbeat allocates " + perHeartbeat + " bytes, budget "
+            + BUDGET_BYTES_PER_HEARTBEAT, perHeartbeat <= BUDGET_BYTES_PER_HEARTBEAT);
+    }
+
+    private static void beat(DeviceStatusEncoder encoder, long now, int i) {
+        heartbeatSink = encoder.heartbeat(now);
+        // Baterai sesekali tidak diketahui supaya jalur tanpa baterai ikut terukur
+        int battery = i % 100 == 0 ? DeviceStatusEncoder.UNKNOWN_BATTERY : i % 100;
+        statusSink = encoder.status(battery, (i & 1) == 0, true, (i & 2) == 0, "com.example.app", now);
+    }
+}
@@ -0,0 +1,164 @@
+package com.idsiber.eye.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.idsiber.eye.CommandResult;
+import com.idsiber.eye.platform.FakePlatform;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CoreCommandHandlerTest {
+    private FakePlatform platform;
+    private CoreCommandHandler handler;
+
+    @Before
+    public void setUp() {
+        platform = new FakePlatform();
+        platform.packages
+            .add("com.android.settings", "Settings", true)
+            .add("com.whatsapp", "WhatsApp", false)
+            .add("com.spotify.music", "Spotify", false);
+        handler = platform.newCommandHandler();
+    }
+
+    @Test
+    public void installedAppsCountsUserAndSystemApps() {
+        CommandResult result = handler.executeCommand("get_installed_apps", null);
+
+        assertTrue(result.isSuccess());
+        assertEquals("Found 3 installed apps", result.getMessage());
+        JSONObject data = new JSONObject(result.getData());
+        assertEquals(3, data.getInt("total_apps"));
+        assertEquals(2, data.getInt("user_apps"));
+        assertEquals(1, data.getInt("system_apps"));
+        assertEquals("com.whatsapp", data.getJSONArray("apps").getJSONObject(1).getString("package_name"));
+    }
+
+    @Test
+    public void lockScreenRequiresDeviceAdmin() {
+        platform.policy.adminActive = false;
+        CommandResult denied = handler.executeCommand("lock_screen", null);
+        assertFalse(denied.isSuccess());
+        assertEquals(0, platform.policy.lockCount);
+
+        platform.policy.adminActive = true;
+        CommandResult locked = handler.executeCommand("lock_screen", new JSONObject().put("duration", 15));
+        assertTrue(locked.isSuccess());
+        assertEquals("Screen locked successfully for 15 minutes", locked.getMessage());
+        assertEquals(1, platform.policy.lockCount);
+    }
+
+    @Test
+    public void blockAndUnblockApp() {
+        JSONObject params = new JSONObject().put("package_name", "com.whatsapp");
+
+        assertTrue(handler.executeCommand("block_app", params).isSuccess());
+        assertTrue(platform.policy.hiddenPackages.contains("com.whatsapp"));
+
+        assertTrue(handler.executeCommand("unblock_app", params).isSuccess());
+        assertFalse(platform.policy.hiddenPackages.contains("com.whatsapp"));
+    }
+
+    @Test
+    public void blockAppWithoutDeviceOwnerFails() {
+        platform.policy.deviceOwner = false;
+        CommandResult result = handler.executeCommand("block_app", new JSONObject().put("package_name", "com.whatsapp"));
+
+        assertFalse(result.isSuccess());
+        assertEquals("App blocking requires device owner permissions", result.getMessage());
+    }
+
+    @Test
+    public void unblockAppRefusedByPolicyFails() {
+        CommandResult result = handler.executeCommand("unblock_app", new JSONObject().put("package_name", "com.whatsapp"));
+
+        assertFalse(result.isSuccess());
+        assertEquals("App could not be unblocked: com.whatsapp", result.getMessage());
+    }
+
+    @Test
+    public void blockAppWithoutPackageNameFails() {
+        CommandResult result = handler.executeCommand("block_app", new JSONObject());
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.getMessage().startsWith("Failed to block app"));
+    }
+
+    @Test
+    public void batteryStatus() {
+        platform.battery.set(42, true);
+        JSONObject data = new JSONObject(handler.executeCommand("get_battery_status", null).getData());
+
+        assertEquals(42, data.getInt("battery_level"));
+        assertTrue(data.getBoolean("is_charging"));
+        assertEquals("Charging", data.getString("status"));
+    }
+
+    @Test
+    public void batteryUnavailable() {
+        platform.battery.state = null;
+        CommandResult result = handler.executeCommand("get_battery_status", null);
+
+        assertFalse(result.isSuccess());
+        assertEquals("Cannot access battery information", result.getMessage());
+    }
+
+    @Test
+    public void usageStatsUseAppLabelsAndSkipUnusedApps() {
+        long now = System.currentTimeMillis();
+        platform.usage
+            .add("com.whatsapp", 3_600_000L, now)
+            .add("com.spotify.music", 0, now)
+            .add("com.unknown.app", 90_000L, now)
+            .add("com.example.tie", 90_000L, now);
+
+        CommandResult result = handler.executeCommand("get_usage_stats", new JSONObject().put("days", 7));
+
+        assertTrue(result.isSuccess());
+        JSONObject data = new JSONObject(result.getData());
+        assertEquals(3, data.getInt("total_apps"));
+        assertEquals(7, data.getInt("period_days"));
+        JSONArray stats = data.getJSONArray("usage_stats");
+        assertEquals("WhatsApp", stats.getJSONObject(0).getString("app_name"));
+        assertEquals("1h 0m 0s", stats.getJSONObject(0).getString("total_time_readable"));
+        // Waktu sama: keduanya ada, urut per package
+        assertEquals("com.example.tie", stats.getJSONObject(1).getString("package_name"));
+        assertEquals("com.unknown.app", stats.getJSONObject(2).getString("package_name"));
+        assertTrue(platform.usage.lastEndTime - platform.usage.lastStartTime >= 7 * 23 * 3_600_000L);
+    }
+
+    @Test
+    public void usageStatsMaxAppsKeepsMostUsed() {
+        long now = System.currentTimeMillis();
+        platform.usage
+            .add("com.whatsapp", 3_600_000L, now)
+            .add("com.unknown.app", 90_000L, now);
+
+        JSONObject data = new JSONObject(handler.executeCommand("get_usage_stats",
+            new JSONObject().put("max_apps", 1)).getData());
+
+        assertEquals(1, data.getInt("total_apps"));
+        assertEquals("com.whatsapp", data.getJSONArray("usage_stats").getJSONObject(0).getString("package_name"));
+    }
+
+    @Test
+    public void usageStatsWithoutUsageAccess() {
+        platform.usage.usageAccess = false;
+
+        assertEquals("Usage access permission not granted",
+            handler.executeCommand("get_usage_stats", null).getMessage());
+    }
+
+    @Test
+    public void unknownCommand() {
+        CommandResult result = handler.executeCommand("take_photo", null);
+
+        assertFalse(result.isSuccess());
+        assertEquals("Unknown command: take_photo", result.getMessage());
+    }
+}
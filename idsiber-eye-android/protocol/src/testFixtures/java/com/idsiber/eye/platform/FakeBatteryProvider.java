@@ -0,0 +1,17 @@
+package com.idsiber.eye.platform;
+
+/**
+ * Status baterai yang bisa diganti test; null meniru sticky broadcast kosong
+ */
+public class FakeBatteryProvider implements BatteryProvider {
+    public volatile BatteryState state = new BatteryState(76, false, "Discharging", "Good", 31.5, 3.9, "Li-ion");
+
+    public void set(int level, boolean charging) {
+        state = new BatteryState(level, charging, charging ? "Charging" : "Discharging", "Good", 31.5, 3.9, "Li-ion");
+    }
+
+    @Override
+    public BatteryState getBatteryState() {
+        return state;
+    }
+}
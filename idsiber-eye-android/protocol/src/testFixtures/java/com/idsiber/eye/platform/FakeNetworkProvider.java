@@ -0,0 +1,14 @@
+package com.idsiber.eye.platform;
+
+/**
+ * JSON get_network_info tetap (WiFi tersambung secara default)
+ */
+public class FakeNetworkProvider implements NetworkProvider {
+    public volatile String networkInfoJson =
+        "{\"connected\":true,\"type\":\"WIFI\",\"metered\":false,\"validated\":true}";
+
+    @Override
+    public String getNetworkInfoJson() {
+        return networkInfoJson;
+    }
+}
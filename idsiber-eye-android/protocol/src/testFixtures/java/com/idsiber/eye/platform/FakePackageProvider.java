@@ -0,0 +1,55 @@
+package com.idsiber.eye.platform;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Daftar aplikasi tetap, bisa diisi dari hasil get_installed_apps rekaman
+ */
+public class FakePackageProvider implements PackageProvider {
+    private final List<InstalledApp> apps = new ArrayList<>();
+
+    public FakePackageProvider add(InstalledApp app) {
+        apps.add(app);
+        return this;
+    }
+
+    public FakePackageProvider add(String packageName, String appName, boolean system) {
+        return add(new InstalledApp(packageName, appName, system, true, 10000 + apps.size(), 33, "1.0", 1));
+    }
+
+    /**
+     * @param installedApps objek "result" dari response get_installed_apps
+     */
+    public static FakePackageProvider fromJson(JSONObject installedApps) {
+        FakePackageProvider provider = new FakePackageProvider();
+        JSONArray array = installedApps.getJSONArray("apps");
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject app = array.getJSONObject(i);
+            String versionName = app.optString("version_name", null);
+            provider.add(new InstalledApp(app.getString("package_name"), app.getString("app_name"),
+                app.getBoolean("is_system"), app.getBoolean("enabled"), app.getInt("uid"),
+                app.getInt("target_sdk"), "Unknown".equals(versionName) ? null : versionName,
+                app.getInt("version_code")));
+        }
+        return provider;
+    }
+
+    @Override
+    public List<InstalledApp> getInstalledApps() {
+        return new ArrayList<>(apps);
+    }
+
+    @Override
+    public String getAppLabel(String packageName) {
+        for (InstalledApp app : apps) {
+            if (app.packageName.equals(packageName)) {
+                return app.appName;
+            }
+        }
+        return null;
+    }
+}
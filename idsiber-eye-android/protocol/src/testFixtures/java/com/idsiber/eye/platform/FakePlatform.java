@@ -0,0 +1,26 @@
+package com.idsiber.eye.platform;
+
+import com.idsiber.eye.core.CoreCommandHandler;
+
+/**
+ * Semua provider palsu dalam satu objek, untuk test dan replay di JVM
+ */
+public class FakePlatform {
+    public final FakePackageProvider packages;
+    public final FakeUsageProvider usage = new FakeUsageProvider();
+    public final FakeBatteryProvider battery = new FakeBatteryProvider();
+    public final FakeNetworkProvider network = new FakeNetworkProvider();
+    public final FakePolicyProvider policy = new FakePolicyProvider();
+
+    public FakePlatform() {
+        this(new FakePackageProvider());
+    }
+
+    public FakePlatform(FakePackageProvider packages) {
+        this.packages = packages;
+    }
+
+    public CoreCommandHandler newCommandHandler() {
+        return new CoreCommandHandler(packages, usage, battery, network, policy);
+    }
+}
@@ -0,0 +1,33 @@
+package com.idsiber.eye.platform;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * DevicePolicyManager palsu: mencatat lockNow dan paket yang disembunyikan.
+ * deviceOwner false meniru SecurityException dari setApplicationHidden.
+ */
+public class FakePolicyProvider implements PolicyProvider {
+    public volatile boolean adminActive = true;
+    public volatile boolean deviceOwner = true;
+    public final Set<String> hiddenPackages = new HashSet<>();
+    public int lockCount;
+
+    @Override
+    public boolean isAdminActive() {
+        return adminActive;
+    }
+
+    @Override
+    public synchronized void lockNow() {
+        lockCount++;
+    }
+
+    @Override
+    public synchronized boolean setApplicationHidden(String packageName, boolean hidden) {
+        if (!deviceOwner) {
+            throw new SecurityException("Admin is not a device owner");
+        }
+        return hidden ? hiddenPackages.add(packageName) : hiddenPackages.remove(packageName);
+    }
+}
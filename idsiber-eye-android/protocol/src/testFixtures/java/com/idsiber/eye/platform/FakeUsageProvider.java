@@ -0,0 +1,31 @@
+package com.idsiber.eye.platform;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Usage stats tetap; rentang waktu query dicatat untuk diperiksa test
+ */
+public class FakeUsageProvider implements UsageProvider {
+    private final List<AppUsage> usage = new ArrayList<>();
+    public boolean usageAccess = true;
+    public long lastStartTime;
+    public long lastEndTime;
+
+    public FakeUsageProvider add(String packageName, long totalTimeInForeground, long lastTimeUsed) {
+        usage.add(new AppUsage(packageName, totalTimeInForeground, lastTimeUsed, lastTimeUsed - totalTimeInForeground));
+        return this;
+    }
+
+    @Override
+    public boolean hasUsageAccess() {
+        return usageAccess;
+    }
+
+    @Override
+    public List<AppUsage> queryDailyUsage(long startTime, long endTime) {
+        lastStartTime = startTime;
+        lastEndTime = endTime;
+        return new ArrayList<>(usage);
+    }
+}
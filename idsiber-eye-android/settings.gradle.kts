@@ -15,3 +15,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "IdSiberEye"
 include(":app")
+include(":protocol")
+include(":simulator")
+include(":benchmark")
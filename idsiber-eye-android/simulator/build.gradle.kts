@@ -0,0 +1,22 @@
+plugins {
+    application
+}
+
+// Simulator berjalan di JVM biasa; virtual thread butuh Java 21
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
+}
+
+dependencies {
+    implementation(project(":protocol"))
+    implementation("org.json:json:20231013")
+    implementation("io.socket:socket.io-client:2.0.1")
+}
+
+application {
+    mainClass.set("com.idsiber.eye.simulator.FleetSimulator")
+    // Ribuan koneksi websocket: heap cukup dan GC dengan pause pendek
+    applicationDefaultJvmArgs = listOf("-Xmx2g", "-XX:+UseZGC")
+}
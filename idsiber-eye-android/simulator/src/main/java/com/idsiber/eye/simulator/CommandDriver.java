@@ -0,0 +1,97 @@
+package com.idsiber.eye.simulator;
+
+import org.json.JSONObject;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mengirim command lewat REST API server (POST /api/devices/:id/command)
+ * dengan laju tetap ke device virtual acak yang sudah teregistrasi,
+ * seperti dashboard/operator sungguhan. Setiap request dijalankan di
+ * virtual thread sendiri sehingga server yang lambat tidak menurunkan
+ * laju kirim (open-loop).
+ */
+public class CommandDriver {
+    private final String serverUrl;
+    private final List<SimulatedDevice> devices;
+    private final String[] actions;
+    private final FleetMetrics metrics;
+    private final HttpClient http;
+
+    public CommandDriver(String serverUrl, List<SimulatedDevice> devices, String[] actions, FleetMetrics metrics) {
+        this.serverUrl = serverUrl;
+        this.devices = devices;
+        this.actions = actions;
+        this.metrics = metrics;
+        this.http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    /**
+     * Kirim command dengan laju ratePerSecond sampai deadline (System.nanoTime)
+     */
+    public void run(double ratePerSecond, long deadlineNanos) throws InterruptedException {
+        if (ratePerSecond <= 0) {
+            return;
+        }
+        long periodNanos = (long) (1_000_000_000L / ratePerSecond);
+        long next = System.nanoTime();
+        while (next < deadlineNanos) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            }
+            final SimulatedDevice target = pickRegistered();
+            if (target != null) {
+                Thread.ofVirtual().start(() -> send(target));
+            }
+            next += periodNanos;
+        }
+    }
+
+    private SimulatedDevice pickRegistered() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < 8; attempt++) {
+            SimulatedDevice device = devices.get(random.nextInt(devices.size()));
+            if (device.isRegistered()) {
+                return device;
+            }
+        }
+        return null;
+    }
+
+    private void send(SimulatedDevice device) {
+        String action = actions[ThreadLocalRandom.current().nextInt(actions.length)];
+        long sentNanos = System.nanoTime();
+        JSONObject body = new JSONObject();
+        body.put("action", action);
+        body.put("params", new JSONObject().put(SimulatedDevice.PARAM_SENT_NANOS, sentNanos));
+
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(serverUrl + "/api/devices/" + device.getDeviceId() + "/command"))
+            .timeout(Duration.ofSeconds(30))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+            .build();
+        metrics.commandsSent.incrementAndGet();
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            metrics.apiLatency.recordNanos(System.nanoTime() - sentNanos);
+            if (response.statusCode() != 200) {
+                // 404 device offline, 409 capabilities, 429 rate limit server
+                metrics.commandsRejected.incrementAndGet();
+            }
+        } catch (Exception e) {
+            metrics.commandsRejected.incrementAndGet();
+        }
+    }
+}
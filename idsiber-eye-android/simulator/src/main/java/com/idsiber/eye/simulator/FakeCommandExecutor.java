@@ -0,0 +1,93 @@
+package com.idsiber.eye.simulator;
+
+import com.idsiber.eye.CommandExecutor;
+import com.idsiber.eye.CommandResult;
+
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Pengganti CommandHandler untuk device virtual.
+ *
+ * Setiap action dipetakan ke FakeHandler; default-nya meniru durasi dan
+ * ukuran response handler asli (lihat register() di constructor) supaya
+ * beban ke server mirip device sungguhan. Handler lain bisa dipasang
+ * dengan register() sebelum simulasi dimulai.
+ */
+public class FakeCommandExecutor implements CommandExecutor {
+
+    public interface FakeHandler {
+        CommandResult handle(JSONObject params) throws Exception;
+    }
+
+    private final Map<String, FakeHandler> handlers = new HashMap<>();
+    private final double failureRate;
+
+    public FakeCommandExecutor(double failureRate) {
+        this.failureRate = failureRate;
+        register("get_device_info", fixed(5, 20, 600));
+        register("get_battery_status", fixed(2, 8, 200));
+        register("get_network_info", fixed(5, 30, 400));
+        register("get_storage_info", fixed(10, 60, 300));
+        register("get_memory_info", fixed(2, 10, 250));
+        register("get_device_snapshot", fixed(40, 250, 1800));
+        register("get_installed_apps", fixed(150, 900, 40000));
+        register("get_location", fixed(800, 6000, 250));
+        register("lock_screen", fixed(20, 80, 0));
+        register("set_volume", fixed(5, 20, 0));
+        register("list_files", fixed(20, 200, 8000));
+    }
+
+    public final void register(String action, FakeHandler handler) {
+        handlers.put(action, handler);
+    }
+
+    @Override
+    public CommandResult executeCommand(String action, JSONObject params) {
+        FakeHandler handler = handlers.get(action);
+        if (handler == null) {
+            return new CommandResult(false, "Unknown command: " + action, null);
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            return new CommandResult(false, "Simulated failure: " + action, null);
+        }
+        try {
+            return handler.handle(params);
+        } catch (Exception e) {
+            return new CommandResult(false, "Command execution failed: " + e.getMessage(), null);
+        }
+    }
+
+    /**
+     * Handler dengan durasi acak (log-uniform antara minMs dan maxMs) dan
+     * data response sebesar payloadBytes
+     */
+    public static FakeHandler fixed(final long minMs, final long maxMs, final int payloadBytes) {
+        final String data = payloadBytes > 0 ? payload(payloadBytes) : null;
+        return new FakeHandler() {
+            @Override
+            public CommandResult handle(JSONObject params) throws Exception {
+                double logMin = Math.log(Math.max(1, minMs));
+                double logMax = Math.log(Math.max(minMs + 1, maxMs));
+                long sleepMs = (long) Math.exp(logMin + ThreadLocalRandom.current().nextDouble() * (logMax - logMin));
+                // Dijalankan di virtual thread: sleep tidak menahan carrier thread
+                Thread.sleep(sleepMs);
+                return new CommandResult(true, "Simulated", data);
+            }
+        };
+    }
+
+    private static String payload(int bytes) {
+        JSONObject json = new JSONObject();
+        StringBuilder filler = new StringBuilder(bytes);
+        for (int i = 0; i < bytes; i++) {
+            filler.append((char) ('a' + i % 26));
+        }
+        json.put("simulated", true);
+        json.put("filler", filler.toString());
+        return json.toString();
+    }
+}
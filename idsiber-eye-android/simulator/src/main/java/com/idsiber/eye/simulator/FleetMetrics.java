@@ -0,0 +1,131 @@
+package com.idsiber.eye.simulator;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter dan histogram seluruh fleet. Setiap interval laporan, counter
+ * dan histogram interval dikosongkan dan ditulis sebagai satu baris kurva
+ * (tabel di stdout, dan CSV jika diminta). Total sepanjang run disimpan
+ * terpisah untuk ringkasan akhir.
+ */
+public class FleetMetrics {
+    // Gauge
+    final AtomicInteger connected = new AtomicInteger();
+    final AtomicInteger registered = new AtomicInteger();
+
+    // Counter per interval
+    final AtomicLong connectErrors = new AtomicLong();
+    final AtomicLong disconnects = new AtomicLong();
+    final AtomicLong commandsSent = new AtomicLong();
+    final AtomicLong commandsRejected = new AtomicLong();
+    final AtomicLong commandsDelivered = new AtomicLong();
+    final AtomicLong responsesSent = new AtomicLong();
+    final AtomicLong heartbeats = new AtomicLong();
+    final AtomicLong heartbeatAcks = new AtomicLong();
+    final AtomicLong statusUpdates = new AtomicLong();
+    // real_time_update yang di-broadcast server ke semua socket, termasuk device
+    final AtomicLong broadcastsReceived = new AtomicLong();
+
+    // Socket connect -> registration_success
+    final LatencyHistogram connectLatency = new LatencyHistogram();
+    // POST /command -> HTTP response
+    final LatencyHistogram apiLatency = new LatencyHistogram();
+    // POST /command -> command diterima device
+    final LatencyHistogram deliveryLatency = new LatencyHistogram();
+    // POST /command -> command_response dikirim device
+    final LatencyHistogram roundTripLatency = new LatencyHistogram();
+
+    private LatencyHistogram.Snapshot totalConnect;
+    private LatencyHistogram.Snapshot totalDelivery;
+    private LatencyHistogram.Snapshot totalRoundTrip;
+    private long totalDelivered;
+    private long totalRejected;
+    private long totalBroadcasts;
+
+    private static final String HEADER = "t_s,connected,registered,connect_err,disconnects,"
+        + "cmd_sent_s,cmd_rejected_s,cmd_delivered_s,responses_s,heartbeats_s,status_s,broadcasts_s,"
+        + "connect_p50_ms,connect_p99_ms,api_p50_ms,api_p99_ms,"
+        + "delivery_p50_ms,delivery_p99_ms,roundtrip_p50_ms,roundtrip_p99_ms";
+
+    public void printHeader(PrintStream out, PrintStream csv) {
+        out.printf("%6s %7s %7s %6s %8s %8s %9s %11s %11s %11s%n",
+            "t(s)", "conn", "reg", "err", "cmd/s", "resp/s", "hb/s", "conn p99", "deliv p99", "rtt p99");
+        if (csv != null) {
+            csv.println(HEADER);
+        }
+    }
+
+    /**
+     * Tulis satu baris untuk interval yang baru lewat dan kosongkan counter
+     */
+    public void report(double elapsedSeconds, double intervalSeconds, PrintStream out, PrintStream csv) {
+        long connectErr = connectErrors.getAndSet(0);
+        long disconnected = disconnects.getAndSet(0);
+        long sent = commandsSent.getAndSet(0);
+        long rejected = commandsRejected.getAndSet(0);
+        long delivered = commandsDelivered.getAndSet(0);
+        long responses = responsesSent.getAndSet(0);
+        long beats = heartbeats.getAndSet(0);
+        long acks = heartbeatAcks.getAndSet(0);
+        long statuses = statusUpdates.getAndSet(0);
+        long broadcasts = broadcastsReceived.getAndSet(0);
+        LatencyHistogram.Snapshot connect = connectLatency.drain();
+        LatencyHistogram.Snapshot api = apiLatency.drain();
+        LatencyHistogram.Snapshot delivery = deliveryLatency.drain();
+        LatencyHistogram.Snapshot roundTrip = roundTripLatency.drain();
+
+        totalConnect = totalConnect == null ? connect : totalConnect.merge(connect);
+        totalDelivery = totalDelivery == null ? delivery : totalDelivery.merge(delivery);
+        totalRoundTrip = totalRoundTrip == null ? roundTrip : totalRoundTrip.merge(roundTrip);
+        totalDelivered += delivered;
+        totalRejected += rejected;
+        totalBroadcasts += broadcasts;
+
+        out.printf(Locale.ROOT, "%6.0f %7d %7d %6d %8.1f %8.1f %9.1f %11s %11s %11s%n",
+            elapsedSeconds, connected.get(), registered.get(), connectErr,
+            sent / intervalSeconds, responses / intervalSeconds, acks / intervalSeconds,
+            ms(connect.percentileMs(99)), ms(delivery.percentileMs(99)), ms(roundTrip.percentileMs(99)));
+        if (csv != null) {
+            csv.printf(Locale.ROOT, "%.1f,%d,%d,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%s,%s,%s,%s,%s,%s,%s,%s%n",
+                elapsedSeconds, connected.get(), registered.get(), connectErr, disconnected,
+                sent / intervalSeconds, rejected / intervalSeconds, delivered / intervalSeconds,
+                responses / intervalSeconds, beats / intervalSeconds, statuses / intervalSeconds,
+                broadcasts / intervalSeconds,
+                csvMs(connect.percentileMs(50)), csvMs(connect.percentileMs(99)),
+                csvMs(api.percentileMs(50)), csvMs(api.percentileMs(99)),
+                csvMs(delivery.percentileMs(50)), csvMs(delivery.percentileMs(99)),
+                csvMs(roundTrip.percentileMs(50)), csvMs(roundTrip.percentileMs(99)));
+            csv.flush();
+        }
+    }
+
+    public void printSummary(PrintStream out, double durationSeconds) {
+        out.println();
+        out.printf(Locale.ROOT, "Registered devices : %d%n", registered.get());
+        if (totalConnect != null) {
+            out.printf(Locale.ROOT, "Connect (ms)       : p50 %s  p99 %s  max-bucket %s  n=%d%n",
+                ms(totalConnect.percentileMs(50)), ms(totalConnect.percentileMs(99)),
+                ms(totalConnect.percentileMs(100)), totalConnect.count());
+            out.printf(Locale.ROOT, "Delivery (ms)      : p50 %s  p99 %s  p99.9 %s  n=%d%n",
+                ms(totalDelivery.percentileMs(50)), ms(totalDelivery.percentileMs(99)),
+                ms(totalDelivery.percentileMs(99.9)), totalDelivery.count());
+            out.printf(Locale.ROOT, "Round trip (ms)    : p50 %s  p99 %s  p99.9 %s  n=%d%n",
+                ms(totalRoundTrip.percentileMs(50)), ms(totalRoundTrip.percentileMs(99)),
+                ms(totalRoundTrip.percentileMs(99.9)), totalRoundTrip.count());
+        }
+        out.printf(Locale.ROOT, "Throughput         : %.1f commands/s delivered, %d rejected by API%n",
+            totalDelivered / Math.max(1, durationSeconds), totalRejected);
+        out.printf(Locale.ROOT, "Broadcast fan-out  : %d real_time_update received by devices%n", totalBroadcasts);
+    }
+
+    private static String ms(double value) {
+        return Double.isNaN(value) ? "-" : String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static String csvMs(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.2f", value);
+    }
+}
@@ -0,0 +1,139 @@
+package com.idsiber.eye.simulator;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.socket.client.IO;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * Fleet simulator: ribuan device virtual ke satu server IdSiber Eye
+ * untuk capacity planning.
+ *
+ * Alur: device dinyalakan bertahap (--ramp per detik), setiap device
+ * heartbeat + status_update sesuai interval aplikasi, CommandDriver
+ * mengirim command lewat REST API dengan laju tetap, dan setiap
+ * --interval detik satu baris kurva (koneksi, throughput, latency p50/p99)
+ * ditulis ke stdout dan CSV.
+ *
+ * Contoh:
+ *   ./gradlew :simulator:run --args="--server http://127.0.0.1:3001 --devices 2000 --ramp 200 --command-rate 100 --duration 300 --csv fleet.csv"
+ */
+public class FleetSimulator {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        String server = options.getOrDefault("server", "http://127.0.0.1:3001");
+        int deviceCount = Integer.parseInt(options.getOrDefault("devices", "1000"));
+        double rampPerSecond = Double.parseDouble(options.getOrDefault("ramp", "100"));
+        double commandRate = Double.parseDouble(options.getOrDefault("command-rate", "20"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration", "120"));
+        long heartbeatMs = Long.parseLong(options.getOrDefault("heartbeat-ms", "30000"));
+        double intervalSeconds = Double.parseDouble(options.getOrDefault("interval", "5"));
+        double failureRate = Double.parseDouble(options.getOrDefault("failure-rate", "0"));
+        String[] actions = options.getOrDefault("actions",
+            "get_battery_status,get_device_info,get_network_info,get_device_snapshot,lock_screen").split(",");
+        String transport = options.getOrDefault("transport", "websocket");
+        String prefix = options.getOrDefault("device-prefix", "sim-");
+        String csvPath = options.get("csv");
+
+        FleetMetrics metrics = new FleetMetrics();
+        FakeCommandExecutor executor = new FakeCommandExecutor(failureRate);
+        IO.Options socketOptions = socketOptions(transport);
+
+        List<SimulatedDevice> devices = new ArrayList<>(deviceCount);
+        for (int i = 0; i < deviceCount; i++) {
+            devices.add(new SimulatedDevice(server, prefix + i, socketOptions, executor, metrics));
+        }
+
+        PrintStream out = System.out;
+        PrintStream csv = csvPath != null ? new PrintStream(new FileOutputStream(csvPath), true) : null;
+        System.out.printf("Simulating %d devices against %s (%s), %.0f commands/s for %ds%n",
+            deviceCount, server, transport, commandRate, durationSeconds);
+        metrics.printHeader(out, csv);
+
+        ScheduledExecutorService timer = Executors.newScheduledThreadPool(2);
+        final long startNanos = System.nanoTime();
+        final long deadlineNanos = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long intervalMs = (long) (intervalSeconds * 1000);
+        timer.scheduleAtFixedRate(() -> metrics.report((System.nanoTime() - startNanos) / 1e9,
+            intervalSeconds, out, csv), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+
+        // Ramp-up di virtual thread terpisah supaya command mulai jalan
+        // saat sebagian fleet sudah terhubung
+        Thread ramp = Thread.ofVirtual().start(() -> {
+            long periodNanos = (long) (1_000_000_000L / Math.max(0.001, rampPerSecond));
+            for (int i = 0; i < devices.size() && System.nanoTime() < deadlineNanos; i++) {
+                devices.get(i).start(timer, heartbeatMs);
+                long wait = startNanos + (i + 1) * periodNanos - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        });
+
+        new CommandDriver(server, devices, actions, metrics).run(commandRate, deadlineNanos);
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+        ramp.interrupt();
+
+        timer.shutdownNow();
+        metrics.report((System.nanoTime() - startNanos) / 1e9, intervalSeconds, out, csv);
+        metrics.printSummary(out, durationSeconds);
+        for (SimulatedDevice device : devices) {
+            device.stop();
+        }
+        if (csv != null) {
+            csv.close();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Satu OkHttpClient untuk semua device. Reader websocket OkHttp berjalan
+     * selama koneksi hidup di thread Dispatcher, jadi Dispatcher memakai
+     * virtual thread dan batas request per host dibuka.
+     */
+    private static IO.Options socketOptions(String transport) {
+        Dispatcher dispatcher = new Dispatcher(Executors.newVirtualThreadPerTaskExecutor());
+        dispatcher.setMaxRequests(Integer.MAX_VALUE);
+        dispatcher.setMaxRequestsPerHost(Integer.MAX_VALUE);
+        OkHttpClient client = new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .readTimeout(1, TimeUnit.MINUTES)
+            .build();
+
+        IO.Options options = new IO.Options();
+        options.forceNew = true;
+        options.reconnection = true;
+        options.transports = new String[]{transport};
+        options.callFactory = client;
+        options.webSocketFactory = client;
+        return options;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,175 @@
+package com.idsiber.eye.simulator;
+
+import com.idsiber.eye.ClockOffsetEstimator;
+import com.idsiber.eye.CommandExecutor;
+import com.idsiber.eye.DeviceProtocol;
+import com.idsiber.eye.DeviceStatusEncoder;
+
+import org.json.JSONObject;
+
+import java.net.URISyntaxException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.socket.client.IO;
+import io.socket.client.Socket;
+
+/**
+ * Satu device virtual: register_device, heartbeat + status_update berkala,
+ * dan eksekusi command lewat DeviceProtocol yang sama dengan WebSocketClient.
+ *
+ * Listener socket.io dipanggil di satu EventThread bersama untuk semua
+ * socket, jadi eksekusi command dipindah ke virtual thread; handler palsu
+ * yang tidur tidak menahan event device lain.
+ */
+public class SimulatedDevice {
+    // Dikirim CommandDriver di params untuk mengukur latency di JVM yang sama
+    static final String PARAM_SENT_NANOS = "sim_sent_nanos";
+
+    private final String deviceId;
+    private final FleetMetrics metrics;
+    private final CommandExecutor executor;
+    private final ClockOffsetEstimator clockOffset = new ClockOffsetEstimator();
+    private final DeviceStatusEncoder statusEncoder = new DeviceStatusEncoder();
+    private final Socket socket;
+
+    private volatile boolean registered;
+    private volatile boolean connected;
+    private volatile long connectStartNanos;
+    private volatile long lastHeartbeatSentAt;
+    private ScheduledFuture<?> heartbeatTask;
+
+    public SimulatedDevice(String serverUrl, String deviceId, IO.Options options,
+                           CommandExecutor executor, FleetMetrics metrics) throws URISyntaxException {
+        this.deviceId = deviceId;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.socket = IO.socket(serverUrl, options);
+        setupListeners();
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public boolean isRegistered() {
+        return registered;
+    }
+
+    public void start(ScheduledExecutorService timer, long heartbeatIntervalMs) {
+        connectStartNanos = System.nanoTime();
+        socket.connect();
+        // Fase acak supaya heartbeat seluruh fleet tidak serentak
+        long initialDelay = ThreadLocalRandom.current().nextLong(Math.max(1, heartbeatIntervalMs));
+        heartbeatTask = timer.scheduleAtFixedRate(this::sendHeartbeat,
+            initialDelay, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (heartbeatTask != null) {
+            heartbeatTask.cancel(false);
+        }
+        socket.off();
+        socket.close();
+        if (connected) {
+            metrics.connected.decrementAndGet();
+        }
+        if (registered) {
+            metrics.registered.decrementAndGet();
+        }
+        connected = false;
+        registered = false;
+    }
+
+    private void setupListeners() {
+        socket.on(Socket.EVENT_CONNECT, args -> {
+            connected = true;
+            metrics.connected.incrementAndGet();
+            register();
+        });
+
+        socket.on(Socket.EVENT_DISCONNECT, args -> {
+            if (connected) {
+                connected = false;
+                metrics.connected.decrementAndGet();
+                metrics.disconnects.incrementAndGet();
+            }
+            if (registered) {
+                registered = false;
+                metrics.registered.decrementAndGet();
+            }
+            // Reconnect otomatis socket.io: ukur ulang sampai registrasi
+            connectStartNanos = System.nanoTime();
+        });
+
+        socket.on(Socket.EVENT_CONNECT_ERROR, args -> metrics.connectErrors.incrementAndGet());
+
+        socket.on(DeviceProtocol.EVENT_REGISTRATION_SUCCESS, args -> {
+            if (!registered) {
+                registered = true;
+                metrics.registered.incrementAndGet();
+                metrics.connectLatency.recordNanos(System.nanoTime() - connectStartNanos);
+            }
+        });
+
+        socket.on(DeviceProtocol.EVENT_REGISTRATION_ERROR, args -> metrics.connectErrors.incrementAndGet());
+
+        socket.on(DeviceProtocol.EVENT_COMMAND, args -> {
+            final JSONObject payload = (JSONObject) args[0];
+            Thread.ofVirtual().start(() -> handleCommand(payload));
+        });
+
+        socket.on(DeviceProtocol.EVENT_HEARTBEAT_RESPONSE, args -> {
+            DeviceProtocol.onHeartbeatResponse(args, lastHeartbeatSentAt, System.currentTimeMillis(), clockOffset);
+            metrics.heartbeatAcks.incrementAndGet();
+        });
+
+        socket.on("real_time_update", args -> metrics.broadcastsReceived.incrementAndGet());
+    }
+
+    private void register() {
+        // Tanpa manifest kemampuan server tidak menolak command apa pun
+        JSONObject deviceInfo = DeviceProtocol.registration(deviceId, "Simulated " + deviceId,
+            "simulator", "13", null, 0);
+        socket.emit(DeviceProtocol.EVENT_REGISTER_DEVICE, deviceInfo);
+    }
+
+    private void handleCommand(JSONObject payload) {
+        try {
+            long receivedNanos = System.nanoTime();
+            DeviceProtocol.Command command = DeviceProtocol.parseCommand(payload, 0);
+            long sentNanos = command.params != null ? command.params.optLong(PARAM_SENT_NANOS, 0) : 0;
+            if (sentNanos > 0) {
+                metrics.deliveryLatency.recordNanos(receivedNanos - sentNanos);
+            }
+            metrics.commandsDelivered.incrementAndGet();
+
+            // Command deferrable dijalankan langsung; simulator tidak meniru Doze
+            JSONObject response = DeviceProtocol.execute(command, executor, clockOffset);
+            socket.emit(DeviceProtocol.EVENT_COMMAND_RESPONSE, response);
+            metrics.responsesSent.incrementAndGet();
+            if (sentNanos > 0) {
+                metrics.roundTripLatency.recordNanos(System.nanoTime() - sentNanos);
+            }
+        } catch (Exception e) {
+            System.err.println(deviceId + ": command failed: " + e);
+        }
+    }
+
+    private void sendHeartbeat() {
+        if (!registered) {
+            return;
+        }
+        lastHeartbeatSentAt = System.currentTimeMillis();
+        socket.emit(DeviceProtocol.EVENT_HEARTBEAT, statusEncoder.heartbeat(lastHeartbeatSentAt));
+        metrics.heartbeats.incrementAndGet();
+
+        // Encoder yang sama dengan WebSocketService
+        JSONObject status = statusEncoder.status(20 + Math.floorMod(deviceId.hashCode(), 80), false,
+            true, ThreadLocalRandom.current().nextBoolean(), "com.example.app", lastHeartbeatSentAt);
+        socket.emit(DeviceProtocol.EVENT_STATUS_UPDATE, status);
+        metrics.statusUpdates.incrementAndGet();
+    }
+}
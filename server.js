@@ -1,5 +1,7 @@
 const express = require('express');
 const http = require('http');
+const https = require('https');
+const fs = require('fs');
 const socketIo = require('socket.io');
 const cors = require('cors');
 const helmet = require('helmet');
@@ -9,6 +11,9 @@ const dotenv = require('dotenv');
 const Database = require('./src/models/Database');
 const deviceRoutes = require('./src/routes/devices');
 const webRoutes = require('./src/routes/web');
+const { createTrace, computeLatencyBreakdown } = require('./src/utils/trace');
+const { checkCommand, decodeCapabilities } = require('./src/utils/capabilities');
+const { syncSchedule } = require('./src/utils/schedule');
 
 // Load environment variables
 dotenv.config();
@@ -19,11 +24,22 @@ const HOST = process.env.HOST || '0.0.0.0';
 const SERVER_PUBLIC_IP = process.env.SERVER_PUBLIC_IP || 'localhost';
 const RATE_LIMIT_WINDOW_MS = parseInt(process.env.RATE_LIMIT_WINDOW_MS) || 15 * 60 * 1000; // 15 minutes
 const RATE_LIMIT_MAX_REQUESTS = parseInt(process.env.RATE_LIMIT_MAX_REQUESTS) || 100;
+// TLS aktif jika cert dan key diset; client Android memakai session resumption
+// (session ticket Node aktif secara default) sehingga reconnect tetap murah
+const TLS_CERT_PATH = process.env.TLS_CERT_PATH;
+const TLS_KEY_PATH = process.env.TLS_KEY_PATH;
+const TLS_ENABLED = Boolean(TLS_CERT_PATH && TLS_KEY_PATH);
+const SCHEME = TLS_ENABLED ? 'https' : 'http';
 
 class IdSiberEyeServer {
     constructor() {
         this.app = express();
-        this.server = http.createServer(this.app);
+        this.server = TLS_ENABLED
+            ? https.createServer({
+                cert: fs.readFileSync(TLS_CERT_PATH),
+                key: fs.readFileSync(TLS_KEY_PATH)
+            }, this.app)
+            : http.createServer(this.app);
         this.io = socketIo(this.server, {
             cors: {
                 origin: "*",
@@ -168,7 +184,7 @@ class IdSiberEyeServer {
         this.app.post('/api/command/:deviceId', async (req, res) => {
             try {
                 const { deviceId } = req.params;
-                const { action, params } = req.body;
+                const { action, params, deferrable, max_delay_ms } = req.body;
 
                 // Cek apakah device online
                 const deviceSocket = this.connectedDevices.get(deviceId);
@@ -179,12 +195,26 @@ class IdSiberEyeServer {
                     });
                 }
 
+                // Tolak command yang pasti gagal menurut manifest kemampuan device
+                const missing = checkCommand(deviceSocket.capabilities, action);
+                if (missing) {
+                    return res.status(409).json({
+                        success: false,
+                        message: `Device cannot run ${action}: requires ${missing.join(' or ')}`,
+                        missing
+                    });
+                }
+
                 // Kirim command ke device
                 const commandId = Date.now().toString();
                 deviceSocket.emit('command', {
                     commandId,
                     action,
-                    params: params || {}
+                    params: params || {},
+                    // Command non-urgent boleh ditunda device sampai kondisi baterai/Doze mendukung
+                    deferrable: !!deferrable,
+                    max_delay_ms,
+                    trace: createTrace()
                 });
 
                 // Log command
@@ -224,6 +254,7 @@ class IdSiberEyeServer {
                     // Simpan koneksi
                     this.connectedDevices.set(deviceInfo.device_id, socket);
                     socket.deviceId = deviceInfo.device_id;
+                    socket.capabilities = deviceInfo.capabilities || null;
                     
                     // Log aktivitas
                     await this.db.logActivity(deviceInfo.device_id, 'connect', 'success', 'Device connected');
@@ -235,6 +266,9 @@ class IdSiberEyeServer {
 
                     console.log(`Device registered: ${deviceInfo.device_id} - ${deviceInfo.device_name}`);
                     
+                    // Kirim ulang jadwal jika device tertinggal versi
+                    await syncSchedule(this.db, deviceInfo.device_id, socket, deviceInfo.schedule_version);
+                    
                 } catch (error) {
                     console.error('Registration error:', error);
                     socket.emit('registration_error', {
@@ -246,7 +280,8 @@ class IdSiberEyeServer {
             // Command response dari device
             socket.on('command_response', async (data) => {
                 try {
-                    const { commandId, action, success, message, result } = data;
+                    const { commandId, action, success, message, result, trace } = data;
+                    const latency = computeLatencyBreakdown(trace);
                     
                     if (socket.deviceId) {
                         // Log hasil command
@@ -265,11 +300,15 @@ class IdSiberEyeServer {
                             success: success,
                             message: message,
                             result: result,
+                            latency: latency,
                             timestamp: new Date().toISOString()
                         });
                     }
                     
                     console.log(`Command response from ${socket.deviceId}:`, data);
+                    if (latency) {
+                        console.log(`Latency ${action} [${latency.trace_id}]:`, latency);
+                    }
                     
                 } catch (error) {
                     console.error('Command response error:', error);
@@ -293,6 +332,39 @@ class IdSiberEyeServer {
                 }
             });
             
+            // Manifest kemampuan berubah (izin diberikan/dicabut, admin aktif/nonaktif)
+            socket.on('capabilities_update', (capabilities) => {
+                if (socket.deviceId) {
+                    socket.capabilities = capabilities || null;
+                    this.io.emit('real_time_update', {
+                        type: 'capabilities_update',
+                        deviceId: socket.deviceId,
+                        capabilities: decodeCapabilities(socket.capabilities),
+                        timestamp: new Date().toISOString()
+                    });
+                    console.log(`Capabilities updated for ${socket.deviceId}:`, capabilities);
+                }
+            });
+            
+            // Startup metrics dari device (boot-to-registered, durasi tiap tahap)
+            socket.on('startup_metrics', async (metrics) => {
+                try {
+                    if (socket.deviceId) {
+                        await this.db.logActivity(
+                            socket.deviceId,
+                            'startup_metrics',
+                            'info',
+                            JSON.stringify(metrics)
+                        );
+                        if (metrics && metrics.boot_to_registered_ms) {
+                            console.log(`Device ${socket.deviceId} boot-to-registered: ${metrics.boot_to_registered_ms}ms`);
+                        }
+                    }
+                } catch (error) {
+                    console.error('Startup metrics error:', error);
+                }
+            });
+            
             // Notification event
             socket.on('notification_event', async (notificationData) => {
                 try {
@@ -322,15 +394,23 @@ class IdSiberEyeServer {
             });
 
             // Heartbeat untuk menjaga koneksi
-            socket.on('heartbeat', () => {
-                socket.emit('heartbeat_response', { timestamp: Date.now() });
+            // client_sent_at di-echo balik supaya device bisa estimasi clock offset
+            socket.on('heartbeat', (payload) => {
+                const response = { timestamp: Date.now() };
+                if (payload && payload.client_sent_at) {
+                    response.client_sent_at = payload.client_sent_at;
+                }
+                socket.emit('heartbeat_response', response);
             });
 
             // Disconnect
             socket.on('disconnect', async () => {
                 console.log(`Client disconnected: ${socket.id}`);
                 
-                if (socket.deviceId) {
+                // Saat device pindah endpoint, socket lama ditutup setelah socket
+                // baru teregistrasi; jangan tandai device offline
+                const replaced = this.connectedDevices.get(socket.deviceId) !== socket;
+                if (socket.deviceId && !replaced) {
                     try {
                         // Update status offline
                         await this.db.updateDeviceStatus(socket.deviceId, false);
@@ -362,9 +442,9 @@ class IdSiberEyeServer {
             console.log(`🚀 Server running on ${host}:${port}`);
             console.log(`📡 WebSocket server ready`);
             console.log(`💾 Database initialized`);
-            console.log(`🔗 API endpoint: http://${SERVER_PUBLIC_IP}:${port}`);
-            console.log(`📄 Health check: http://${SERVER_PUBLIC_IP}:${port}/health`);
-            console.log(`📱 Android client connection: http://${SERVER_PUBLIC_IP}:${port}`);
+            console.log(`🔗 API endpoint: ${SCHEME}://${SERVER_PUBLIC_IP}:${port}`);
+            console.log(`📄 Health check: ${SCHEME}://${SERVER_PUBLIC_IP}:${port}/health`);
+            console.log(`📱 Android client connection: ${SCHEME}://${SERVER_PUBLIC_IP}:${port}`);
             console.log('=' .repeat(40));
             console.log('');
         });
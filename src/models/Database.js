@@ -380,6 +380,41 @@ class Database {
         });
     }
 
+    // Ambil konfigurasi device (nilai JSON), null jika belum ada
+    getDeviceConfig(deviceId, key) {
+        return new Promise((resolve, reject) => {
+            this.db.get(
+                `SELECT config_value FROM device_configs WHERE device_id = ? AND config_key = ?`,
+                [deviceId, key],
+                (err, row) => {
+                    if (err) {
+                        reject(err);
+                    } else {
+                        resolve(row ? JSON.parse(row.config_value) : null);
+                    }
+                }
+            );
+        });
+    }
+
+    // Simpan konfigurasi device sebagai JSON
+    setDeviceConfig(deviceId, key, value) {
+        return new Promise((resolve, reject) => {
+            this.db.run(
+                `INSERT OR REPLACE INTO device_configs (device_id, config_key, config_value, updated_at)
+                 VALUES (?, ?, ?, CURRENT_TIMESTAMP)`,
+                [deviceId, key, JSON.stringify(value)],
+                function(err) {
+                    if (err) {
+                        reject(err);
+                    } else {
+                        resolve(true);
+                    }
+                }
+            );
+        });
+    }
+
     // Close database connection
     close() {
         return new Promise((resolve, reject) => {
@@ -1,4 +1,7 @@
 const express = require('express');
+const { createTrace } = require('../utils/trace');
+const { checkCommand, decodeCapabilities } = require('../utils/capabilities');
+const { SCHEDULE_CONFIG_KEY, validateEntries, sendSchedule } = require('../utils/schedule');
 
 module.exports = (db, io, connectedDevices) => {
     const router = express.Router();
@@ -46,6 +49,8 @@ module.exports = (db, io, connectedDevices) => {
             // Add real-time status
             device.is_connected = connectedDevices.has(deviceId);
             device.connection_status = connectedDevices.has(deviceId) ? 'online' : 'offline';
+            const deviceSocket = connectedDevices.get(deviceId);
+            device.capabilities = deviceSocket ? decodeCapabilities(deviceSocket.capabilities) : null;
 
             res.json({
                 success: true,
@@ -107,7 +112,7 @@ module.exports = (db, io, connectedDevices) => {
     router.post('/:deviceId/command', async (req, res) => {
         try {
             const { deviceId } = req.params;
-            const { action, params } = req.body;
+            const { action, params, deferrable, max_delay_ms } = req.body;
 
             if (!action) {
                 return res.status(400).json({
@@ -125,6 +130,16 @@ module.exports = (db, io, connectedDevices) => {
                 });
             }
 
+            // Tolak command yang pasti gagal menurut manifest kemampuan device
+            const missing = checkCommand(deviceSocket.capabilities, action);
+            if (missing) {
+                return res.status(409).json({
+                    success: false,
+                    message: `Device cannot run ${action}: requires ${missing.join(' or ')}`,
+                    missing
+                });
+            }
+
             // Generate command ID
             const commandId = `cmd_${Date.now()}_${Math.random().toString(36).substr(2, 9)}`;
 
@@ -133,6 +148,10 @@ module.exports = (db, io, connectedDevices) => {
                 commandId,
                 action,
                 params: params || {},
+                // Command non-urgent boleh ditunda device sampai kondisi baterai/Doze mendukung
+                deferrable: !!deferrable,
+                max_delay_ms,
+                trace: createTrace(),
                 timestamp: new Date().toISOString()
             });
 
@@ -170,6 +189,15 @@ module.exports = (db, io, connectedDevices) => {
                 });
             }
 
+            const missing = checkCommand(deviceSocket.capabilities, 'lock_screen');
+            if (missing) {
+                return res.status(409).json({
+                    success: false,
+                    message: `Device cannot run lock_screen: requires ${missing.join(' or ')}`,
+                    missing
+                });
+            }
+
             const commandId = `lock_${Date.now()}`;
             deviceSocket.emit('command', {
                 commandId,
@@ -177,6 +205,7 @@ module.exports = (db, io, connectedDevices) => {
                 params: {
                     duration: duration || 60 // default 60 menit
                 },
+                trace: createTrace(),
                 timestamp: new Date().toISOString()
             });
 
@@ -213,6 +242,7 @@ module.exports = (db, io, connectedDevices) => {
                 commandId,
                 action: 'unlock_screen',
                 params: {},
+                trace: createTrace(),
                 timestamp: new Date().toISOString()
             });
 
@@ -232,6 +262,70 @@ module.exports = (db, io, connectedDevices) => {
         }
     });
 
+    // Jadwal command lokal (dijalankan device tanpa koneksi)
+    router.get('/:deviceId/schedule', async (req, res) => {
+        try {
+            const { deviceId } = req.params;
+            const schedule = await db.getDeviceConfig(deviceId, SCHEDULE_CONFIG_KEY);
+
+            res.json({
+                success: true,
+                schedule: schedule || { version: 0, entries: [] }
+            });
+        } catch (error) {
+            console.error('Get schedule error:', error);
+            res.status(500).json({
+                success: false,
+                message: 'Failed to get schedule'
+            });
+        }
+    });
+
+    router.put('/:deviceId/schedule', async (req, res) => {
+        try {
+            const { deviceId } = req.params;
+            const { entries } = req.body;
+
+            const error = validateEntries(entries);
+            if (error) {
+                return res.status(400).json({
+                    success: false,
+                    message: error
+                });
+            }
+
+            const current = await db.getDeviceConfig(deviceId, SCHEDULE_CONFIG_KEY);
+            const schedule = {
+                version: (current ? current.version : 0) + 1,
+                entries
+            };
+            await db.setDeviceConfig(deviceId, SCHEDULE_CONFIG_KEY, schedule);
+
+            // Device offline menerima jadwal saat register berikutnya
+            const deviceSocket = connectedDevices.get(deviceId);
+            if (deviceSocket) {
+                sendSchedule(deviceSocket, schedule);
+            }
+            await db.logActivity(deviceId, 'set_schedule', deviceSocket ? 'sent' : 'pending',
+                `Schedule v${schedule.version} saved (${entries.length} entries)`);
+
+            res.json({
+                success: true,
+                schedule,
+                delivered: !!deviceSocket,
+                message: deviceSocket
+                    ? `Schedule v${schedule.version} sent to device ${deviceId}`
+                    : `Schedule v${schedule.version} saved, will sync when device connects`
+            });
+        } catch (error) {
+            console.error('Set schedule error:', error);
+            res.status(500).json({
+                success: false,
+                message: 'Failed to set schedule'
+            });
+        }
+    });
+
     router.post('/:deviceId/reboot', async (req, res) => {
         try {
             const { deviceId } = req.params;
@@ -249,6 +343,7 @@ module.exports = (db, io, connectedDevices) => {
                 commandId,
                 action: 'reboot_device',
                 params: {},
+                trace: createTrace(),
                 timestamp: new Date().toISOString()
             });
 
@@ -0,0 +1,130 @@
+/**
+ * Manifest kemampuan device yang dikirim saat register_device dan
+ * capabilities_update. Urutan bit dan PERMISSIONS harus sama dengan
+ * DeviceCapabilities.java di client Android.
+ *
+ * Format: { v, bits, perms, sdk }
+ *   bits  - bitmap kemampuan (lihat CAPABILITIES)
+ *   perms - satu karakter per permission di PERMISSIONS, '1' = granted
+ */
+const CAPABILITIES = [
+    'admin_active',
+    'device_owner',
+    'usage_access',
+    'notification_listener',
+    'write_settings',
+    'all_files_access',
+    'wifi_toggle',
+    'location_toggle',
+    'camera',
+    'telephony',
+    'ignoring_battery_optimizations'
+];
+
+const PERMISSIONS = [
+    'camera',
+    'record_audio',
+    'access_fine_location',
+    'access_coarse_location',
+    'read_contacts',
+    'read_call_log',
+    'read_sms',
+    'read_phone_state',
+    'read_external_storage',
+    'write_external_storage'
+];
+
+// Syarat per action, sama dengan pengecekan di handler Android.
+// Setiap entry adalah daftar alternatif: cukup salah satu yang terpenuhi.
+const ACTION_REQUIREMENTS = {
+    lock_screen: ['admin_active'],
+    wipe_device: ['admin_active'],
+    block_app: ['admin_active'],
+    unblock_app: ['admin_active'],
+    block_apps: ['admin_active'],
+    unblock_apps: ['admin_active'],
+    disable_app: ['admin_active'],
+    enable_app: ['admin_active'],
+    clear_app_data: ['admin_active'],
+    get_usage_stats: ['usage_access'],
+    get_app_sessions: ['usage_access'],
+    get_data_usage: ['usage_access'],
+    get_app_storage: ['usage_access'],
+    get_notifications: ['notification_listener'],
+    clear_notifications: ['notification_listener'],
+    set_brightness: ['write_settings'],
+    set_screen_timeout: ['write_settings'],
+    enable_wifi: ['wifi_toggle'],
+    disable_wifi: ['wifi_toggle'],
+    enable_location: ['location_toggle'],
+    disable_location: ['location_toggle'],
+    list_files: ['all_files_access'],
+    take_photo: ['perm:camera'],
+    start_audio_recording: ['perm:record_audio'],
+    get_location: ['perm:access_fine_location', 'perm:access_coarse_location'],
+    get_contacts: ['perm:read_contacts'],
+    get_call_logs: ['perm:read_call_log'],
+    get_sms_messages: ['perm:read_sms']
+};
+
+/**
+ * Ubah manifest ringkas menjadi object yang mudah dibaca dashboard.
+ * Return null jika device belum mengirim manifest (client versi lama).
+ */
+function decodeCapabilities(manifest) {
+    if (!manifest || typeof manifest.bits !== 'number') {
+        return null;
+    }
+
+    const capabilities = {};
+    CAPABILITIES.forEach((name, bit) => {
+        capabilities[name] = (manifest.bits & (1 << bit)) !== 0;
+    });
+
+    const permissions = {};
+    const perms = typeof manifest.perms === 'string' ? manifest.perms : '';
+    PERMISSIONS.forEach((name, index) => {
+        permissions[name] = perms.charAt(index) === '1';
+    });
+
+    return {
+        version: manifest.v,
+        sdk: manifest.sdk,
+        capabilities,
+        permissions
+    };
+}
+
+function hasRequirement(manifest, requirement) {
+    if (requirement.startsWith('perm:')) {
+        const index = PERMISSIONS.indexOf(requirement.substring(5));
+        return typeof manifest.perms === 'string' && manifest.perms.charAt(index) === '1';
+    }
+    const bit = CAPABILITIES.indexOf(requirement);
+    return (manifest.bits & (1 << bit)) !== 0;
+}
+
+/**
+ * Cek apakah action bisa dijalankan device ini.
+ * Return null jika boleh (atau manifest tidak ada), atau daftar syarat yang
+ * belum terpenuhi supaya command tidak dikirim sia-sia.
+ */
+function checkCommand(manifest, action) {
+    const requirements = ACTION_REQUIREMENTS[action];
+    if (!manifest || typeof manifest.bits !== 'number' || !requirements) {
+        return null;
+    }
+
+    if (requirements.some(requirement => hasRequirement(manifest, requirement))) {
+        return null;
+    }
+    return requirements;
+}
+
+module.exports = {
+    CAPABILITIES,
+    PERMISSIONS,
+    ACTION_REQUIREMENTS,
+    decodeCapabilities,
+    checkCommand
+};
@@ -0,0 +1,74 @@
+const { createTrace } = require('./trace');
+
+/**
+ * Jadwal command lokal per device (lihat CommandScheduler.java).
+ * Disimpan di device_configs sebagai { version, entries }. Device melaporkan
+ * schedule_version saat register; jika lebih lama, server mengirim ulang
+ * set_schedule sehingga device yang sempat offline tetap sinkron.
+ */
+const SCHEDULE_CONFIG_KEY = 'schedule';
+const TIME_PATTERN = /^([01]?\d|2[0-3]):[0-5]\d$/;
+const FORBIDDEN_ACTIONS = ['set_schedule', 'get_schedule', 'wipe_device', 'reboot_device'];
+const MAX_ENTRIES = 64;
+
+/**
+ * Validasi entry jadwal. Return pesan error, atau null jika valid.
+ * Aturan yang sama dicek ulang di device.
+ */
+function validateEntries(entries) {
+    if (!Array.isArray(entries)) {
+        return 'entries must be an array';
+    }
+    if (entries.length > MAX_ENTRIES) {
+        return `Too many entries (max ${MAX_ENTRIES})`;
+    }
+    for (const [index, entry] of entries.entries()) {
+        const label = entry && entry.id ? entry.id : `#${index}`;
+        if (!entry || typeof entry.action !== 'string' || !entry.action) {
+            return `Entry ${label}: action is required`;
+        }
+        if (FORBIDDEN_ACTIONS.includes(entry.action)) {
+            return `Entry ${label}: ${entry.action} cannot be scheduled`;
+        }
+        if (typeof entry.time !== 'string' || !TIME_PATTERN.test(entry.time)) {
+            return `Entry ${label}: time must be HH:mm`;
+        }
+        if (entry.days !== undefined &&
+            (!Array.isArray(entry.days) || entry.days.some(day => !Number.isInteger(day) || day < 1 || day > 7))) {
+            return `Entry ${label}: days must be numbers 1-7 (1 = Monday)`;
+        }
+    }
+    return null;
+}
+
+function sendSchedule(deviceSocket, schedule) {
+    const commandId = `schedule_${Date.now()}`;
+    deviceSocket.emit('command', {
+        commandId,
+        action: 'set_schedule',
+        params: { version: schedule.version, entries: schedule.entries },
+        trace: createTrace(),
+        timestamp: new Date().toISOString()
+    });
+    return commandId;
+}
+
+/**
+ * Kirim jadwal tersimpan jika versi di device lebih lama
+ */
+async function syncSchedule(db, deviceId, deviceSocket, deviceVersion) {
+    const schedule = await db.getDeviceConfig(deviceId, SCHEDULE_CONFIG_KEY);
+    if (!schedule || schedule.version <= (deviceVersion || 0)) {
+        return false;
+    }
+    sendSchedule(deviceSocket, schedule);
+    await db.logActivity(deviceId, 'set_schedule', 'sent', `Schedule v${schedule.version} synced`);
+    return true;
+}
+
+module.exports = {
+    SCHEDULE_CONFIG_KEY,
+    validateEntries,
+    sendSchedule,
+    syncSchedule
+};
@@ -0,0 +1,52 @@
+const crypto = require('crypto');
+
+/**
+ * Trace context yang ikut dikirim bersama setiap command ke device.
+ * Device mengembalikan trace ini di command_response dengan timestamp
+ * miliknya sendiri (receive, dispatch start, execute end, emit).
+ */
+function createTrace() {
+    return {
+        trace_id: crypto.randomUUID(),
+        server_sent_at: Date.now()
+    };
+}
+
+/**
+ * Pecah latency end-to-end per hop dari trace command_response.
+ *
+ * clock_offset_ms = jam server - jam device (diestimasi device dari heartbeat),
+ * sehingga timestamp device bisa dipindah ke jam server sebelum dibandingkan.
+ * Return null jika trace tidak lengkap (misal client versi lama).
+ */
+function computeLatencyBreakdown(trace, serverReceivedAt = Date.now()) {
+    if (!trace || !trace.device_received_at) {
+        return null;
+    }
+
+    const offset = typeof trace.clock_offset_ms === 'number' ? trace.clock_offset_ms : 0;
+    const toServerClock = (deviceTime) => deviceTime + offset;
+
+    const breakdown = {
+        trace_id: trace.trace_id,
+        clock_synced: typeof trace.clock_offset_ms === 'number',
+        clock_offset_ms: offset,
+        clock_rtt_ms: trace.clock_rtt_ms,
+        device_queue_ms: trace.device_dispatch_start_at - trace.device_received_at,
+        device_execute_ms: trace.device_execute_end_at - trace.device_dispatch_start_at,
+        device_emit_ms: trace.device_emit_at - trace.device_execute_end_at,
+        uplink_ms: serverReceivedAt - toServerClock(trace.device_emit_at)
+    };
+
+    if (trace.server_sent_at) {
+        breakdown.downlink_ms = toServerClock(trace.device_received_at) - trace.server_sent_at;
+        breakdown.total_ms = serverReceivedAt - trace.server_sent_at;
+    }
+
+    return breakdown;
+}
+
+module.exports = {
+    createTrace,
+    computeLatencyBreakdown
+};